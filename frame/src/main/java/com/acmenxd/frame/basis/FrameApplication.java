@@ -13,6 +13,8 @@ import com.acmenxd.frame.utils.CrashUtils;
 import com.acmenxd.frame.utils.DateUtils;
 import com.acmenxd.frame.utils.FileUtils;
 import com.acmenxd.frame.utils.net.Monitor;
+import com.acmenxd.logger.FileLog;
+import com.acmenxd.logger.LogMemorySink;
 import com.acmenxd.logger.LogTag;
 import com.acmenxd.logger.Logger;
 import com.acmenxd.retrofit.NetCodeParse;
@@ -32,6 +34,8 @@ public abstract class FrameApplication extends Application {
 
     // 单例实例
     private static FrameApplication sInstance = null;
+    // 崩溃时等待最近日志分发完成的最长时间(毫秒)
+    private static final long CRASH_RECENT_FLUSH_TIMEOUT = 500;
 
     public FrameApplication() {
         sInstance = this;
@@ -51,6 +55,8 @@ public abstract class FrameApplication extends Application {
         super.onTerminate();
         // 终止网络监听
         Monitor.release();
+        // 写完缓冲区中的文件日志
+        FileLog.shutdown(2000);
     }
 
     @CallSuper
@@ -123,6 +129,12 @@ public abstract class FrameApplication extends Application {
         } catch (IllegalAccessException pE1) {
             Logger.e("crashException:" + pE1.getMessage());
         }
+        LogMemorySink recentLogs = ConfigBuilder.getRecentLogs();
+        if (recentLogs != null) {
+            Logger.flushLogSinks(CRASH_RECENT_FLUSH_TIMEOUT);
+            sb.append("最近日志============================================\n");
+            sb.append(recentLogs.dump());
+        }
         Logger.file(LogTag.mk("crashException"), fileName, pE, sb.toString());
         // 内存溢出类型崩溃,生成.hprof文件
         // crashOutOfMemory(pE, fileName.replace(".txt", ".hprof"));
@@ -111,7 +111,7 @@ public abstract class FrameModel implements INet {
     }
 
     /**
-     * 创建新的Retrofit实例
+     * 与request相同,返回缓存的实例
      * 根据IRequest类获取Request实例
      */
     @Override
@@ -120,7 +120,7 @@ public abstract class FrameModel implements INet {
     }
 
     /**
-     * 创建新的Retrofit实例,并设置超时时间
+     * 设置超时时间 - 只作用于返回的实例,与其他请求共享连接池和缓存
      * 根据IRequest类获取Request实例
      */
     @Override
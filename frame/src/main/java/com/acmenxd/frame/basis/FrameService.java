@@ -205,7 +205,7 @@ public abstract class FrameService extends Service implements INet {
     }
 
     /**
-     * 创建新的Retrofit实例
+     * 与request相同,返回缓存的实例
      * 根据IRequest类获取Request实例
      */
     @Override
@@ -214,7 +214,7 @@ public abstract class FrameService extends Service implements INet {
     }
 
     /**
-     * 创建新的Retrofit实例,并设置超时时间
+     * 设置超时时间 - 只作用于返回的实例,与其他请求共享连接池和缓存
      * 根据IRequest类获取Request实例
      */
     @Override
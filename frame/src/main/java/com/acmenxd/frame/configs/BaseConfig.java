@@ -5,12 +5,19 @@ import android.support.annotation.CallSuper;
 import android.support.annotation.NonNull;
 import android.util.Log;
 
+import com.acmenxd.logger.LogFilter;
+import com.acmenxd.logger.LogOverflow;
+import com.acmenxd.logger.LogSink;
 import com.acmenxd.logger.LogTag;
 import com.acmenxd.logger.LogType;
+import com.acmenxd.logger.Logger;
 import com.acmenxd.retrofit.NetCodeParse;
 import com.acmenxd.toaster.ToastDuration;
 import com.acmenxd.toaster.ToastNW;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -31,6 +38,9 @@ public abstract class BaseConfig {
         LOG_OPEN = DEBUG;
         TOAST_DEBUG_OPEN = DEBUG;
         NET_LOG_OPEN = DEBUG;
+        NET_VALIDATE_EAGERLY = DEBUG;
+        NET_METRICS_OPEN = DEBUG;
+        LOG_SHOW_LOCATION = DEBUG;
         initSpData();
         initNetURL();
     }
@@ -62,8 +72,44 @@ public abstract class BaseConfig {
     public boolean LOG_OPEN = DEBUG;
     // Log显示等级, >= LOG_LEVEL的log显示
     public LogType LOG_LEVEL = LogType.V;
+    // Log是否输出调用位置 - 开启后每条日志都要解析调用栈,默认只在Debug开启
+    public boolean LOG_SHOW_LOCATION = DEBUG;
+    // Json/Xml日志格式化输出的最大字节数,超出后截断
+    public long LOG_PRETTY_MAX_BYTES = 64 * 1024;
+    // Log按Tag过滤规则(等级阈值/限流/抽样),运行时通过setLogFilters替换
+    public Map<LogTag, LogFilter> LOG_FILTERS = new HashMap<>();
     // Log日志默认保存路径
     public String LOG_DIR = BASE_DIR + "Logger/";
+    // Log日志文件(未指定文件名时)单个文件最大字节数
+    public long LOG_FILE_MAX_SIZE = 1024 * 1024;
+    // Log日志文件是否每天切换新文件
+    public boolean LOG_FILE_ROLL_DAILY = true;
+    // Log日志文件最多保留个数
+    public int LOG_FILE_MAX_COUNT = 10;
+    // Log日志文件最多保留总字节数
+    public long LOG_FILE_MAX_TOTAL_SIZE = 10 * 1024 * 1024;
+    // Log日志文件切换后是否压缩
+    public boolean LOG_FILE_COMPRESS = true;
+    // Log日志文件(未指定文件名时)是否以二进制格式写入
+    public boolean LOG_FILE_BINARY = false;
+    // Log日志文件缓冲区容量(条)
+    public int LOG_FILE_BUFFER_SIZE = 1024;
+    // Log日志文件缓冲区已满时的处理策略
+    public LogOverflow LOG_FILE_OVERFLOW = LogOverflow.DROP_OLDEST;
+    // Log自定义输出端(控制台和文件之外),每个输出端异步分发
+    public List<LogSink> LOG_SINKS = new ArrayList<>();
+    // Log输出端队列容量(条)
+    public int LOG_SINK_BUFFER_SIZE = 1024;
+    // 崩溃日志中附加的最近日志条数(<=0 不附加) - 默认关闭,开启后每条日志多一次入队和一个分发线程
+    public int LOG_CRASH_RECENT_COUNT = 0;
+
+    /**
+     * 运行时替换Log过滤规则,无需重启
+     */
+    public final void setLogFilters(@NonNull Map<LogTag, LogFilter> filters) {
+        LOG_FILTERS = filters;
+        Logger.setLogFilters(filters);
+    }
 
     /**
      * Toast 配置
@@ -81,6 +127,12 @@ public abstract class BaseConfig {
      */
     public String SP_Device = "spDevice";
     public String[] spAll;
+    // 使用内存映射文件存储的sp(数据量大/写入频繁时使用),其余使用系统SharedPreferences
+    public String[] spMmap = new String[]{};
+    // 全局sp(spAll)是否在后台并行预加载,加载完成前的读写只等待对应的sp
+    public boolean SP_PRELOAD = true;
+    // sp加密口令 - 设置后使用AES加密(SpCipherCallback),已有数据自动重新加密; null表示使用EncodeDecode
+    public String SP_SECRET = null;
 
     // 配置sp初始个数
     protected void initSpData() {
@@ -139,4 +191,14 @@ public abstract class BaseConfig {
     public int READ_TIMEOUT = 30;
     // 写入超时时间(秒)
     public int WRITE_TIMEOUT = 30;
+    // Net Log 中请求体/响应体最多输出的字节数,超出部分不复制
+    public long NET_LOG_BODY_LIMIT = 32 * 1024;
+    // NetMutualCallback公共参数的缓存时间(毫秒),按完整url缓存; 默认0表示每次请求都获取,回调结果只由url决定时才可开启
+    public long NET_MUTUAL_CACHE_TIME = 0;
+    // 是否统计请求各阶段耗时,通过NetManager.getMetrics获取
+    public boolean NET_METRICS_OPEN = DEBUG;
+    // 预加载NET_PRELOAD_REQUESTS时是否在后台线程解析IRequest的所有方法(方法声明有误时立即报错)
+    public boolean NET_VALIDATE_EAGERLY = DEBUG;
+    // 启动时在后台线程预先创建并解析的IRequest类
+    public Class<?>[] NET_PRELOAD_REQUESTS;
 }
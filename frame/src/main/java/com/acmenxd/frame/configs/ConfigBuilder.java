@@ -8,9 +8,12 @@ import com.acmenxd.frame.utils.FileUtils;
 import com.acmenxd.frame.utils.code.EncodeDecode;
 import com.acmenxd.frescoview.FrescoManager;
 import com.acmenxd.glide.GlideManager;
+import com.acmenxd.logger.LogMemorySink;
+import com.acmenxd.logger.LogSink;
 import com.acmenxd.logger.LogType;
 import com.acmenxd.logger.Logger;
 import com.acmenxd.retrofit.NetManager;
+import com.acmenxd.sptool.SpCipherCallback;
 import com.acmenxd.sptool.SpEncodeDecodeCallback;
 import com.acmenxd.sptool.SpManager;
 import com.acmenxd.toaster.Toaster;
@@ -18,6 +21,7 @@ import com.bumptech.glide.load.DecodeFormat;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.Charset;
 
 /**
  * @author AcmenXD
@@ -29,6 +33,8 @@ import java.io.IOException;
 public final class ConfigBuilder {
     // 配置详细参数类
     private static BaseConfig sConfigInfo;
+    // 最近日志,崩溃时附加到崩溃日志
+    private static LogMemorySink sRecentLogs;
 
     /**
      * 创建配置详情
@@ -54,6 +60,13 @@ public final class ConfigBuilder {
         return null;
     }
 
+    /**
+     * 获取最近日志 - LOG_CRASH_RECENT_COUNT<=0 时为null
+     */
+    public static LogMemorySink getRecentLogs() {
+        return sRecentLogs;
+    }
+
     /**
      * 初始化 -> BaseApplication中调用
      * * 基础组件配置
@@ -73,12 +86,37 @@ public final class ConfigBuilder {
         Logger.APP_PKG_NAME = context.getPackageName();
         Logger.LOG_OPEN = sConfigInfo.LOG_OPEN;
         Logger.LOG_LEVEL = LogType.V;
+        Logger.LOG_SHOW_LOCATION = sConfigInfo.LOG_SHOW_LOCATION;
+        Logger.LOG_PRETTY_MAX_BYTES = sConfigInfo.LOG_PRETTY_MAX_BYTES;
         Logger.LOGFILE_PATH = sConfigInfo.LOG_DIR;
+        Logger.setLogFilters(sConfigInfo.LOG_FILTERS);
+        Logger.LOGFILE_MAX_SIZE = sConfigInfo.LOG_FILE_MAX_SIZE;
+        Logger.LOGFILE_ROLL_DAILY = sConfigInfo.LOG_FILE_ROLL_DAILY;
+        Logger.LOGFILE_MAX_COUNT = sConfigInfo.LOG_FILE_MAX_COUNT;
+        Logger.LOGFILE_MAX_TOTAL_SIZE = sConfigInfo.LOG_FILE_MAX_TOTAL_SIZE;
+        Logger.LOGFILE_COMPRESS = sConfigInfo.LOG_FILE_COMPRESS;
+        Logger.LOGFILE_BINARY = sConfigInfo.LOG_FILE_BINARY;
+        Logger.LOGFILE_BUFFER_SIZE = sConfigInfo.LOG_FILE_BUFFER_SIZE;
+        Logger.LOGFILE_OVERFLOW = sConfigInfo.LOG_FILE_OVERFLOW;
+        Logger.LOG_SINK_BUFFER_SIZE = sConfigInfo.LOG_SINK_BUFFER_SIZE;
+        if (sConfigInfo.LOG_CRASH_RECENT_COUNT > 0) {
+            sRecentLogs = new LogMemorySink(sConfigInfo.LOG_CRASH_RECENT_COUNT);
+            Logger.addLogSink(sRecentLogs);
+        }
+        if (sConfigInfo.LOG_SINKS != null) {
+            for (LogSink sink : sConfigInfo.LOG_SINKS) {
+                Logger.addLogSink(sink);
+            }
+        }
         //------------------------------------SpTool配置---------------------------------
         // 设置全局Sp实例,项目启动时创建,并通过getCommonSp拿到,项目中只有一份实例
         SpManager.CommonSp = sConfigInfo.spAll;
+        // 使用内存映射文件存储的Sp
+        SpManager.MmapSp = sConfigInfo.spMmap;
+        // 全局Sp后台预加载
+        SpManager.PRELOAD = sConfigInfo.SP_PRELOAD;
         // 加解密回调 - 不设置或null表示不进行加解密处理
-        SpManager.setEncodeDecodeCallback(new SpEncodeDecodeCallback() {
+        SpEncodeDecodeCallback encodeDecode = new SpEncodeDecodeCallback() {
             @Override
             public String encode(String pStr) {
                 String result = null;
@@ -102,7 +140,14 @@ public final class ConfigBuilder {
                 }
                 return result;
             }
-        });
+        };
+        if (sConfigInfo.SP_SECRET != null) {
+            // AES加密,首次打开各Sp时把EncodeDecode加密的数据重新加密;密钥在首次加解密时派生,预加载时在后台线程进行
+            SpManager.setEncodeDecodeCallback(new SpCipherCallback(sConfigInfo.SP_SECRET.toCharArray(),
+                    context.getPackageName().getBytes(Charset.forName("UTF-8"))), encodeDecode);
+        } else {
+            SpManager.setEncodeDecodeCallback(encodeDecode);
+        }
         // * 必须设置,否则无法使用
         SpManager.setContext(context);
         //------------------------------------Retrofit配置---------------------------------
@@ -120,6 +165,12 @@ public final class ConfigBuilder {
         NetManager.INSTANCE.connect_timeout = sConfigInfo.CONNECT_TIMEOUT;
         NetManager.INSTANCE.read_timeout = sConfigInfo.READ_TIMEOUT;
         NetManager.INSTANCE.write_timeout = sConfigInfo.WRITE_TIMEOUT;
+        NetManager.INSTANCE.net_log_body_limit = sConfigInfo.NET_LOG_BODY_LIMIT;
+        NetManager.INSTANCE.net_mutual_cache_time = sConfigInfo.NET_MUTUAL_CACHE_TIME;
+        NetManager.INSTANCE.net_metrics_open = sConfigInfo.NET_METRICS_OPEN;
+        NetManager.INSTANCE.net_validate_eagerly = sConfigInfo.NET_VALIDATE_EAGERLY;
+        // 后台预先创建并解析常用IRequest
+        NetManager.INSTANCE.preloadRequests(sConfigInfo.NET_PRELOAD_REQUESTS);
         //------------------------------------Glide配置---------------------------------
         GlideManager.DECODEFORMAT = DecodeFormat.PREFER_ARGB_8888;
         GlideManager.IMAGE_CACHE_PATH = FileUtils.imgCacheDirPath;
@@ -3,6 +3,7 @@ package com.acmenxd.frame.utils;
 import android.support.annotation.NonNull;
 
 import com.acmenxd.frame.basis.FrameApplication;
+import com.acmenxd.logger.FileLog;
 import com.acmenxd.logger.Logger;
 
 /**
@@ -15,6 +16,8 @@ import com.acmenxd.logger.Logger;
 public final class CrashUtils {
     public final static class CrashManager implements Thread.UncaughtExceptionHandler {
         public static final String TAG = "CrashManager";
+        // 等待崩溃日志写入文件的最长时间(毫秒)
+        private static final long CRASH_FLUSH_TIMEOUT = 2000;
 
         private static CrashManager instance;
         // 程序的Context对象
@@ -53,6 +56,8 @@ public final class CrashUtils {
             } catch (Exception e) {
                 Logger.e(e, "crash is error!");
             } finally {
+                // 崩溃日志为异步写入,交给系统处理前等待写入完成
+                FileLog.flush(CRASH_FLUSH_TIMEOUT);
                 mDefaultHandler.uncaughtException(pThread, pE);
             }
         }
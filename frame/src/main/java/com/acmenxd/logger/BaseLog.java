@@ -10,77 +10,96 @@ import android.util.Log;
  * @github https://github.com/AcmenXD
  * @date 2016/11/22 14:36
  * @detail 顶级Logger类
+ * * 一条日志(上边框 -> 下边框)内的所有行合并输出,每次输出不超过logd单条上限,减少调用次数和丢行
  */
 public abstract class BaseLog {
-    //单条输出最大字符数
-    private static final int MAX_LENGTH = 5000;
+    //单次输出最大字节数(logd单条上限约4K,预留tag和头部空间)
+    private static final int MAX_PAYLOAD = 4000;
+    private static final String LINE_PREFIX = "║ ";
+    private static final String TOP_LINE = "╔════════════════════════════════════════════════════════════════════════════════════════════════════════════════════════════════════";
+    private static final String BOTTOM_LINE = "╚════════════════════════════════════════════════════════════════════════════════════════════════════════════════════════════════════";
+
+    /**
+     * 当前线程正在合并的输出
+     */
+    private static final class Batch {
+        final StringBuilder buffer = new StringBuilder(MAX_PAYLOAD);
+        int bytes;
+        LogType type;
+        LogTag tag;
+        boolean active;
+    }
+
+    private static final ThreadLocal<Batch> sBatch = new ThreadLocal<Batch>() {
+        @Override
+        protected Batch initialValue() {
+            return new Batch();
+        }
+    };
 
     protected final static void printSub(@NonNull LogType type, @NonNull LogTag tag, @NonNull String msg) {
-        switch (type) {
-            case V:
-                Log.v(tag.gTag(), msg);
-                break;
-            case D:
-                Log.d(tag.gTag(), msg);
-                break;
-            case I:
-                Log.i(tag.gTag(), msg);
-                break;
-            case W:
-                Log.w(tag.gTag(), msg);
-                break;
-            case E:
-                Log.e(tag.gTag(), msg);
-                break;
-            case A:
-                Log.wtf(tag.gTag(), msg);
-                break;
-            case JSON:
-                Log.w(tag.gTag(), msg);
-                break;
-            case XML:
-                Log.w(tag.gTag(), msg);
-                break;
-            case FILE:
-                Log.e(tag.gTag(), msg);
-                break;
+        Batch batch = sBatch.get();
+        if (batch.active && batch.type == type && batch.tag == tag) {
+            append(batch, null, msg, 0, msg.length());
+        } else {
+            println(type, tag, msg);
+        }
+    }
+
+    /**
+     * 输出带前缀的一行,合并输出时直接拷贝到缓冲区,不拼接字符串
+     */
+    final static void printSub(@NonNull LogType type, @NonNull LogTag tag, @NonNull String prefix, @NonNull CharSequence line) {
+        Batch batch = sBatch.get();
+        if (batch.active && batch.type == type && batch.tag == tag) {
+            append(batch, prefix, line, 0, line.length());
+        } else {
+            println(type, tag, prefix + line);
         }
     }
 
     protected final static void printLog(@NonNull LogType type, @NonNull LogTag tag, @NonNull String message) {
-        String msgs[] = message.split("\n");
         printLine(type, tag, true);
-        for (int i = 0; i < msgs.length; i++) {
-            String msg = msgs[i];
-            int index = 0;
-            int msgLen = msg.length();
-            int countOfSub = msgLen / MAX_LENGTH; //输出条数
-            if (countOfSub > 0) {
-                for (int j = 0; j < countOfSub; j++) {
-                    int len = index + MAX_LENGTH;
-                    String sub = msg.substring(index, len < msgLen ? len : msgLen);
-                    printSub(type, tag, "║ " + sub);
-                    index += MAX_LENGTH;
-                }
-                printSub(type, tag, "║ " + msg.substring(index, msg.length()));
-            } else {
-                printSub(type, tag, "║ " + msg);
+        Batch batch = sBatch.get();
+        int length = message.length();
+        int start = 0;
+        while (start <= length) {
+            int end = message.indexOf('\n', start);
+            if (end < 0) {
+                end = length;
             }
+            if (start < end || end < length) {
+                append(batch, LINE_PREFIX, message, start, end);
+            }
+            start = end + 1;
         }
         printLine(type, tag, false);
     }
 
     /**
-     * 输出行标记
+     * 输出行标记 - 上边框开始合并输出,下边框结束并输出剩余内容
      *
      * @param tag
      * @param isTop
      */
     protected final static void printLine(@NonNull LogType type, @NonNull LogTag tag, boolean isTop) {
+        Batch batch = sBatch.get();
         if (isTop) {
-            printSub(type, tag, "╔════════════════════════════════════════════════════════════════════════════════════════════════════════════════════════════════════");
+            if (batch.active) {
+                flush(batch);
+            }
+            batch.active = true;
+            batch.type = type;
+            batch.tag = tag;
+            append(batch, null, TOP_LINE, 0, TOP_LINE.length());
+        } else if (batch.active && batch.type == type && batch.tag == tag) {
+            append(batch, null, BOTTOM_LINE, 0, BOTTOM_LINE.length());
+            flush(batch);
+            batch.active = false;
+            batch.type = null;
+            batch.tag = null;
         } else {
-            printSub(type, tag, "╚════════════════════════════════════════════════════════════════════════════════════════════════════════════════════════════════════");
+            println(type, tag, BOTTOM_LINE);
         }
     }
 
@@ -88,4 +107,87 @@ public abstract class BaseLog {
         return TextUtils.isEmpty(line) || TextUtils.isEmpty(line.trim()) || line.equals("\n") || line.equals("\t");
     }
 
-}
\ No newline at end of file
+    /**
+     * 追加一行(src的[start,end)部分),超过单次上限时先输出已合并的内容,超长行拆分输出
+     */
+    private static void append(@NonNull Batch batch, String prefix, @NonNull CharSequence src, int start, int end) {
+        int prefixBytes = prefix == null ? 0 : utf8Length(prefix, 0, prefix.length());
+        int lineBytes = prefixBytes + utf8Length(src, start, end);
+        if (batch.buffer.length() > 0 && batch.bytes + 1 + lineBytes > MAX_PAYLOAD) {
+            flush(batch);
+        }
+        if (batch.buffer.length() > 0) {
+            batch.buffer.append('\n');
+            batch.bytes++;
+        }
+        if (prefix != null) {
+            batch.buffer.append(prefix);
+            batch.bytes += prefixBytes;
+        }
+        for (int i = start; i < end; i++) {
+            char c = src.charAt(i);
+            int bytes = utf8Length(c);
+            if (batch.bytes + bytes > MAX_PAYLOAD) {
+                // 超长行: 输出已合并部分,剩余部分另起一段继续
+                flush(batch);
+                if (prefix != null) {
+                    batch.buffer.append(prefix);
+                    batch.bytes += prefixBytes;
+                }
+            }
+            batch.buffer.append(c);
+            batch.bytes += bytes;
+        }
+    }
+
+    private static void flush(@NonNull Batch batch) {
+        if (batch.buffer.length() > 0) {
+            println(batch.type, batch.tag, batch.buffer.toString());
+            batch.buffer.setLength(0);
+        }
+        batch.bytes = 0;
+    }
+
+    private static void println(@NonNull LogType type, @NonNull LogTag tag, @NonNull String msg) {
+        Log.println(priority(type), tag.gTag(), msg);
+    }
+
+    private static int priority(@NonNull LogType type) {
+        switch (type) {
+            case V:
+            case D:
+            case I:
+            case W:
+            case E:
+            case A:
+                return type.intValue();
+            case JSON:
+            case XML:
+                return Log.WARN;
+            case FILE:
+                return Log.ERROR;
+        }
+        return Log.VERBOSE;
+    }
+
+    private static int utf8Length(@NonNull CharSequence src, int start, int end) {
+        int bytes = 0;
+        for (int i = start; i < end; i++) {
+            bytes += utf8Length(src.charAt(i));
+        }
+        return bytes;
+    }
+
+    /**
+     * 单个字符的UTF-8字节数,代理对按每个char 2字节计算
+     */
+    private static int utf8Length(char c) {
+        if (c < 0x80) {
+            return 1;
+        } else if (c < 0x800 || (c >= '\uD800' && c <= '\uDFFF')) {
+            return 2;
+        }
+        return 3;
+    }
+
+}
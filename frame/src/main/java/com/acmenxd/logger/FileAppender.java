@@ -0,0 +1,456 @@
+package com.acmenxd.logger;
+
+import android.support.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/10 10:21
+ * @detail 异步日志文件写入器
+ * * 调用线程只把日志放入环形缓冲区,由单独的写线程批量写入长期打开的FileChannel,每批写完统一刷盘
+ * * fileName为null的日志交给LogFileRoller按目录滚动写入,二进制格式的日志交给LogBinarySink写入
+ */
+final class FileAppender {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    // 每批最多写入条数
+    private static final int BATCH_SIZE = 256;
+    // 同时保持打开的文件数
+    private static final int MAX_OPEN_FILES = 4;
+    // 写线程空闲时的最长休眠时间
+    private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // BLOCK策略下等待空位的间隔
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private final LogRingBuffer<Record> mBuffer;
+    // 已写入条数
+    private final AtomicLong mWritten = new AtomicLong(0);
+    // 已丢弃条数(缓冲区溢出或写入失败)
+    private final AtomicLong mDropped = new AtomicLong(0);
+    // 已从缓冲区取出并处理完成的条数
+    private final AtomicLong mCompleted = new AtomicLong(0);
+
+    private volatile Thread mWriter;
+    private volatile boolean mRunning;
+    private volatile boolean mParked;
+
+    FileAppender(int capacity) {
+        mBuffer = new LogRingBuffer<>(capacity);
+    }
+
+    /**
+     * 日志记录
+     */
+    private static final class Record {
+        final LogTag tag;
+        final File dir;
+        final String fileName;
+        final String headString;
+        final String className;
+        final String msg;
+        final long time;
+        final LogType type;
+        final String methodName;
+        final int lineNumber;
+        // 是否写入二进制分段
+        final boolean binary;
+
+        Record(LogType type, LogTag tag, File dir, String fileName, String headString, String className,
+               String methodName, int lineNumber, String msg, boolean binary) {
+            this.type = type;
+            this.tag = tag;
+            this.dir = dir;
+            this.fileName = fileName;
+            this.headString = headString;
+            this.className = className;
+            this.methodName = methodName;
+            this.lineNumber = lineNumber;
+            this.msg = msg;
+            this.binary = binary;
+            this.time = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 放入缓冲区,由写线程异步写入文件
+     *
+     * @return 日志被丢弃返回false
+     */
+    boolean append(@NonNull LogType type, @NonNull LogTag tag, @NonNull File dir, String fileName, @NonNull String headString,
+                   String className, String methodName, int lineNumber, @NonNull String msg, boolean binary,
+                   @NonNull LogOverflow overflow) {
+        Record record = new Record(type, tag, dir, fileName, headString, className, methodName, lineNumber, msg, binary);
+        ensureWriter();
+        boolean result = true;
+        while (!mBuffer.offer(record)) {
+            if (overflow == LogOverflow.DROP_NEWEST) {
+                mDropped.incrementAndGet();
+                result = false;
+                break;
+            } else if (overflow == LogOverflow.DROP_OLDEST) {
+                if (mBuffer.poll() != null) {
+                    mDropped.incrementAndGet();
+                    mCompleted.incrementAndGet();
+                }
+            } else if (!ensureWriter()) {
+                // 写线程无法运行时不阻塞调用线程(可能是UI线程),丢弃本条
+                mDropped.incrementAndGet();
+                result = false;
+                break;
+            } else {
+                wakeWriter();
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            }
+        }
+        if (mParked) {
+            wakeWriter();
+        }
+        return result;
+    }
+
+    /**
+     * 等待当前已放入缓冲区的日志全部写入并刷盘
+     *
+     * @return 超时返回false
+     */
+    boolean flush(long timeoutMillis) {
+        long target = mBuffer.published();
+        if (mCompleted.get() >= target) {
+            return true;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (mCompleted.get() < target) {
+            if (System.nanoTime() >= deadline || !ensureWriter()) {
+                return false;
+            }
+            wakeWriter();
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * 写完缓冲区内的日志后停止写线程并关闭文件
+     * * 之后再有日志写入时会重新启动写线程
+     */
+    synchronized void shutdown(long timeoutMillis) {
+        flush(timeoutMillis);
+        Thread writer = mWriter;
+        if (writer == null) {
+            return;
+        }
+        mRunning = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(timeoutMillis);
+        } catch (InterruptedException pE) {
+            Thread.currentThread().interrupt();
+        }
+        mWriter = null;
+    }
+
+    long getWrittenCount() {
+        return mWritten.get();
+    }
+
+    long getDroppedCount() {
+        return mDropped.get();
+    }
+
+    private void wakeWriter() {
+        Thread writer = mWriter;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * 写线程未运行(未启动或异常退出)时启动
+     *
+     * @return 写线程无法启动返回false
+     */
+    private boolean ensureWriter() {
+        if (isAlive(mWriter)) {
+            return true;
+        }
+        synchronized (this) {
+            if (!isAlive(mWriter)) {
+                mRunning = true;
+                Thread writer = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            writeLoop();
+                        } finally {
+                            // 退出后允许ensureWriter重新启动;不加锁,shutdown持锁等待本线程结束
+                            if (mWriter == Thread.currentThread()) {
+                                mWriter = null;
+                            }
+                        }
+                    }
+                }, "Logger-FileAppender");
+                writer.setDaemon(true);
+                mWriter = writer;
+                try {
+                    writer.start();
+                } catch (Throwable pE) {
+                    FileLog.error("start writer thread", pE);
+                    mWriter = null;
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAlive(Thread writer) {
+        return writer != null && writer.getState() != Thread.State.TERMINATED;
+    }
+
+    /**
+     * 写线程主循环
+     */
+    private void writeLoop() {
+        // 按文件路径缓存打开的FileChannel,超出数量时关闭最久未使用的
+        Map<String, FileChannel> channels = new LinkedHashMap<String, FileChannel>(MAX_OPEN_FILES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FileChannel> eldest) {
+                if (size() > MAX_OPEN_FILES) {
+                    close(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        // 未指定文件名的日志按目录滚动写入
+        Map<String, LogFileRoller> rollers = new HashMap<>();
+        // 二进制格式的日志按目录写入内存映射分段
+        Map<String, LogBinarySink> binarySinks = new HashMap<>();
+        List<FileChannel> dirty = new ArrayList<>(MAX_OPEN_FILES);
+        List<LogBinarySink> dirtySinks = new ArrayList<>(MAX_OPEN_FILES);
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        StringBuilder sb = new StringBuilder(256);
+        try {
+            while (mRunning || !mBuffer.isEmpty()) {
+                int count = 0;
+                Record record;
+                while (count < BATCH_SIZE && (record = mBuffer.poll()) != null) {
+                    count++;
+                    boolean written;
+                    try {
+                        written = write(channels, rollers, binarySinks, dirty, dirtySinks, record, dateFormat, sb);
+                    } catch (Throwable pE) {
+                        // 单条日志出错不能让写线程退出,否则BLOCK策略下调用线程会一直等待
+                        FileLog.error("write record", pE);
+                        written = false;
+                    }
+                    if (written) {
+                        mWritten.incrementAndGet();
+                    } else {
+                        mDropped.incrementAndGet();
+                    }
+                }
+                if (count > 0) {
+                    // 整批统一刷盘后再计入完成数,保证flush返回时数据已落盘
+                    try {
+                        force(dirty);
+                        for (int i = 0, size = dirtySinks.size(); i < size; i++) {
+                            dirtySinks.get(i).force();
+                        }
+                    } catch (Throwable pE) {
+                        FileLog.error("flush files", pE);
+                    } finally {
+                        dirty.clear();
+                        dirtySinks.clear();
+                        mCompleted.addAndGet(count);
+                    }
+                } else {
+                    mParked = true;
+                    if (mRunning && mBuffer.isEmpty()) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                    mParked = false;
+                }
+            }
+        } finally {
+            Iterator<FileChannel> iterator = channels.values().iterator();
+            while (iterator.hasNext()) {
+                close(iterator.next());
+                iterator.remove();
+            }
+            for (LogFileRoller roller : rollers.values()) {
+                roller.close();
+            }
+            rollers.clear();
+            for (LogBinarySink sink : binarySinks.values()) {
+                sink.close();
+            }
+            binarySinks.clear();
+        }
+    }
+
+    /**
+     * 写入一条日志,写入的文件加入待刷盘列表
+     *
+     * @return 写入失败返回false
+     */
+    private boolean write(@NonNull Map<String, FileChannel> channels, @NonNull Map<String, LogFileRoller> rollers,
+                          @NonNull Map<String, LogBinarySink> binarySinks, @NonNull List<FileChannel> dirty,
+                          @NonNull List<LogBinarySink> dirtySinks, @NonNull Record record,
+                          @NonNull SimpleDateFormat dateFormat, @NonNull StringBuilder sb) {
+        if (record.binary) {
+            LogBinarySink sink = writeBinary(binarySinks, rollers, record);
+            if (sink == null) {
+                return false;
+            }
+            if (!dirtySinks.contains(sink)) {
+                dirtySinks.add(sink);
+            }
+            return true;
+        }
+        FileChannel channel = write(channels, rollers, record, dateFormat, sb);
+        if (channel == null) {
+            return false;
+        }
+        if (!dirty.contains(channel)) {
+            dirty.add(channel);
+        }
+        return true;
+    }
+
+    private LogBinarySink writeBinary(@NonNull Map<String, LogBinarySink> sinks, @NonNull Map<String, LogFileRoller> rollers,
+                                      @NonNull Record record) {
+        String path = record.dir.getAbsolutePath();
+        LogBinarySink sink = sinks.get(path);
+        try {
+            if (sink == null) {
+                if (!createDir(record)) {
+                    return null;
+                }
+                // 与文本分段共用同一目录的滚动器,统一索引和清理
+                LogFileRoller roller = rollers.get(path);
+                if (roller == null) {
+                    roller = new LogFileRoller(record.dir);
+                    rollers.put(path, roller);
+                }
+                sink = new LogBinarySink(record.dir, roller);
+                sinks.put(path, sink);
+            }
+            sink.write(record.time, record.type.intValue(), record.tag.gTag(), record.className,
+                    record.methodName, record.lineNumber, record.msg);
+            return sink;
+        } catch (IOException pE) {
+            FileLog.error("write binary log", pE);
+            if (sink != null) {
+                sinks.remove(path);
+                sink.close();
+            }
+            return null;
+        }
+    }
+
+    private FileChannel write(@NonNull Map<String, FileChannel> channels, @NonNull Map<String, LogFileRoller> rollers,
+                              @NonNull Record record, @NonNull SimpleDateFormat dateFormat, @NonNull StringBuilder sb) {
+        sb.setLength(0);
+        sb.append(record.headString)
+                .append("\n* AbsolutePath:").append(record.className)
+                .append("\n* Logger : ").append(dateFormat.format(new Date(record.time)))
+                .append("\n* Details:").append(record.msg).append("\n\n");
+        ByteBuffer bytes = ByteBuffer.wrap(sb.toString().getBytes(UTF_8));
+        int length = bytes.remaining();
+        boolean rolling = record.fileName == null;
+        String path = rolling ? record.dir.getAbsolutePath() : new File(record.dir, record.fileName).getAbsolutePath();
+        FileChannel channel = null;
+        try {
+            LogFileRoller roller = null;
+            if (rolling) {
+                roller = rollers.get(path);
+                if (roller == null) {
+                    if (!createDir(record)) {
+                        return null;
+                    }
+                    roller = new LogFileRoller(record.dir);
+                    rollers.put(path, roller);
+                }
+                channel = roller.channel(record.time, length);
+            } else {
+                channel = channels.get(path);
+                if (channel == null || !channel.isOpen()) {
+                    if (!createDir(record)) {
+                        return null;
+                    }
+                    channel = new FileOutputStream(new File(record.dir, record.fileName), true).getChannel();
+                    channels.put(path, channel);
+                }
+            }
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            if (roller != null) {
+                roller.written(length);
+            }
+            return channel;
+        } catch (IOException pE) {
+            FileLog.error("write log", pE);
+            if (!rolling) {
+                channels.remove(path);
+                close(channel);
+            }
+            return null;
+        }
+    }
+
+    private boolean createDir(@NonNull Record record) {
+        File dir = record.dir;
+        if (!dir.exists()) {
+            dir.mkdirs();
+            if (!dir.exists()) {
+                BaseLog.printSub(LogType.FILE, record.tag, "║ Source '" + dir.getAbsolutePath() + "' can't create");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void force(@NonNull List<FileChannel> dirty) {
+        for (int i = 0, size = dirty.size(); i < size; i++) {
+            FileChannel channel = dirty.get(i);
+            try {
+                if (channel.isOpen()) {
+                    channel.force(false);
+                }
+            } catch (IOException pE) {
+                FileLog.error("force file", pE);
+            }
+        }
+        dirty.clear();
+    }
+
+    private static void close(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException pE) {
+                FileLog.error("close file", pE);
+            }
+        }
+    }
+}
@@ -2,18 +2,11 @@ package com.acmenxd.logger;
 
 import android.support.annotation.NonNull;
 import android.text.TextUtils;
-
-import com.acmenxd.frame.utils.RandomUtils;
+import android.util.Log;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.UnsupportedEncodingException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author AcmenXD
@@ -23,86 +16,105 @@ import java.util.Date;
  * @detail 输出日志到文件
  */
 public final class FileLog {
+    // 异步写入器,首次写日志时创建
+    private static volatile FileAppender sAppender;
+    // 写文件过程中发生的异常次数
+    private static final AtomicLong sErrors = new AtomicLong(0);
 
     public static void printFile(@NonNull LogTag tag, @NonNull String headString, @NonNull String className, @NonNull String msg, @NonNull File dirFile, @NonNull String fileName) {
-        fileName = (TextUtils.isEmpty(fileName)) ? getFileName() : fileName;
+        printFile(LogType.FILE, tag, headString, className, null, 0, msg, dirFile, fileName);
+    }
+
+    static void printFile(@NonNull LogType type, @NonNull LogTag tag, @NonNull String headString, String className,
+                          String methodName, int lineNumber, @NonNull String msg, @NonNull File dirFile, String fileName) {
+        // 未指定文件名时写入滚动日志,开启二进制格式时写入二进制分段
+        fileName = (TextUtils.isEmpty(fileName)) ? null : fileName;
+        boolean binary = fileName == null && Logger.LOGFILE_BINARY;
         String str = "";
         BaseLog.printLine(LogType.FILE, tag, true);
         BaseLog.printSub(LogType.FILE, tag, "║ " + headString);
-        if (save(tag, dirFile, fileName, headString, className, msg)) {
-            str = "\n║ save log success ! location is >> " + dirFile.getAbsolutePath() + "/" + fileName;
+        if (dirFile == null) {
+            str = "\n║ save log fails ! Source must not be null";
+        } else if (getAppender().append(type, tag, dirFile, fileName, headString, className, methodName, lineNumber, msg, binary, Logger.LOGFILE_OVERFLOW)) {
+            str = "\n║ save log queued ! location is >> " + dirFile.getAbsolutePath() + "/" + (fileName != null ? fileName : LogFileRoller.PREFIX + "*" + (binary ? LogBinaryDecoder.SUFFIX : ""));
         } else {
-            str = "\n║ save log fails !";
+            str = "\n║ save log fails ! log buffer is full";
         }
         BaseLog.printSub(LogType.FILE, tag, str);
         BaseLog.printLine(LogType.FILE, tag, false);
     }
 
-    private static boolean save(@NonNull LogTag tag, @NonNull File dir, @NonNull String fileName, @NonNull String headString, @NonNull String className, @NonNull String msg) {
-        String str = null;
-        if (dir == null) {
-            str = "Source must not be null";
-        } else if (!dir.exists()) {
-            dir.mkdirs();
-            if (!dir.exists()) {
-                str = "Source '" + dir.getAbsolutePath() + "' can't create";
-            }
-        }
-        if (!TextUtils.isEmpty(str)) {
-            BaseLog.printSub(LogType.FILE, tag, "║ " + str);
-            return false;
-        }
-        File file = new File(dir, fileName);
-        if (!file.exists()) {
-            try {
-                file.createNewFile();
-            } catch (IOException pE) {
-                pE.printStackTrace();
-            }
+    /**
+     * 等待已提交的日志全部写入文件
+     *
+     * @param timeoutMillis 最长等待时间(毫秒)
+     * @return 超时返回false
+     */
+    public static boolean flush(long timeoutMillis) {
+        FileAppender appender = sAppender;
+        return appender == null || appender.flush(timeoutMillis);
+    }
+
+    /**
+     * 写完已提交的日志,停止写线程并关闭文件
+     *
+     * @param timeoutMillis 最长等待时间(毫秒)
+     */
+    public static void shutdown(long timeoutMillis) {
+        FileAppender appender = sAppender;
+        if (appender != null) {
+            appender.shutdown(timeoutMillis);
         }
-        OutputStream outputStream = null;
-        OutputStreamWriter outputStreamWriter = null;
-        String dateStr = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(System.currentTimeMillis()));
-        try {
-            outputStream = new FileOutputStream(file, true);
-            outputStreamWriter = new OutputStreamWriter(outputStream, "UTF-8");
-            outputStreamWriter.write(headString);
-            outputStreamWriter.write("\n* AbsolutePath:" + className);
-            outputStreamWriter.write("\n* Logger : " + dateStr);
-            outputStreamWriter.write("\n* Details:" + msg + "\n\n");
-            outputStreamWriter.flush();
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-            return false;
-        } catch (UnsupportedEncodingException e) {
-            e.printStackTrace();
-            return false;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
-        } finally {
-            try {
-                if (outputStreamWriter != null) {
-                    outputStreamWriter.close();
-                }
-                if (outputStream != null) {
-                    outputStream.close();
+    }
+
+    /**
+     * 已写入文件的日志条数
+     */
+    public static long getWrittenCount() {
+        FileAppender appender = sAppender;
+        return appender == null ? 0 : appender.getWrittenCount();
+    }
+
+    /**
+     * 已丢弃的日志条数(缓冲区溢出或写入失败)
+     */
+    public static long getDroppedCount() {
+        FileAppender appender = sAppender;
+        return appender == null ? 0 : appender.getDroppedCount();
+    }
+
+    /**
+     * 写文件过程中发生的异常次数
+     */
+    public static long getErrorCount() {
+        return sErrors.get();
+    }
+
+    /**
+     * 记录写文件异常 - 只输出到控制台,不能再写入文件,否则会递归
+     */
+    static void error(@NonNull String action, @NonNull Throwable e) {
+        sErrors.incrementAndGet();
+        Log.w("Logger", "FileLog " + action + " failed", e);
+    }
+
+    /**
+     * 获取目录下的滚动日志文件,从新到旧排列
+     * * 读取目录下的索引文件,不遍历目录
+     */
+    public static List<File> getLogFiles(@NonNull File dirFile) {
+        return LogFileRoller.listSegments(dirFile);
+    }
+
+    private static FileAppender getAppender() {
+        if (sAppender == null) {
+            synchronized (FileLog.class) {
+                if (sAppender == null) {
+                    sAppender = new FileAppender(Logger.LOGFILE_BUFFER_SIZE);
                 }
-            } catch (IOException pE) {
-                pE.printStackTrace();
             }
         }
-        return true;
-    }
-
-    private static String getFileName() {
-        StringBuilder stringBuilder = new StringBuilder("Log_");
-        stringBuilder.append(RandomUtils.getRandomByTime());
-        stringBuilder.append(".txt");
-        return stringBuilder.toString();
+        return sAppender;
     }
 
-}
+}
\ No newline at end of file
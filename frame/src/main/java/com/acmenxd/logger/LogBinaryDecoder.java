@@ -0,0 +1,326 @@
+package com.acmenxd.logger;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/14 15:30
+ * @detail 二进制日志分段解码器
+ * * 纯Java实现,不依赖Android,可在开发机上直接运行:
+ * * java com.acmenxd.logger.LogBinaryDecoder [-json] Log_xxx.alog ...
+ * <p>
+ * 分段格式:
+ * * 头部: "ALOG" + 版本(1字节) + 起始时间(8字节,毫秒)
+ * * 字典记录: 0x01 + id(varint) + 长度(varint) + UTF-8字节
+ * * 日志记录: 0x02 + 时间差(varint,相对上一条) + 等级(1字节) + tagId + classId + methodId + 行号 + 长度 + UTF-8字节 (均为varint)
+ * * 0x00 表示分段结束(映射文件预分配的剩余空间)
+ */
+public final class LogBinaryDecoder {
+    static final byte[] MAGIC = {'A', 'L', 'O', 'G'};
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = MAGIC.length + 1 + 8;
+    static final byte RECORD_END = 0x00;
+    static final byte RECORD_DICT = 0x01;
+    static final byte RECORD_LOG = 0x02;
+    static final String SUFFIX = ".alog";
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * 解码后的日志记录
+     */
+    public static final class Entry {
+        public long time;
+        public int level;
+        public String tag;
+        public String className;
+        public String methodName;
+        public int lineNumber;
+        public String msg;
+    }
+
+    public interface Callback {
+        void onEntry(Entry entry) throws IOException;
+    }
+
+    /**
+     * 解码一个分段
+     */
+    public static void decode(File file, Callback callback) throws IOException {
+        byte[] bytes = readFully(file);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length < HEADER_SIZE) {
+            throw new IOException("Not a binary log segment: " + file);
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get() != MAGIC[i]) {
+                throw new IOException("Not a binary log segment: " + file);
+            }
+        }
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary log version " + version + ": " + file);
+        }
+        long time = buffer.getLong();
+        try {
+            decodeRecords(buffer, time, callback);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException pE) {
+            // 最后一条记录不完整(写入时进程被终止),忽略
+        }
+    }
+
+    private static void decodeRecords(ByteBuffer buffer, long time, Callback callback) throws IOException {
+        List<String> dict = new ArrayList<>();
+        Entry entry = new Entry();
+        while (buffer.hasRemaining()) {
+            byte type = buffer.get();
+            if (type == RECORD_DICT) {
+                int id = readVarint(buffer);
+                String value = readString(buffer);
+                while (dict.size() <= id) {
+                    dict.add(null);
+                }
+                dict.set(id, value);
+            } else if (type == RECORD_LOG) {
+                time += readVarLong(buffer);
+                entry.time = time;
+                entry.level = buffer.get();
+                entry.tag = lookup(dict, readVarint(buffer));
+                entry.className = lookup(dict, readVarint(buffer));
+                entry.methodName = lookup(dict, readVarint(buffer));
+                entry.lineNumber = readVarint(buffer);
+                entry.msg = readString(buffer);
+                callback.onEntry(entry);
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 扫描分段中的完整记录,用于重启后续写未写满的分段
+     *
+     * @param dict 填入分段内已有的字典
+     * @param time time[0]填入最后一条完整记录的时间
+     * @return 最后一条完整记录的结束位置,不是有效分段时返回-1
+     */
+    static int scan(byte[] bytes, List<String> dict, long[] time) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length < HEADER_SIZE) {
+            return -1;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get() != MAGIC[i]) {
+                return -1;
+            }
+        }
+        if (buffer.get() != VERSION) {
+            return -1;
+        }
+        long last = buffer.getLong();
+        int end = buffer.position();
+        try {
+            while (buffer.hasRemaining()) {
+                byte type = buffer.get();
+                if (type == RECORD_DICT) {
+                    int id = readVarint(buffer);
+                    String value = readString(buffer);
+                    while (dict.size() <= id) {
+                        dict.add(null);
+                    }
+                    dict.set(id, value);
+                } else if (type == RECORD_LOG) {
+                    long recordTime = last + readVarLong(buffer);
+                    buffer.get();
+                    for (int i = 0; i < 4; i++) {
+                        readVarint(buffer);
+                    }
+                    int length = readVarint(buffer);
+                    if (length < 0 || length > buffer.remaining()) {
+                        break;
+                    }
+                    buffer.position(buffer.position() + length);
+                    last = recordTime;
+                } else {
+                    break;
+                }
+                end = buffer.position();
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException pE) {
+            // 最后一条记录不完整,从它的起始位置续写
+        }
+        time[0] = last;
+        return end;
+    }
+
+    /**
+     * 解码为文本或JSON行,写入writer
+     */
+    public static void decode(File file, final Writer writer, final boolean json) throws IOException {
+        final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        final StringBuilder sb = new StringBuilder(256);
+        decode(file, new Callback() {
+            @Override
+            public void onEntry(Entry entry) throws IOException {
+                sb.setLength(0);
+                if (json) {
+                    sb.append("{\"time\":").append(entry.time)
+                            .append(",\"level\":").append(entry.level)
+                            .append(",\"tag\":");
+                    appendJson(sb, entry.tag);
+                    sb.append(",\"class\":");
+                    appendJson(sb, entry.className);
+                    sb.append(",\"method\":");
+                    appendJson(sb, entry.methodName);
+                    sb.append(",\"line\":").append(entry.lineNumber).append(",\"msg\":");
+                    appendJson(sb, entry.msg);
+                    sb.append("}\n");
+                } else {
+                    sb.append(dateFormat.format(new Date(entry.time))).append(' ')
+                            .append(levelName(entry.level)).append('/').append(entry.tag).append(' ')
+                            .append(entry.className).append('.').append(entry.methodName)
+                            .append('(').append(entry.lineNumber).append("):")
+                            .append(entry.msg).append("\n\n");
+                }
+                writer.write(sb.toString());
+            }
+        });
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean json = false;
+        List<File> files = new ArrayList<>();
+        for (String arg : args) {
+            if ("-json".equals(arg)) {
+                json = true;
+            } else {
+                files.add(new File(arg));
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: java " + LogBinaryDecoder.class.getName() + " [-json] <segment" + SUFFIX + ">...");
+            System.exit(1);
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, UTF_8));
+        for (File file : files) {
+            decode(file, writer, json);
+        }
+        writer.flush();
+    }
+
+    static String levelName(int level) {
+        switch (level) {
+            case 2:
+                return "V";
+            case 3:
+                return "D";
+            case 4:
+                return "I";
+            case 5:
+                return "W";
+            case 6:
+                return "E";
+            case 7:
+                return "A";
+            case 8:
+                return "JSON";
+            case 9:
+                return "XML";
+            case 10:
+                return "FILE";
+        }
+        return String.valueOf(level);
+    }
+
+    private static String lookup(List<String> dict, int id) {
+        return id < dict.size() ? dict.get(id) : null;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = readVarint(buffer);
+        String value = new String(buffer.array(), buffer.position(), length, UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    static int readVarint(ByteBuffer buffer) {
+        return (int) readVarLong(buffer);
+    }
+
+    static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static void appendJson(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                    break;
+            }
+        }
+        sb.append('"');
+    }
+
+    static byte[] readFully(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] bytes = new byte[(int) file.length()];
+            int offset = 0;
+            int len;
+            while (offset < bytes.length && (len = in.read(bytes, offset, bytes.length - offset)) != -1) {
+                offset += len;
+            }
+            return bytes;
+        } finally {
+            in.close();
+        }
+    }
+}
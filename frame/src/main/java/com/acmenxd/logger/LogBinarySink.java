@@ -0,0 +1,255 @@
+package com.acmenxd.logger;
+
+import android.support.annotation.NonNull;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/14 15:30
+ * @detail 二进制日志写入
+ * * 通过内存映射的固定大小分段写入,格式见LogBinaryDecoder
+ * * tag/类名/方法名在每个分段内只写一次,之后用字典id引用
+ * * 分段登记在LogFileRoller的索引中,由它按文件数和总大小清理;启动时续写上次未写满的分段
+ * * 只在FileAppender写线程中调用
+ */
+final class LogBinarySink {
+    private final File mDir;
+    private final LogFileRoller mRoller;
+    // 当前分段的字典
+    private final Map<String, Integer> mDict = new HashMap<>();
+    private final SimpleDateFormat mNameFormat = new SimpleDateFormat("yyyyMMddHHmmss");
+    private MappedByteBuffer mMapped;
+    private long mLastTime;
+    private boolean mDirty;
+    // 是否已打开过分段,只有首次打开时才续写索引中的最新分段
+    private boolean mOpened;
+    // 分段序号,保证同一秒内切换的分段不重名
+    private int mSequence;
+    // 记录编码缓冲,整条写入映射区,避免写入半条记录
+    private ByteBuffer mScratch = ByteBuffer.allocate(4 * 1024);
+
+    LogBinarySink(@NonNull File dir) {
+        this(dir, new LogFileRoller(dir));
+    }
+
+    /**
+     * @param roller 同一目录的滚动器,文本分段和二进制分段共用一个索引
+     */
+    LogBinarySink(@NonNull File dir, @NonNull LogFileRoller roller) {
+        mDir = dir;
+        mRoller = roller;
+        File[] files = dir.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(LogFileRoller.PREFIX) && name.endsWith(LogBinaryDecoder.SUFFIX);
+            }
+        });
+        if (files != null && files.length > 0) {
+            Arrays.sort(files, Collections.reverseOrder());
+            mRoller.adopt(Arrays.asList(files));
+        }
+    }
+
+    /**
+     * 写入一条记录
+     */
+    void write(long time, int level, @NonNull String tag, String className, String methodName, int lineNumber, @NonNull String msg) throws IOException {
+        byte[] msgBytes = msg.getBytes(LogBinaryDecoder.UTF_8);
+        if (mMapped == null) {
+            open(time);
+        }
+        encode(time, level, tag, className, methodName, lineNumber, msgBytes, msgBytes.length);
+        if (mScratch.position() > mMapped.remaining()) {
+            // 当前分段剩余空间不足,切换分段后字典重新开始
+            open(time);
+            encode(time, level, tag, className, methodName, lineNumber, msgBytes, msgBytes.length);
+            if (mScratch.position() > mMapped.remaining()) {
+                // 单条记录超过分段大小,截断消息
+                int over = mScratch.position() - mMapped.remaining();
+                mDict.clear();
+                encode(time, level, tag, className, methodName, lineNumber, msgBytes, Math.max(0, msgBytes.length - over - 8));
+            }
+        }
+        mScratch.flip();
+        mMapped.put(mScratch);
+        mLastTime = time;
+        mDirty = true;
+    }
+
+    /**
+     * 刷盘
+     */
+    void force() {
+        if (mMapped != null && mDirty) {
+            mMapped.force();
+            mDirty = false;
+        }
+    }
+
+    void close() {
+        force();
+        mMapped = null;
+        mDict.clear();
+    }
+
+    private void open(long time) throws IOException {
+        force();
+        mMapped = null;
+        mDict.clear();
+        if (!mOpened) {
+            mOpened = true;
+            if (resume()) {
+                return;
+            }
+        }
+        long size = Math.max(Logger.LOGFILE_BINARY_SEGMENT_SIZE, 4 * 1024);
+        if (mDir.getUsableSpace() < size) {
+            throw new IOException("No space for binary log segment in " + mDir);
+        }
+        File file;
+        do {
+            file = new File(mDir, LogFileRoller.PREFIX + mNameFormat.format(new Date(time)) + "_" + (mSequence++) + LogBinaryDecoder.SUFFIX);
+        } while (file.exists());
+        mMapped = map(file, 0, size);
+        mMapped.put(LogBinaryDecoder.MAGIC);
+        mMapped.put(LogBinaryDecoder.VERSION);
+        mMapped.putLong(time);
+        mLastTime = time;
+        mRoller.added(file, size);
+    }
+
+    /**
+     * 续写索引中最新的二进制分段,分段已写满或无效时返回false
+     */
+    private boolean resume() {
+        File file = mRoller.resumeBinary();
+        if (file == null || !file.exists()) {
+            return false;
+        }
+        try {
+            byte[] bytes = LogBinaryDecoder.readFully(file);
+            List<String> dict = new ArrayList<>();
+            long[] time = new long[1];
+            int end = LogBinaryDecoder.scan(bytes, dict, time);
+            if (end < 0 || end >= bytes.length) {
+                return false;
+            }
+            mMapped = map(file, end, bytes.length);
+            mMapped.position(end);
+            for (int i = 0, size = dict.size(); i < size; i++) {
+                if (dict.get(i) != null) {
+                    mDict.put(dict.get(i), i);
+                }
+            }
+            mLastTime = time[0];
+            return true;
+        } catch (IOException pE) {
+            FileLog.error("map binary log", pE);
+            mMapped = null;
+            mDict.clear();
+            return false;
+        }
+    }
+
+    /**
+     * 将[from, size)写满0后映射整个文件
+     * * 不用setLength: 它只产生稀疏文件,磁盘满时写映射区会触发SIGBUS使进程崩溃;
+     * * 预先写入真实字节,空间不足时在这里抛出IOException
+     */
+    private static MappedByteBuffer map(@NonNull File file, long from, long size) throws IOException {
+        boolean created = !file.exists();
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        boolean success = false;
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer zeros = ByteBuffer.allocate((int) Math.min(8 * 1024, Math.max(size - from, 1)));
+            long position = from;
+            while (position < size) {
+                zeros.clear();
+                zeros.limit((int) Math.min(zeros.capacity(), size - position));
+                position += channel.write(zeros, position);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            success = true;
+            return mapped;
+        } finally {
+            // 映射建立后即可关闭文件,映射区仍然有效
+            raf.close();
+            if (!success && created) {
+                file.delete();
+            }
+        }
+    }
+
+    private void encode(long time, int level, String tag, String className, String methodName, int lineNumber, byte[] msg, int msgLength) {
+        mScratch.clear();
+        int tagId = dictId(tag);
+        int classId = dictId(className);
+        int methodId = dictId(methodName);
+        ensureScratch(1 + 10 + 1 + 5 * 5 + msgLength);
+        mScratch.put(LogBinaryDecoder.RECORD_LOG);
+        putVarLong(Math.max(0, time - mLastTime));
+        mScratch.put((byte) level);
+        putVarLong(tagId);
+        putVarLong(classId);
+        putVarLong(methodId);
+        putVarLong(Math.max(0, lineNumber));
+        putVarLong(msgLength);
+        mScratch.put(msg, 0, msgLength);
+    }
+
+    /**
+     * 获取字典id,首次出现时先写入字典记录
+     */
+    private int dictId(String value) {
+        if (value == null) {
+            value = "";
+        }
+        Integer id = mDict.get(value);
+        if (id == null) {
+            id = mDict.size();
+            mDict.put(value, id);
+            byte[] bytes = value.getBytes(LogBinaryDecoder.UTF_8);
+            ensureScratch(1 + 5 + 5 + bytes.length);
+            mScratch.put(LogBinaryDecoder.RECORD_DICT);
+            putVarLong(id);
+            putVarLong(bytes.length);
+            mScratch.put(bytes);
+        }
+        return id;
+    }
+
+    private void ensureScratch(int length) {
+        if (mScratch.remaining() < length) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(mScratch.capacity() * 2, mScratch.position() + length));
+            mScratch.flip();
+            bigger.put(mScratch);
+            mScratch = bigger;
+        }
+    }
+
+    private void putVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            mScratch.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        mScratch.put((byte) value);
+    }
+}
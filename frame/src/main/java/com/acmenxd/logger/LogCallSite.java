@@ -0,0 +1,86 @@
+package com.acmenxd.logger;
+
+import android.support.annotation.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/11 14:05
+ * @detail 日志调用位置
+ * * 按调用位置缓存解析结果,同一行代码重复输出日志时不再重新拼接头部信息
+ * * 解析需要遍历调用栈,只在输出格式需要调用位置(LOG_SHOW_LOCATION开启/文件日志)时调用
+ */
+final class LogCallSite {
+    // 缓存的最大调用位置数,超出后清空重建
+    private static final int MAX_CACHE_SIZE = 1024;
+    private static final Map<StackTraceElement, LogCallSite> sCache = new ConcurrentHashMap<>();
+    // Logger相关类所在包,解析调用位置时跳过
+    private static final String LOGGER_PACKAGE = LogCallSite.class.getName().substring(0, LogCallSite.class.getName().lastIndexOf('.') + 1);
+    // 解析调用栈的次数
+    private static final AtomicLong sResolveCount = new AtomicLong(0);
+
+    final String fileName;
+    final String className;
+    final String methodName;
+    final int lineNumber;
+    // * [ Logger -=(File.java:10)=- Method ]
+    final String headStr;
+    // 默认Tag: 包名.文件名,同一文件的调用位置共用同一个实例
+    final LogTag defaultTag;
+    private final String pkgName;
+
+    private LogCallSite(@NonNull StackTraceElement element) {
+        fileName = element.getFileName();
+        className = element.getClassName();
+        methodName = element.getMethodName();
+        lineNumber = element.getLineNumber();
+        String methodNameShort = methodName.substring(0, 1).toUpperCase() + methodName.substring(1);
+        headStr = new StringBuilder().append("* [ Logger -=(").append(fileName).append(":").append(lineNumber)
+                .append(")=- ").append(methodNameShort).append(" ]").toString();
+        pkgName = Logger.APP_PKG_NAME;
+        defaultTag = LogTag.mk(pkgName + "." + fileName);
+    }
+
+    /**
+     * 获取Logger外部第一个调用者的位置
+     */
+    static LogCallSite resolve() {
+        sResolveCount.incrementAndGet();
+        StackTraceElement[] stackTrace = new Throwable().getStackTrace();
+        StackTraceElement element = null;
+        for (int i = 0; i < stackTrace.length; i++) {
+            if (!isLoggerFrame(stackTrace[i].getClassName())) {
+                element = stackTrace[i];
+                break;
+            }
+        }
+        if (element == null) {
+            element = stackTrace[stackTrace.length - 1];
+        }
+        LogCallSite callSite = sCache.get(element);
+        if (callSite == null || !callSite.pkgName.equals(Logger.APP_PKG_NAME)) {
+            if (sCache.size() >= MAX_CACHE_SIZE) {
+                sCache.clear();
+            }
+            callSite = new LogCallSite(element);
+            sCache.put(element, callSite);
+        }
+        return callSite;
+    }
+
+    /**
+     * 解析调用栈的次数
+     */
+    static long getResolveCount() {
+        return sResolveCount.get();
+    }
+
+    private static boolean isLoggerFrame(@NonNull String className) {
+        return className.startsWith(LOGGER_PACKAGE) && className.indexOf('.', LOGGER_PACKAGE.length()) < 0;
+    }
+}
@@ -0,0 +1,37 @@
+package com.acmenxd.logger;
+
+import android.support.annotation.NonNull;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/2 14:20
+ * @detail 控制台输出端 - 默认注册的同步输出端(Logger.CONSOLE_SINK)
+ * * 在日志调用线程中直接输出,保证logcat中的顺序;文件日志(LogType.FILE)由LogFileSink输出
+ */
+public final class LogConsoleSink implements LogSink {
+
+    LogConsoleSink() {
+    }
+
+    @Override
+    public void onLog(@NonNull LogRecord record) {
+        switch (record.type) {
+            case V:
+            case D:
+            case I:
+            case W:
+            case E:
+            case A:
+                BaseLog.printLog(record.type, record.tag, record.head + record.msg);
+                break;
+            case JSON:
+                JsonLog.printJson(record.tag, record.head, record.msg);
+                break;
+            case XML:
+                XmlLog.printXml(record.tag, record.head, record.msg);
+                break;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.acmenxd.logger;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/18 10:40
+ * @detail 日志分发器
+ * * 把已格式化的日志分发给所有注册的LogSink
+ * * 同步输出端(默认为控制台和文件)在调用线程中依次执行
+ * * 异步输出端有独立的环形缓冲区和分发线程,调用线程只负责入队,队列满时丢弃最旧的日志
+ */
+final class LogDispatcher {
+    // 分发线程空闲时的最长休眠时间
+    private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long FLUSH_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    // 同步输出端,在调用线程中按注册顺序执行
+    private static final List<LogSink> sDirect = new CopyOnWriteArrayList<>(Arrays.asList(Logger.CONSOLE_SINK, Logger.FILE_SINK));
+    private static final List<SinkQueue> sQueues = new CopyOnWriteArrayList<>();
+    private static final AtomicLong sDropped = new AtomicLong(0);
+
+    private LogDispatcher() {
+    }
+
+    /**
+     * 是否有注册的输出端 - 没有时无需创建LogRecord
+     */
+    static boolean hasSinks() {
+        return !sDirect.isEmpty() || !sQueues.isEmpty();
+    }
+
+    static synchronized void addDirect(@NonNull LogSink sink) {
+        if (!sDirect.contains(sink)) {
+            sDirect.add(sink);
+        }
+    }
+
+    static synchronized void add(@NonNull LogSink sink, int capacity) {
+        for (SinkQueue queue : sQueues) {
+            if (queue.sink == sink) {
+                return;
+            }
+        }
+        SinkQueue queue = new SinkQueue(sink, capacity);
+        sQueues.add(queue);
+        queue.start();
+    }
+
+    static synchronized void remove(@NonNull LogSink sink) {
+        if (sDirect.remove(sink)) {
+            return;
+        }
+        for (SinkQueue queue : sQueues) {
+            if (queue.sink == sink) {
+                sQueues.remove(queue);
+                queue.stop();
+                return;
+            }
+        }
+    }
+
+    static void dispatch(@NonNull LogRecord record) {
+        for (LogSink sink : sDirect) {
+            try {
+                sink.onLog(record);
+            } catch (Throwable pE) {
+                // 输出端异常不影响其他输出端和调用线程
+                sDropped.incrementAndGet();
+            }
+        }
+        for (SinkQueue queue : sQueues) {
+            queue.offer(record);
+        }
+    }
+
+    /**
+     * 等待已分发的日志全部交给各异步输出端处理 - 同步输出端在分发时已处理完成
+     *
+     * @return 超时返回false
+     */
+    static boolean flush(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        boolean result = true;
+        for (SinkQueue queue : sQueues) {
+            result &= queue.awaitCompleted(deadline);
+        }
+        return result;
+    }
+
+    static long getDroppedCount() {
+        return sDropped.get();
+    }
+
+    /**
+     * 单个输出端的队列和分发线程
+     */
+    private static final class SinkQueue implements Runnable {
+        final LogSink sink;
+        private final LogRingBuffer<LogRecord> mBuffer;
+        // 已从队列取出并处理完成的条数
+        private final AtomicLong mCompleted = new AtomicLong(0);
+        private final Thread mThread;
+        private volatile boolean mRunning = true;
+        private volatile boolean mParked;
+
+        SinkQueue(@NonNull LogSink sink, int capacity) {
+            this.sink = sink;
+            mBuffer = new LogRingBuffer<>(capacity);
+            mThread = new Thread(this, "Logger-Sink-" + sink.getClass().getSimpleName());
+            mThread.setDaemon(true);
+        }
+
+        void start() {
+            mThread.start();
+        }
+
+        void stop() {
+            mRunning = false;
+            LockSupport.unpark(mThread);
+        }
+
+        void offer(@NonNull LogRecord record) {
+            while (!mBuffer.offer(record)) {
+                if (mBuffer.poll() != null) {
+                    sDropped.incrementAndGet();
+                    mCompleted.incrementAndGet();
+                }
+            }
+            if (mParked) {
+                LockSupport.unpark(mThread);
+            }
+        }
+
+        boolean awaitCompleted(long deadline) {
+            long target = mBuffer.published();
+            while (mCompleted.get() < target) {
+                if (!mThread.isAlive() || System.nanoTime() >= deadline) {
+                    return false;
+                }
+                LockSupport.unpark(mThread);
+                LockSupport.parkNanos(FLUSH_PARK_NANOS);
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            while (mRunning) {
+                LogRecord record = mBuffer.poll();
+                if (record == null) {
+                    mParked = true;
+                    if (mBuffer.isEmpty() && mRunning) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                    mParked = false;
+                    continue;
+                }
+                try {
+                    sink.onLog(record);
+                } catch (Throwable pE) {
+                    // 输出端异常不影响其他日志
+                    sDropped.incrementAndGet();
+                }
+                mCompleted.incrementAndGet();
+            }
+        }
+    }
+}
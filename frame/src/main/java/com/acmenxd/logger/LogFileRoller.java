@@ -0,0 +1,404 @@
+package com.acmenxd.logger;
+
+import android.support.annotation.NonNull;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/12 16:40
+ * @detail 滚动日志文件
+ * * 按大小和/或按天切换日志分段: Log_yyyyMMdd_序号.txt
+ * * 切换后的分段在后台压缩为.gz,并按文件数和总大小清理最旧的分段
+ * * 目录下的索引文件按从新到旧记录所有分段,查找分段时无需遍历目录
+ * * 二进制分段(LogBinarySink)也登记在同一索引中,与文本分段一起按文件数和总大小清理
+ * * 只在FileAppender写线程中调用(压缩线程只修改索引,与写线程同步)
+ */
+final class LogFileRoller {
+    static final String PREFIX = "Log_";
+    private static final String SUFFIX = ".txt";
+    private static final String GZIP_SUFFIX = ".gz";
+    // 索引文件,每行: 文件名\t大小,第一行为当前分段
+    static final String INDEX_FILE = "log_index";
+
+    // 压缩和清理线程,所有目录共用
+    private static final ExecutorService sCompressor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(@NonNull Runnable r) {
+            Thread thread = new Thread(r, "Logger-FileCompressor");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final File mDir;
+    // 从新到旧排列的分段
+    private final List<Segment> mSegments = new ArrayList<>();
+    // 当前写入的文本分段和二进制分段,不压缩也不清理
+    private Segment mText;
+    private Segment mBinary;
+    private FileChannel mChannel;
+    private long mSize;
+    // 当前分段所属日期的结束时间
+    private long mDayEnd;
+    // 是否已打开过分段,只有首次打开时才续写索引中的当前分段
+    private boolean mOpened;
+    private final SimpleDateFormat mDayFormat = new SimpleDateFormat("yyyyMMdd");
+
+    private static final class Segment {
+        String name;
+        long size;
+
+        Segment(String name, long size) {
+            this.name = name;
+            this.size = size;
+        }
+    }
+
+    LogFileRoller(@NonNull File dir) {
+        mDir = dir;
+        readIndex();
+    }
+
+    /**
+     * 获取可写入length字节的当前分段,需要时先切换分段
+     */
+    synchronized FileChannel channel(long time, int length) throws IOException {
+        if (mChannel != null && needRoll(time, length)) {
+            roll();
+        }
+        if (mChannel == null) {
+            open(time);
+        }
+        return mChannel;
+    }
+
+    /**
+     * 记录已写入的字节数
+     */
+    synchronized void written(int length) {
+        mSize += length;
+        if (mText != null) {
+            mText.size = mSize;
+        }
+    }
+
+    synchronized void close() {
+        if (mChannel != null) {
+            writeIndex();
+            closeQuietly(mChannel);
+            mChannel = null;
+        }
+    }
+
+    /**
+     * 续写最新的二进制分段,将其作为当前二进制分段,没有二进制分段时返回null
+     */
+    synchronized File resumeBinary() {
+        Segment segment = newest(LogBinaryDecoder.SUFFIX);
+        if (segment == null) {
+            return null;
+        }
+        mBinary = segment;
+        return new File(mDir, segment.name);
+    }
+
+    /**
+     * 登记由LogBinarySink创建的新分段作为当前二进制分段,并清理旧分段
+     */
+    synchronized void added(@NonNull File file, long size) {
+        mBinary = new Segment(file.getName(), size);
+        mSegments.add(0, mBinary);
+        trim();
+        writeIndex();
+    }
+
+    /**
+     * 登记索引中没有的已有分段(旧版本写入时未登记),作为最旧的分段参与清理
+     *
+     * @param files 从新到旧排列
+     */
+    synchronized void adopt(@NonNull List<File> files) {
+        boolean changed = false;
+        for (int i = 0, size = files.size(); i < size; i++) {
+            File file = files.get(i);
+            if (indexOf(file.getName()) < 0) {
+                mSegments.add(new Segment(file.getName(), file.length()));
+                changed = true;
+            }
+        }
+        if (changed) {
+            trim();
+            writeIndex();
+        }
+    }
+
+    /**
+     * 指定后缀的最新分段
+     */
+    private Segment newest(@NonNull String suffix) {
+        for (int i = 0, size = mSegments.size(); i < size; i++) {
+            if (mSegments.get(i).name.endsWith(suffix)) {
+                return mSegments.get(i);
+            }
+        }
+        return null;
+    }
+
+    private int indexOf(@NonNull String name) {
+        for (int i = 0, size = mSegments.size(); i < size; i++) {
+            if (mSegments.get(i).name.equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean needRoll(long time, int length) {
+        if (Logger.LOGFILE_ROLL_DAILY && time >= mDayEnd) {
+            return true;
+        }
+        return Logger.LOGFILE_MAX_SIZE > 0 && mSize > 0 && mSize + length > Logger.LOGFILE_MAX_SIZE;
+    }
+
+    /**
+     * 关闭当前分段,后台压缩并清理旧分段
+     */
+    private void roll() throws IOException {
+        mChannel.force(false);
+        closeQuietly(mChannel);
+        mChannel = null;
+        final Segment rolled = mText;
+        mText = null;
+        if (rolled != null && Logger.LOGFILE_COMPRESS) {
+            sCompressor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    compress(rolled);
+                }
+            });
+        }
+    }
+
+    /**
+     * 打开当天的新分段,索引中最新的文本分段属于当天且未满时继续写入
+     */
+    private void open(long time) throws IOException {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        String day = mDayFormat.format(new Date(time));
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        mDayEnd = calendar.getTimeInMillis();
+
+        // 最新的文本分段(含已压缩的),二进制分段不参与续写和序号计算
+        Segment current = null;
+        for (int i = 0, size = mSegments.size(); i < size && current == null; i++) {
+            if (mSegments.get(i).name.contains(SUFFIX)) {
+                current = mSegments.get(i);
+            }
+        }
+        int sequence = 0;
+        if (current != null && current.name.startsWith(PREFIX + day + "_")) {
+            sequence = parseSequence(current.name);
+            File file = new File(mDir, current.name);
+            boolean full = Logger.LOGFILE_MAX_SIZE > 0 && file.length() >= Logger.LOGFILE_MAX_SIZE;
+            if (!mOpened && current.name.endsWith(SUFFIX) && file.exists() && !full) {
+                mOpened = true;
+                mChannel = new FileOutputStream(file, true).getChannel();
+                mSize = file.length();
+                current.size = mSize;
+                mText = current;
+                return;
+            }
+            sequence++;
+        }
+        if (!mOpened && current != null && current.name.endsWith(SUFFIX) && Logger.LOGFILE_COMPRESS) {
+            // 上次运行留下的未压缩分段
+            final Segment previous = current;
+            sCompressor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    compress(previous);
+                }
+            });
+        }
+        mOpened = true;
+        String name = PREFIX + day + "_" + sequence + SUFFIX;
+        mChannel = new FileOutputStream(new File(mDir, name), true).getChannel();
+        mSize = 0;
+        mText = new Segment(name, 0);
+        mSegments.add(0, mText);
+        trim();
+        writeIndex();
+    }
+
+    /**
+     * 压缩分段 - 压缩线程中执行
+     */
+    private void compress(@NonNull Segment segment) {
+        File source = new File(mDir, segment.name);
+        File target = new File(mDir, segment.name + GZIP_SUFFIX);
+        InputStream in = null;
+        OutputStream out = null;
+        boolean success = false;
+        try {
+            in = new FileInputStream(source);
+            out = new GZIPOutputStream(new FileOutputStream(target));
+            byte[] buffer = new byte[8 * 1024];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                out.write(buffer, 0, len);
+            }
+            out.close();
+            out = null;
+            success = true;
+        } catch (IOException pE) {
+            FileLog.error("compress log", pE);
+        } finally {
+            closeQuietly(in);
+            closeQuietly(out);
+        }
+        synchronized (this) {
+            if (!success || !mSegments.contains(segment) || segment == mText || segment == mBinary) {
+                // 压缩失败、分段已被清理或仍在写入
+                target.delete();
+                return;
+            }
+            source.delete();
+            segment.name = target.getName();
+            segment.size = target.length();
+            trim();
+            writeIndex();
+        }
+    }
+
+    /**
+     * 按文件数和总大小删除最旧的分段,最新分段和当前写入的文本/二进制分段不删除
+     */
+    private void trim() {
+        long total = 0;
+        for (int i = 0, size = mSegments.size(); i < size; i++) {
+            total += mSegments.get(i).size;
+        }
+        for (int i = mSegments.size() - 1; i > 0; i--) {
+            boolean overCount = Logger.LOGFILE_MAX_COUNT > 0 && mSegments.size() > Logger.LOGFILE_MAX_COUNT;
+            boolean overSize = Logger.LOGFILE_MAX_TOTAL_SIZE > 0 && total > Logger.LOGFILE_MAX_TOTAL_SIZE;
+            if (!overCount && !overSize) {
+                break;
+            }
+            Segment oldest = mSegments.get(i);
+            if (oldest == mText || oldest == mBinary) {
+                continue;
+            }
+            mSegments.remove(i);
+            total -= oldest.size;
+            new File(mDir, oldest.name).delete();
+        }
+    }
+
+    private void readIndex() {
+        File index = new File(mDir, INDEX_FILE);
+        if (!index.exists()) {
+            return;
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(index));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (tab <= 0) {
+                    continue;
+                }
+                String name = line.substring(0, tab);
+                if (new File(mDir, name).exists()) {
+                    mSegments.add(new Segment(name, Long.parseLong(line.substring(tab + 1))));
+                }
+            }
+        } catch (IOException | NumberFormatException pE) {
+            FileLog.error("read log index", pE);
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    private void writeIndex() {
+        File temp = new File(mDir, INDEX_FILE + ".tmp");
+        Writer writer = null;
+        try {
+            writer = new FileWriter(temp);
+            for (int i = 0, size = mSegments.size(); i < size; i++) {
+                Segment segment = mSegments.get(i);
+                writer.write(segment.name);
+                writer.write('\t');
+                writer.write(String.valueOf(segment.size));
+                writer.write('\n');
+            }
+            writer.close();
+            writer = null;
+            temp.renameTo(new File(mDir, INDEX_FILE));
+        } catch (IOException pE) {
+            FileLog.error("write log index", pE);
+        } finally {
+            closeQuietly(writer);
+        }
+    }
+
+    /**
+     * 从新到旧返回目录下的日志分段,只读取索引文件
+     */
+    static List<File> listSegments(@NonNull File dir) {
+        LogFileRoller roller = new LogFileRoller(dir);
+        List<File> files = new ArrayList<>(roller.mSegments.size());
+        for (int i = 0, size = roller.mSegments.size(); i < size; i++) {
+            files.add(new File(dir, roller.mSegments.get(i).name));
+        }
+        return files;
+    }
+
+    private static int parseSequence(@NonNull String name) {
+        int start = name.lastIndexOf('_') + 1;
+        int end = name.indexOf('.', start);
+        try {
+            return Integer.parseInt(name.substring(start, end < 0 ? name.length() : end));
+        } catch (NumberFormatException pE) {
+            return 0;
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException pE) {
+                FileLog.error("close file", pE);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.acmenxd.logger;
+
+import android.support.annotation.NonNull;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/2 14:20
+ * @detail 文件输出端 - 默认注册的同步输出端(Logger.FILE_SINK)
+ * * 只处理Logger.file输出的日志(LogType.FILE),交给FileAppender的队列异步写入,不阻塞调用线程
+ */
+public final class LogFileSink implements LogSink {
+
+    LogFileSink() {
+    }
+
+    @Override
+    public void onLog(@NonNull LogRecord record) {
+        if (record.type != LogType.FILE || record.dir == null) {
+            return;
+        }
+        FileLog.printFile(record.type, record.tag, record.head, record.className, record.methodName,
+                record.lineNumber, record.msg, record.dir, record.fileName);
+    }
+}
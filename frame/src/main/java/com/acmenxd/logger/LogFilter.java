@@ -0,0 +1,128 @@
+package com.acmenxd.logger;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/17 10:12
+ * @detail 单个Tag的日志过滤规则
+ * * 等级阈值: >= 这个Level的log才显示
+ * * 可选限流(令牌桶,每秒permits条,允许burst条突发)或抽样(每N条输出1条)
+ * * 判断过程只使用CAS,不加锁
+ */
+public final class LogFilter {
+    private final LogType mLevel;
+    // 抽样: 每mSample条输出1条, <=1表示不抽样
+    private final int mSample;
+    // 限流: 每条日志的间隔(纳秒), 0表示不限流
+    private final long mInterval;
+    // 限流: 允许突发的时间容量(纳秒)
+    private final long mTolerance;
+    private final AtomicLong mCounter = new AtomicLong(0);
+    // 限流: 计时来源
+    private final Clock mClock;
+    // 限流: 理论上下一条日志允许输出的时间
+    private final AtomicLong mNextTime;
+    private final AtomicLong mDropped = new AtomicLong(0);
+
+    /**
+     * 限流的计时来源,测试时可替换
+     */
+    interface Clock {
+        long nanoTime();
+    }
+
+    static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+    };
+
+    private LogFilter(@NonNull LogType level, int sample, double permitsPerSecond, int burst, @NonNull Clock clock) {
+        mLevel = level;
+        mSample = sample;
+        mClock = clock;
+        mNextTime = new AtomicLong(clock.nanoTime());
+        if (permitsPerSecond > 0) {
+            mInterval = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+            mTolerance = mInterval * Math.max(burst, 1);
+        } else {
+            mInterval = 0;
+            mTolerance = 0;
+        }
+    }
+
+    /**
+     * 只按等级过滤
+     */
+    public static LogFilter level(@NonNull LogType level) {
+        return new LogFilter(level, 0, 0, 0, SYSTEM_CLOCK);
+    }
+
+    /**
+     * 按等级过滤后,每n条输出1条
+     */
+    public static LogFilter sample(@NonNull LogType level, int n) {
+        return new LogFilter(level, n, 0, 0, SYSTEM_CLOCK);
+    }
+
+    /**
+     * 按等级过滤后,每秒最多输出permitsPerSecond条,允许burst条突发
+     */
+    public static LogFilter rate(@NonNull LogType level, double permitsPerSecond, int burst) {
+        return rate(level, permitsPerSecond, burst, SYSTEM_CLOCK);
+    }
+
+    static LogFilter rate(@NonNull LogType level, double permitsPerSecond, int burst, @NonNull Clock clock) {
+        return new LogFilter(level, 0, permitsPerSecond, burst, clock);
+    }
+
+    /**
+     * 被过滤掉的日志条数
+     */
+    public long getDroppedCount() {
+        return mDropped.get();
+    }
+
+    /**
+     * 是否输出该类型的日志 - 抽样和限流会消耗计数,每条日志只能调用一次
+     */
+    boolean accept(@NonNull LogType type) {
+        if (type.intValue() < mLevel.intValue()) {
+            return false;
+        }
+        if (mSample > 1 && mCounter.getAndIncrement() % mSample != 0) {
+            mDropped.incrementAndGet();
+            return false;
+        }
+        if (mInterval > 0 && !acquire()) {
+            mDropped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 令牌桶(GCRA实现): 只用一个时间戳表示桶内状态
+     */
+    private boolean acquire() {
+        long now = mClock.nanoTime();
+        for (; ; ) {
+            long next = mNextTime.get();
+            long start = next - now < 0 ? now : next;
+            long newNext = start + mInterval;
+            if (newNext - now > mTolerance) {
+                return false;
+            }
+            if (mNextTime.compareAndSet(next, newNext)) {
+                return true;
+            }
+        }
+    }
+}
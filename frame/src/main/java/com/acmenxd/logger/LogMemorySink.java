@@ -0,0 +1,70 @@
+package com.acmenxd.logger;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/18 10:40
+ * @detail 内存环形日志输出端
+ * * 只保留最近N条日志,用于崩溃时附加到崩溃日志中
+ * * 读取前调用Logger.flushLogSinks可确保已输出的日志都已进入本输出端
+ */
+public final class LogMemorySink implements LogSink {
+    private final LogRecord[] mRecords;
+    // 下一个写入位置
+    private int mNext;
+    private int mSize;
+
+    /**
+     * @param capacity 保留的日志条数
+     */
+    public LogMemorySink(int capacity) {
+        mRecords = new LogRecord[Math.max(capacity, 1)];
+    }
+
+    @Override
+    public synchronized void onLog(@NonNull LogRecord record) {
+        mRecords[mNext] = record;
+        mNext = (mNext + 1) % mRecords.length;
+        if (mSize < mRecords.length) {
+            mSize++;
+        }
+    }
+
+    /**
+     * 获取保留的日志,从旧到新排列
+     */
+    public synchronized List<LogRecord> getRecords() {
+        List<LogRecord> result = new ArrayList<>(mSize);
+        int start = (mNext - mSize + mRecords.length) % mRecords.length;
+        for (int i = 0; i < mSize; i++) {
+            result.add(mRecords[(start + i) % mRecords.length]);
+        }
+        return result;
+    }
+
+    /**
+     * 保留的日志转为文本,每条一行
+     */
+    public String dump() {
+        List<LogRecord> records = getRecords();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0, len = records.size(); i < len; i++) {
+            sb.append(records.get(i)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < mRecords.length; i++) {
+            mRecords[i] = null;
+        }
+        mNext = 0;
+        mSize = 0;
+    }
+}
@@ -0,0 +1,17 @@
+package com.acmenxd.logger;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/10 10:21
+ * @detail 日志缓冲区已满时的处理策略
+ */
+public enum LogOverflow {
+    // 阻塞调用线程,直到缓冲区有空位
+    BLOCK,
+    // 丢弃最早的一条日志,写入新日志
+    DROP_OLDEST,
+    // 丢弃新日志
+    DROP_NEWEST
+}
@@ -0,0 +1,268 @@
+package com.acmenxd.logger;
+
+import android.support.annotation.NonNull;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/13 11:20
+ * @detail Json/Xml单遍流式格式化
+ * * 逐字符扫描,不构建对象树,每凑满一行直接输出
+ * * 输出超过Logger.LOG_PRETTY_MAX_BYTES后截断并输出截断标记
+ */
+final class LogPrettyPrinter {
+    private static final int JSON_INDENT = 4; //缩进
+    private static final int XML_INDENT = 4; //缩进
+    private static final String PREFIX = "║ ";
+
+    private final LogType mType;
+    private final LogTag mTag;
+    private final String mSrc;
+    private final long mMaxBytes;
+    private final StringBuilder mLine = new StringBuilder(128);
+    private long mBytes;
+    private boolean mTruncated;
+
+    private LogPrettyPrinter(@NonNull LogType type, @NonNull LogTag tag, @NonNull String src) {
+        mType = type;
+        mTag = tag;
+        mSrc = src;
+        mMaxBytes = Logger.LOG_PRETTY_MAX_BYTES;
+    }
+
+    /**
+     * 格式化输出Json
+     */
+    static void printJson(@NonNull LogType type, @NonNull LogTag tag, @NonNull String json) {
+        new LogPrettyPrinter(type, tag, json).json();
+    }
+
+    /**
+     * 格式化输出Xml
+     */
+    static void printXml(@NonNull LogType type, @NonNull LogTag tag, @NonNull String xml) {
+        new LogPrettyPrinter(type, tag, xml).xml();
+    }
+
+    private void json() {
+        String src = mSrc;
+        int length = src.length();
+        int depth = 0;
+        boolean inString = false;
+        for (int i = 0; i < length && !mTruncated; i++) {
+            char c = src.charAt(i);
+            if (inString) {
+                append(c);
+                if (c == '\\' && i + 1 < length) {
+                    append(src.charAt(++i));
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"':
+                    inString = true;
+                    append(c);
+                    break;
+                case '{':
+                case '[':
+                    append(c);
+                    int next = skipWhitespace(src, i + 1);
+                    if (next < length && (src.charAt(next) == '}' || src.charAt(next) == ']')) {
+                        // 空对象/空数组保持在同一行
+                        append(src.charAt(next));
+                        i = next;
+                    } else {
+                        newLine(++depth * JSON_INDENT);
+                    }
+                    break;
+                case '}':
+                case ']':
+                    newLine(--depth * JSON_INDENT);
+                    append(c);
+                    break;
+                case ',':
+                    append(c);
+                    newLine(depth * JSON_INDENT);
+                    break;
+                case ':':
+                    append(c);
+                    append(' ');
+                    break;
+                case ' ':
+                case '\t':
+                case '\r':
+                case '\n':
+                    break;
+                default:
+                    append(c);
+                    break;
+            }
+        }
+        finish();
+    }
+
+    private void xml() {
+        String src = mSrc;
+        int length = src.length();
+        int depth = 0;
+        // 上一个节点: 0->其他 1->开始标签 2->紧跟开始标签的文本
+        int last = 0;
+        int i = 0;
+        while (i < length && !mTruncated) {
+            char c = src.charAt(i);
+            if (c == '<') {
+                int end = tagEnd(src, i);
+                if (src.startsWith("</", i)) {
+                    depth--;
+                    if (last == 0) {
+                        newLine(depth * XML_INDENT);
+                    }
+                    last = 0;
+                } else {
+                    newLine(depth * XML_INDENT);
+                    boolean open = end - i > 2 && src.charAt(i + 1) != '?' && src.charAt(i + 1) != '!' && src.charAt(end - 2) != '/';
+                    if (open) {
+                        depth++;
+                    }
+                    last = open ? 1 : 0;
+                }
+                append(src, i, end);
+                i = end;
+            } else {
+                int end = src.indexOf('<', i);
+                if (end < 0) {
+                    end = length;
+                }
+                int start = skipWhitespace(src, i);
+                int stop = end;
+                while (stop > start && Character.isWhitespace(src.charAt(stop - 1))) {
+                    stop--;
+                }
+                if (start < stop) {
+                    if (last != 1) {
+                        newLine(depth * XML_INDENT);
+                    }
+                    append(src, start, stop);
+                    last = last == 1 ? 2 : 0;
+                }
+                i = end;
+            }
+        }
+        finish();
+    }
+
+    /**
+     * 标签结束位置(不含),支持注释/CDATA/属性中的'>'
+     */
+    private static int tagEnd(@NonNull String src, int start) {
+        int end;
+        if (src.startsWith("<!--", start)) {
+            end = src.indexOf("-->", start + 4);
+            return end < 0 ? src.length() : end + 3;
+        }
+        if (src.startsWith("<![CDATA[", start)) {
+            end = src.indexOf("]]>", start + 9);
+            return end < 0 ? src.length() : end + 3;
+        }
+        char quote = 0;
+        for (int i = start + 1, length = src.length(); i < length; i++) {
+            char c = src.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i + 1;
+            }
+        }
+        return src.length();
+    }
+
+    private static int skipWhitespace(@NonNull String src, int index) {
+        int length = src.length();
+        while (index < length && Character.isWhitespace(src.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private void append(char c) {
+        mLine.append(c);
+        checkLine();
+    }
+
+    private void append(@NonNull String src, int start, int end) {
+        mLine.append(src, start, end);
+        checkLine();
+    }
+
+    /**
+     * 单行已超出限制时立即截断,避免超长行占用内存
+     */
+    private void checkLine() {
+        if (mMaxBytes > 0 && mLine.length() > mMaxBytes) {
+            flushLine();
+        }
+    }
+
+    /**
+     * 输出当前行,并以indent缩进开始新行
+     */
+    private void newLine(int indent) {
+        flushLine();
+        for (int i = 0; i < indent; i++) {
+            mLine.append(' ');
+        }
+    }
+
+    private void flushLine() {
+        if (mTruncated) {
+            return;
+        }
+        int length = mLine.length();
+        boolean blank = true;
+        for (int i = 0; i < length; i++) {
+            if (mLine.charAt(i) != ' ') {
+                blank = false;
+                break;
+            }
+        }
+        if (!blank) {
+            mBytes += utf8Length(mLine);
+            if (mMaxBytes > 0 && mBytes > mMaxBytes) {
+                mTruncated = true;
+                BaseLog.printSub(mType, mTag, PREFIX + "...... truncated, over " + mMaxBytes + " bytes (source " + mSrc.length() + " chars)");
+            } else {
+                BaseLog.printSub(mType, mTag, PREFIX, mLine);
+            }
+        }
+        mLine.setLength(0);
+    }
+
+    private void finish() {
+        flushLine();
+    }
+
+    private static int utf8Length(@NonNull CharSequence line) {
+        int bytes = 0;
+        for (int i = 0, length = line.length(); i < length; i++) {
+            char c = line.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
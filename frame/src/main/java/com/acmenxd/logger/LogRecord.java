@@ -0,0 +1,58 @@
+package com.acmenxd.logger;
+
+import android.support.annotation.NonNull;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/18 10:40
+ * @detail 一条已格式化的日志
+ * * 每条日志只格式化一次,分发给所有LogSink
+ */
+public final class LogRecord {
+    // 时间(毫秒)
+    public final long time;
+    public final LogType type;
+    public final LogTag tag;
+    // 调用位置,未解析调用栈时为null/-1
+    public final String className;
+    public final String methodName;
+    public final int lineNumber;
+    // 日志内容, Json/Xml为原文
+    public final String msg;
+    // 控制台/文件输出的头部(调用位置)
+    final String head;
+    // 文件日志的目录和文件名,非文件日志为null
+    final File dir;
+    final String fileName;
+
+    LogRecord(@NonNull LogType type, @NonNull LogTag tag, LogCallSite callSite, @NonNull String head, @NonNull String msg,
+              File dir, String fileName) {
+        this.time = System.currentTimeMillis();
+        this.type = type;
+        this.tag = tag;
+        this.className = callSite == null ? null : callSite.className;
+        this.methodName = callSite == null ? null : callSite.methodName;
+        this.lineNumber = callSite == null ? -1 : callSite.lineNumber;
+        this.msg = msg;
+        this.head = head;
+        this.dir = dir;
+        this.fileName = fileName;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(64 + msg.length());
+        sb.append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(time))).append(' ')
+                .append(type.name()).append('/').append(tag.gTag());
+        if (className != null) {
+            sb.append(' ').append(className).append('.').append(methodName).append('(').append(lineNumber).append(')');
+        }
+        return sb.append(':').append(msg).toString();
+    }
+}
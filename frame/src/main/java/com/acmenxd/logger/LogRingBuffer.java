@@ -0,0 +1,114 @@
+package com.acmenxd.logger;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/10 10:21
+ * @detail 有界无锁环形缓冲区(多生产者/多消费者)
+ * * 每个槽位带序号,生产者和消费者只通过CAS竞争位置,不使用锁
+ */
+final class LogRingBuffer<T> {
+    private final int mMask;
+    private final AtomicReferenceArray<T> mItems;
+    private final AtomicLongArray mSequences;
+    // 下一个写入位置
+    private final AtomicLong mTail = new AtomicLong(0);
+    // 下一个读取位置
+    private final AtomicLong mHead = new AtomicLong(0);
+
+    /**
+     * @param capacity 容量,会向上取整为2的幂
+     */
+    LogRingBuffer(int capacity) {
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        mMask = size - 1;
+        mItems = new AtomicReferenceArray<>(size);
+        mSequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            mSequences.set(i, i);
+        }
+    }
+
+    /**
+     * 写入一条数据
+     *
+     * @return 缓冲区已满返回false
+     */
+    boolean offer(@NonNull T item) {
+        long pos = mTail.get();
+        for (; ; ) {
+            int index = (int) (pos & mMask);
+            long diff = mSequences.get(index) - pos;
+            if (diff == 0) {
+                if (mTail.compareAndSet(pos, pos + 1)) {
+                    mItems.lazySet(index, item);
+                    mSequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = mTail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = mTail.get();
+            }
+        }
+    }
+
+    /**
+     * 读取一条数据
+     *
+     * @return 缓冲区为空返回null
+     */
+    T poll() {
+        long pos = mHead.get();
+        for (; ; ) {
+            int index = (int) (pos & mMask);
+            long diff = mSequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (mHead.compareAndSet(pos, pos + 1)) {
+                    T item = mItems.get(index);
+                    mItems.lazySet(index, null);
+                    mSequences.set(index, pos + mMask + 1);
+                    return item;
+                }
+                pos = mHead.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                pos = mHead.get();
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return mHead.get() >= mTail.get();
+    }
+
+    int capacity() {
+        return mMask + 1;
+    }
+
+    /**
+     * 已写入的总条数(包含已被读取的)
+     */
+    long published() {
+        return mTail.get();
+    }
+
+    /**
+     * 已读取的总条数
+     */
+    long consumed() {
+        return mHead.get();
+    }
+}
@@ -0,0 +1,24 @@
+package com.acmenxd.logger;
+
+import android.support.annotation.NonNull;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/18 10:40
+ * @detail 日志输出端
+ * * 控制台(LogConsoleSink)和文件(LogFileSink)也是输出端,默认以同步方式注册
+ * * 通过Logger.addLogSink注册的输出端有独立的队列和线程,回调不在日志调用线程中执行,
+ * * 处理过慢时队列中最旧的日志会被丢弃,不会阻塞调用线程
+ * * 通过Logger.addDirectLogSink注册的输出端在日志调用线程中同步执行,只用于本身很快或自带异步队列的输出端
+ */
+public interface LogSink {
+
+    /**
+     * 输出一条日志
+     *
+     * @param record 已格式化的日志,所有输出端共用同一实例,不可修改
+     */
+    void onLog(@NonNull LogRecord record);
+}
@@ -2,25 +2,52 @@ package com.acmenxd.logger;
 
 import android.support.annotation.NonNull;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * @author AcmenXD
  * @version v1.0
  * @github https://github.com/AcmenXD
  * @date 2016/12/16 17:55
  * @detail 定义Logger的tag类
+ * * 同名tag只创建一个实例,可直接用 == 比较,也可作为IdentityHashMap等的key
  */
 public final class LogTag {
-    private String tag;
+    private static final ConcurrentMap<String, LogTag> sTags = new ConcurrentHashMap<>();
+    // tag为null时的实例,输出时使用默认Tag
+    private static final LogTag NULL_TAG = new LogTag(null);
+
+    private final String tag;
 
-    private LogTag(@NonNull String tag) {
+    private LogTag(String tag) {
         this.tag = tag;
     }
 
+    /**
+     * 获取tag实例,同名tag始终返回同一个实例
+     */
     public static LogTag mk(@NonNull String tag) {
-        return new LogTag(tag);
+        if (tag == null) {
+            return NULL_TAG;
+        }
+        LogTag logTag = sTags.get(tag);
+        if (logTag == null) {
+            LogTag created = new LogTag(tag);
+            logTag = sTags.putIfAbsent(tag, created);
+            if (logTag == null) {
+                logTag = created;
+            }
+        }
+        return logTag;
     }
 
     public String gTag() {
         return tag;
     }
+
+    @Override
+    public String toString() {
+        return tag;
+    }
 }
@@ -7,6 +7,9 @@ import java.io.File;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
  * @author AcmenXD
@@ -25,19 +28,64 @@ public final class Logger extends BaseLog {
     public static boolean LOG_OPEN = true;
     // Log显示Level, >= 这个Level的log才显示
     public static LogType LOG_LEVEL = LogType.V;
+    // Log是否输出调用位置(文件名:行号 方法名) - 开启后每条日志都要解析调用栈,关闭后控制台日志不再解析调用栈
+    // * 关闭时未指定Tag的日志使用APP_PKG_NAME作为Tag
+    public static boolean LOG_SHOW_LOCATION = false;
+    // Json/Xml日志格式化输出的最大字节数,超出后截断(<=0 不限制)
+    public static long LOG_PRETTY_MAX_BYTES = 64 * 1024;
     // Log日志的存储路径 -  默认为sd卡Logger目录下
-    public static String LOGFILE_PATH = Environment.getExternalStorageDirectory().getAbsolutePath() + "/Logger/";
+    public static String LOGFILE_PATH = defaultLogPath();
+    // 滚动日志: 单个文件最大字节数,超出后切换新文件(<=0 不按大小切换)
+    public static long LOGFILE_MAX_SIZE = 1024 * 1024;
+    // 滚动日志: 是否每天切换新文件
+    public static boolean LOGFILE_ROLL_DAILY = true;
+    // 滚动日志: 最多保留文件数(<=0 不限制)
+    public static int LOGFILE_MAX_COUNT = 10;
+    // 滚动日志: 最多保留总字节数(<=0 不限制)
+    public static long LOGFILE_MAX_TOTAL_SIZE = 10 * 1024 * 1024;
+    // 滚动日志: 切换后是否压缩旧文件
+    public static boolean LOGFILE_COMPRESS = true;
+    // 未指定文件名的日志是否以二进制格式写入(.alog,用LogBinaryDecoder解码)
+    public static boolean LOGFILE_BINARY = false;
+    // 二进制日志: 单个内存映射分段的字节数
+    public static long LOGFILE_BINARY_SEGMENT_SIZE = 1024 * 1024;
+    // Log日志文件缓冲区容量(条) - 首次写文件日志前设置有效
+    public static int LOGFILE_BUFFER_SIZE = 1024;
+    // Log日志文件缓冲区已满时的处理策略
+    public static LogOverflow LOGFILE_OVERFLOW = LogOverflow.DROP_OLDEST;
+    // LogSink队列容量(条) - 注册LogSink前设置有效,队列满时丢弃最旧的日志
+    public static int LOG_SINK_BUFFER_SIZE = 1024;
+    // 控制台输出端,默认以同步方式注册,可通过removeLogSink关闭控制台输出
+    public static final LogSink CONSOLE_SINK = new LogConsoleSink();
+    // 文件输出端(Logger.file),默认以同步方式注册,写入由FileAppender异步完成
+    public static final LogSink FILE_SINK = new LogFileSink();
 
     private static final String PARAM = "param";
     private static final String NULL = "null";
+    private static final String HEAD_NO_LOCATION = "* [ Logger ]";
+    // 未解析调用位置时的默认Tag,APP_PKG_NAME变化后重建
+    private static volatile LogTag sAppTag;
+    // Tag过滤规则表,整表替换 - LogTag同名唯一,按实例查找
+    private static volatile Map<LogTag, LogFilter> sLogFilters = Collections.emptyMap();
+    // 参数化日志占位符
+    private static final String PLACEHOLDER = "{}";
+    private static final int FORMAT_CAPACITY = 256;
+    private static final int MAX_FORMAT_CAPACITY = 8 * 1024;
+    // 参数化日志格式化缓存,每个线程复用一个
+    private static final ThreadLocal<StringBuilder> sFormatBuilder = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(FORMAT_CAPACITY);
+        }
+    };
 
     // V
     public static void v(@NonNull Object... msgs) {
-        printLog(LogType.V, null, null, parseMsgs(msgs));
+        printLog(LogType.V, null, null, msgs);
     }
 
     public static void v(@NonNull LogTag tag, @NonNull Object... msgs) {
-        printLog(LogType.V, tag, null, parseMsgs(msgs));
+        printLog(LogType.V, tag, null, msgs);
     }
 
     public static void v(@NonNull Throwable e) {
@@ -49,11 +97,39 @@ public final class Logger extends BaseLog {
     }
 
     public static void v(@NonNull Throwable e, @NonNull Object... msgs) {
-        printLog(LogType.V, null, e, parseMsgs(msgs));
+        printLog(LogType.V, null, e, msgs);
     }
 
     public static void v(@NonNull LogTag tag, @NonNull Throwable e, @NonNull Object... msgs) {
-        printLog(LogType.V, tag, e, parseMsgs(msgs));
+        printLog(LogType.V, tag, e, msgs);
+    }
+
+    /**
+     * 参数化日志,例: Logger.v(tag, "user {} took {} ms", user, time)
+     * * 先检测等级再格式化,日志关闭时不产生任何字符串
+     */
+    public static void v(@NonNull LogTag tag, @NonNull String format, Object arg1) {
+        if (isLoggable(LogType.V, tag)) {
+            printFormat(LogType.V, tag, format, 1, arg1, null, null, null);
+        }
+    }
+
+    public static void v(@NonNull LogTag tag, @NonNull String format, Object arg1, Object arg2) {
+        if (isLoggable(LogType.V, tag)) {
+            printFormat(LogType.V, tag, format, 2, arg1, arg2, null, null);
+        }
+    }
+
+    public static void v(@NonNull LogTag tag, @NonNull String format, Object arg1, Object arg2, Object arg3) {
+        if (isLoggable(LogType.V, tag)) {
+            printFormat(LogType.V, tag, format, 3, arg1, arg2, arg3, null);
+        }
+    }
+
+    public static void v(@NonNull LogTag tag, @NonNull String format, Object arg1, Object arg2, Object arg3, Object arg4) {
+        if (isLoggable(LogType.V, tag)) {
+            printFormat(LogType.V, tag, format, 4, arg1, arg2, arg3, arg4);
+        }
     }
 
     // json日志
@@ -82,15 +158,15 @@ public final class Logger extends BaseLog {
      * * 尽量避免使用此函数,而使用带有Tag标记的函数
      */
     public static void file(@NonNull Object... msgs) {
-        printFile(LogType.FILE, null, null, null, null, parseMsgs(msgs));
+        printFile(LogType.FILE, null, null, null, null, msgs);
     }
 
     public static void file(@NonNull LogTag tag, @NonNull Object... msgs) {
-        printFile(LogType.FILE, tag, null, null, null, parseMsgs(msgs));
+        printFile(LogType.FILE, tag, null, null, null, msgs);
     }
 
     public static void file(LogTag tag, String fileName, File dirFile, @NonNull Object... msgs) {
-        printFile(LogType.FILE, tag, dirFile, fileName, null, parseMsgs(msgs));
+        printFile(LogType.FILE, tag, dirFile, fileName, null, msgs);
     }
 
     //-------------------------------------------
@@ -112,21 +188,187 @@ public final class Logger extends BaseLog {
     //-------------------------------------------
 
     public static void file(@NonNull Throwable thr, @NonNull Object... msgs) {
-        printFile(LogType.FILE, null, null, null, thr, parseMsgs(msgs));
+        printFile(LogType.FILE, null, null, null, thr, msgs);
     }
 
     public static void file(@NonNull LogTag tag, @NonNull Throwable thr, @NonNull Object... msgs) {
-        printFile(LogType.FILE, tag, null, null, thr, parseMsgs(msgs));
+        printFile(LogType.FILE, tag, null, null, thr, msgs);
     }
 
     public static void file(LogTag tag, @NonNull String fileName, @NonNull Throwable thr, @NonNull Object... msgs) {
-        printFile(LogType.FILE, tag, null, fileName, thr, parseMsgs(msgs));
+        printFile(LogType.FILE, tag, null, fileName, thr, msgs);
     }
 
     public static void file(LogTag tag, String fileName, File dirFile, @NonNull Throwable thr, @NonNull Object... msgs) {
-        printFile(LogType.FILE, tag, dirFile, fileName, thr, parseMsgs(msgs));
+        printFile(LogType.FILE, tag, dirFile, fileName, thr, msgs);
+    }
+
+
+    /**
+     * 检测开关和显示等级
+     *
+     * @param type
+     * @return 该类型日志是否会输出
+     */
+    public static boolean isLoggable(@NonNull LogType type) {
+        return LOG_OPEN && type.intValue() >= LOG_LEVEL.intValue();
     }
 
+    /**
+     * 检测开关/显示等级和Tag过滤规则
+     * * 抽样和限流会消耗计数,返回true后应当输出这条日志
+     *
+     * @param type
+     * @param tag
+     * @return 该类型日志是否会输出
+     */
+    public static boolean isLoggable(@NonNull LogType type, LogTag tag) {
+        return isLoggable(type) && (tag == null || tag.gTag() == null || acceptFilter(tag, type));
+    }
+
+    /**
+     * 设置Tag过滤规则,可在运行时替换
+     * * 未配置规则的Tag只受LOG_OPEN/LOG_LEVEL控制
+     *
+     * @param filters Tag -> 过滤规则, null表示清空
+     */
+    public static void setLogFilters(Map<LogTag, LogFilter> filters) {
+        Map<LogTag, LogFilter> table = new IdentityHashMap<>();
+        if (filters != null) {
+            for (Map.Entry<LogTag, LogFilter> entry : filters.entrySet()) {
+                if (entry.getKey() != null && entry.getKey().gTag() != null && entry.getValue() != null) {
+                    table.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        // 整表替换,读取时无需加锁
+        sLogFilters = table;
+    }
+
+    /**
+     * 注册异步日志输出端 - 如内存环形缓冲(LogMemorySink)/上报等
+     * * 每条日志只格式化一次,分发给所有输出端
+     * * 每个输出端有独立的队列和线程,处理过慢时丢弃最旧的日志,不会阻塞调用线程
+     */
+    public static void addLogSink(@NonNull LogSink sink) {
+        LogDispatcher.add(sink, LOG_SINK_BUFFER_SIZE);
+    }
+
+    /**
+     * 注册同步日志输出端 - 在日志调用线程中按注册顺序执行,默认已注册CONSOLE_SINK和FILE_SINK
+     * * 只用于本身很快或自带异步队列的输出端,如替换默认的控制台输出
+     */
+    public static void addDirectLogSink(@NonNull LogSink sink) {
+        LogDispatcher.addDirect(sink);
+    }
+
+    /**
+     * 注销日志输出端(同步或异步)
+     */
+    public static void removeLogSink(@NonNull LogSink sink) {
+        LogDispatcher.remove(sink);
+    }
+
+    /**
+     * 等待已输出的日志全部交给各输出端处理 - 如崩溃时读取LogMemorySink前调用
+     *
+     * @return 超时返回false
+     */
+    public static boolean flushLogSinks(long timeoutMillis) {
+        return LogDispatcher.flush(timeoutMillis);
+    }
+
+    /**
+     * 因输出端队列已满或处理异常丢弃的日志条数
+     */
+    public static long getLogSinkDroppedCount() {
+        return LogDispatcher.getDroppedCount();
+    }
+
+    private static boolean acceptFilter(@NonNull LogTag tag, @NonNull LogType type) {
+        Map<LogTag, LogFilter> filters = sLogFilters;
+        if (filters.isEmpty()) {
+            return true;
+        }
+        LogFilter filter = filters.get(tag);
+        return filter == null || filter.accept(type);
+    }
+
+    /**
+     * 输出参数化日志 - 调用前已检测过isLoggable
+     * * format中不含{}占位符时,按普通多参数日志输出
+     * * 参数多于占位符且最后一个参数为Throwable时,作为异常输出
+     *
+     * @param type
+     * @param tag
+     * @param format
+     * @param count  实际参数个数
+     */
+    private static void printFormat(@NonNull LogType type, LogTag tag, @NonNull String format, int count,
+                                    Object arg1, Object arg2, Object arg3, Object arg4) {
+        int placeholders = countPlaceholders(format);
+        if (placeholders == 0) {
+            Object[] msgs = new Object[count + 1];
+            msgs[0] = format;
+            for (int i = 0; i < count; i++) {
+                msgs[i + 1] = arg(i, arg1, arg2, arg3, arg4);
+            }
+            printChecked(type, tag, null, msgs);
+            return;
+        }
+        Throwable thr = null;
+        if (count > placeholders) {
+            Object last = arg(count - 1, arg1, arg2, arg3, arg4);
+            if (last instanceof Throwable) {
+                thr = (Throwable) last;
+                count--;
+            }
+        }
+        StringBuilder sb = sFormatBuilder.get();
+        sb.setLength(0);
+        int start = 0;
+        int index = 0;
+        int pos;
+        while ((pos = format.indexOf(PLACEHOLDER, start)) >= 0) {
+            sb.append(format, start, pos);
+            if (index < count) {
+                sb.append(arg(index++, arg1, arg2, arg3, arg4));
+            } else {
+                sb.append(PLACEHOLDER);
+            }
+            start = pos + PLACEHOLDER.length();
+        }
+        sb.append(format, start, format.length());
+        String message = sb.toString();
+        if (sb.capacity() > MAX_FORMAT_CAPACITY) {
+            // 避免超长日志后一直占用大块内存
+            sFormatBuilder.set(new StringBuilder(FORMAT_CAPACITY));
+        }
+        printChecked(type, tag, thr, message);
+    }
+
+    private static int countPlaceholders(@NonNull String format) {
+        int count = 0;
+        int pos = 0;
+        while ((pos = format.indexOf(PLACEHOLDER, pos)) >= 0) {
+            count++;
+            pos += PLACEHOLDER.length();
+        }
+        return count;
+    }
+
+    private static Object arg(int index, Object arg1, Object arg2, Object arg3, Object arg4) {
+        switch (index) {
+            case 0:
+                return arg1;
+            case 1:
+                return arg2;
+            case 2:
+                return arg3;
+            default:
+                return arg4;
+        }
+    }
 
     /**
      * 输出日志
@@ -136,37 +378,33 @@ public final class Logger extends BaseLog {
      * @param thr
      * @param msgs
      */
-    private static void printLog(@NonNull LogType type, LogTag pTag, Throwable thr, String... msgs) {
-        if (!LOG_OPEN) {
-            //检测开关
+    private static void printLog(@NonNull LogType type, LogTag pTag, Throwable thr, Object... msgs) {
+        if (!isLoggable(type, pTag)) {
             return;
         }
-        if (type.intValue() < LOG_LEVEL.intValue()) {
-            //检测显示等级
+        printChecked(type, pTag, thr, msgs);
+    }
+
+    /**
+     * 输出日志 - 调用前已检测过isLoggable(type, pTag)
+     */
+    private static void printChecked(@NonNull LogType type, LogTag pTag, Throwable thr, Object... msgs) {
+        //只有输出格式需要调用位置时才解析调用栈
+        boolean noTag = pTag == null || pTag.gTag() == null;
+        LogCallSite callSite = LOG_SHOW_LOCATION ? LogCallSite.resolve() : null;
+        LogTag tag = noTag ? defaultTag(callSite) : pTag;
+        if (noTag && !acceptFilter(tag, type)) {
+            //默认Tag的过滤规则
             return;
         }
-        //包装内容
-        String[] contents = wrapperContent(pTag, thr, msgs);
-        LogTag tag = LogTag.mk(contents[0]);
-        String msgStr = contents[1];
-        String headStr = contents[2];
-        String className = contents[3];
-        switch (type) {
-            case V:
-            case D:
-            case I:
-            case W:
-            case E:
-            case A:
-                printLog(type, tag, headStr + msgStr);
-                break;
-            case JSON:
-                JsonLog.printJson(tag, headStr, msgStr);
-                break;
-            case XML:
-                XmlLog.printXml(tag, headStr, msgStr);
-                break;
+        if (!LogDispatcher.hasSinks()) {
+            return;
         }
+        //包装内容 - Json/Xml原文直接交给格式化输出,不做拷贝
+        boolean isRaw = type == LogType.JSON || type == LogType.XML;
+        String msgStr = isRaw ? String.valueOf(msgs[0]) : getMessagesStr(thr, parseMsgs(msgs));
+        //控制台等输出端统一从LogRecord输出
+        LogDispatcher.dispatch(new LogRecord(type, tag, callSite, headStr(callSite), msgStr, null, null));
     }
 
     /**
@@ -179,50 +417,60 @@ public final class Logger extends BaseLog {
      * @param thr
      * @param msgs
      */
-    private static void printFile(@NonNull LogType type, LogTag pTag, File dirFile, String fileName, Throwable thr, String... msgs) {
-        if (!LOG_OPEN) {
-            //检测开关
-            return;
-        }
-        if (type.intValue() < LOG_LEVEL.intValue()) {
-            //检测显示等级
+    private static void printFile(@NonNull LogType type, LogTag pTag, File dirFile, String fileName, Throwable thr, Object... msgs) {
+        if (!isLoggable(type, pTag)) {
             return;
         }
         //路径
         if (dirFile == null) {
             dirFile = new File(LOGFILE_PATH);
         }
-        //包装内容
-        String[] contents = wrapperContent(pTag, thr, msgs);
-        LogTag tag = LogTag.mk(contents[0]);
-        String msgStr = contents[1];
-        String headStr = contents[2];
-        String className = contents[3];
-        FileLog.printFile(tag, headStr, className, msgStr, dirFile, fileName);
+        //包装内容 - 文件日志需要类名/方法名/行号
+        LogCallSite callSite = LogCallSite.resolve();
+        boolean noTag = pTag == null || pTag.gTag() == null;
+        LogTag tag = noTag ? defaultTag(callSite) : pTag;
+        if (noTag && !acceptFilter(tag, type)) {
+            //默认Tag的过滤规则
+            return;
+        }
+        if (!LogDispatcher.hasSinks()) {
+            return;
+        }
+        //文件输出端(FILE_SINK)按记录中的目录和文件名写入
+        String msgStr = getMessagesStr(thr, parseMsgs(msgs));
+        LogDispatcher.dispatch(new LogRecord(type, tag, callSite, headStr(callSite), msgStr, dirFile, fileName));
+    }
+
+    /**
+     * 默认日志存储路径 - 外部存储不可用(返回null,如本地单元测试)时为"/Logger/",由调用方重新设置
+     */
+    private static String defaultLogPath() {
+        File dir = Environment.getExternalStorageDirectory();
+        return (dir == null ? "" : dir.getAbsolutePath()) + "/Logger/";
+    }
+
+    /**
+     * 未指定Tag时的默认Tag - 已解析调用位置时为"包名.文件名",否则为包名,不为此解析调用栈
+     */
+    private static LogTag defaultTag(LogCallSite callSite) {
+        if (callSite != null) {
+            return callSite.defaultTag;
+        }
+        LogTag tag = sAppTag;
+        if (tag == null || !tag.gTag().equals(APP_PKG_NAME)) {
+            tag = LogTag.mk(APP_PKG_NAME);
+            sAppTag = tag;
+        }
+        return tag;
     }
 
     /**
-     * 获取tagStr/msgStr/headStr
+     * 输出的头部
      *
-     * @param tag
-     * @param thr
-     * @param msgs
-     * @return
+     * @param callSite 调用位置,LOG_SHOW_LOCATION关闭时可以为null
      */
-    private static String[] wrapperContent(@NonNull LogTag tag, Throwable thr, String... msgs) {
-        int index = 5;
-        StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-        String fileName = stackTrace[index].getFileName();
-        String className = stackTrace[index].getClassName();
-        String methodName = stackTrace[index].getMethodName();
-        int lineNumber = stackTrace[index].getLineNumber();
-        String methodNameShort = methodName.substring(0, 1).toUpperCase() + methodName.substring(1);
-        StringBuilder sbHeadStr = new StringBuilder();
-        sbHeadStr.append("* [ Logger -=(").append(fileName).append(":").append(lineNumber).append(")=- ")
-                .append(methodNameShort).append(" ]");
-        String tagStr = (tag == null || tag.gTag() == null) ? APP_PKG_NAME + "." + fileName : tag.gTag();
-        String msgStr = getMessagesStr(thr, msgs);
-        return new String[]{tagStr, msgStr, sbHeadStr.toString(), className};
+    private static String headStr(LogCallSite callSite) {
+        return LOG_SHOW_LOCATION ? callSite.headStr : HEAD_NO_LOCATION;
     }
 
     /**
@@ -294,11 +542,11 @@ public final class Logger extends BaseLog {
 
     // D
     public static void d(@NonNull Object... msgs) {
-        printLog(LogType.D, null, null, parseMsgs(msgs));
+        printLog(LogType.D, null, null, msgs);
     }
 
     public static void d(@NonNull LogTag tag, @NonNull Object... msgs) {
-        printLog(LogType.D, tag, null, parseMsgs(msgs));
+        printLog(LogType.D, tag, null, msgs);
     }
 
     public static void d(@NonNull Throwable e) {
@@ -310,20 +558,48 @@ public final class Logger extends BaseLog {
     }
 
     public static void d(@NonNull Throwable e, @NonNull Object... msgs) {
-        printLog(LogType.D, null, e, parseMsgs(msgs));
+        printLog(LogType.D, null, e, msgs);
     }
 
     public static void d(@NonNull LogTag tag, @NonNull Throwable e, @NonNull Object... msgs) {
-        printLog(LogType.D, tag, e, parseMsgs(msgs));
+        printLog(LogType.D, tag, e, msgs);
+    }
+
+    /**
+     * 参数化日志,例: Logger.d(tag, "user {} took {} ms", user, time)
+     * * 先检测等级再格式化,日志关闭时不产生任何字符串
+     */
+    public static void d(@NonNull LogTag tag, @NonNull String format, Object arg1) {
+        if (isLoggable(LogType.D, tag)) {
+            printFormat(LogType.D, tag, format, 1, arg1, null, null, null);
+        }
+    }
+
+    public static void d(@NonNull LogTag tag, @NonNull String format, Object arg1, Object arg2) {
+        if (isLoggable(LogType.D, tag)) {
+            printFormat(LogType.D, tag, format, 2, arg1, arg2, null, null);
+        }
+    }
+
+    public static void d(@NonNull LogTag tag, @NonNull String format, Object arg1, Object arg2, Object arg3) {
+        if (isLoggable(LogType.D, tag)) {
+            printFormat(LogType.D, tag, format, 3, arg1, arg2, arg3, null);
+        }
+    }
+
+    public static void d(@NonNull LogTag tag, @NonNull String format, Object arg1, Object arg2, Object arg3, Object arg4) {
+        if (isLoggable(LogType.D, tag)) {
+            printFormat(LogType.D, tag, format, 4, arg1, arg2, arg3, arg4);
+        }
     }
 
     // I
     public static void i(@NonNull Object... msgs) {
-        printLog(LogType.I, null, null, parseMsgs(msgs));
+        printLog(LogType.I, null, null, msgs);
     }
 
     public static void i(@NonNull LogTag tag, @NonNull Object... msgs) {
-        printLog(LogType.I, tag, null, parseMsgs(msgs));
+        printLog(LogType.I, tag, null, msgs);
     }
 
     public static void i(@NonNull Throwable e) {
@@ -335,20 +611,48 @@ public final class Logger extends BaseLog {
     }
 
     public static void i(@NonNull Throwable e, @NonNull Object... msgs) {
-        printLog(LogType.I, null, e, parseMsgs(msgs));
+        printLog(LogType.I, null, e, msgs);
     }
 
     public static void i(@NonNull LogTag tag, @NonNull Throwable e, @NonNull Object... msgs) {
-        printLog(LogType.I, tag, e, parseMsgs(msgs));
+        printLog(LogType.I, tag, e, msgs);
+    }
+
+    /**
+     * 参数化日志,例: Logger.i(tag, "user {} took {} ms", user, time)
+     * * 先检测等级再格式化,日志关闭时不产生任何字符串
+     */
+    public static void i(@NonNull LogTag tag, @NonNull String format, Object arg1) {
+        if (isLoggable(LogType.I, tag)) {
+            printFormat(LogType.I, tag, format, 1, arg1, null, null, null);
+        }
+    }
+
+    public static void i(@NonNull LogTag tag, @NonNull String format, Object arg1, Object arg2) {
+        if (isLoggable(LogType.I, tag)) {
+            printFormat(LogType.I, tag, format, 2, arg1, arg2, null, null);
+        }
+    }
+
+    public static void i(@NonNull LogTag tag, @NonNull String format, Object arg1, Object arg2, Object arg3) {
+        if (isLoggable(LogType.I, tag)) {
+            printFormat(LogType.I, tag, format, 3, arg1, arg2, arg3, null);
+        }
+    }
+
+    public static void i(@NonNull LogTag tag, @NonNull String format, Object arg1, Object arg2, Object arg3, Object arg4) {
+        if (isLoggable(LogType.I, tag)) {
+            printFormat(LogType.I, tag, format, 4, arg1, arg2, arg3, arg4);
+        }
     }
 
     // W
     public static void w(@NonNull Object... msgs) {
-        printLog(LogType.W, null, null, parseMsgs(msgs));
+        printLog(LogType.W, null, null, msgs);
     }
 
     public static void w(@NonNull LogTag tag, @NonNull Object... msgs) {
-        printLog(LogType.W, tag, null, parseMsgs(msgs));
+        printLog(LogType.W, tag, null, msgs);
     }
 
     public static void w(@NonNull Throwable e) {
@@ -360,20 +664,48 @@ public final class Logger extends BaseLog {
     }
 
     public static void w(@NonNull Throwable e, @NonNull Object... msgs) {
-        printLog(LogType.W, null, e, parseMsgs(msgs));
+        printLog(LogType.W, null, e, msgs);
     }
 
     public static void w(@NonNull LogTag tag, @NonNull Throwable e, @NonNull Object... msgs) {
-        printLog(LogType.W, tag, e, parseMsgs(msgs));
+        printLog(LogType.W, tag, e, msgs);
+    }
+
+    /**
+     * 参数化日志,例: Logger.w(tag, "user {} took {} ms", user, time)
+     * * 先检测等级再格式化,日志关闭时不产生任何字符串
+     */
+    public static void w(@NonNull LogTag tag, @NonNull String format, Object arg1) {
+        if (isLoggable(LogType.W, tag)) {
+            printFormat(LogType.W, tag, format, 1, arg1, null, null, null);
+        }
+    }
+
+    public static void w(@NonNull LogTag tag, @NonNull String format, Object arg1, Object arg2) {
+        if (isLoggable(LogType.W, tag)) {
+            printFormat(LogType.W, tag, format, 2, arg1, arg2, null, null);
+        }
+    }
+
+    public static void w(@NonNull LogTag tag, @NonNull String format, Object arg1, Object arg2, Object arg3) {
+        if (isLoggable(LogType.W, tag)) {
+            printFormat(LogType.W, tag, format, 3, arg1, arg2, arg3, null);
+        }
+    }
+
+    public static void w(@NonNull LogTag tag, @NonNull String format, Object arg1, Object arg2, Object arg3, Object arg4) {
+        if (isLoggable(LogType.W, tag)) {
+            printFormat(LogType.W, tag, format, 4, arg1, arg2, arg3, arg4);
+        }
     }
 
     // E
     public static void e(@NonNull Object... msgs) {
-        printLog(LogType.E, null, null, parseMsgs(msgs));
+        printLog(LogType.E, null, null, msgs);
     }
 
     public static void e(@NonNull LogTag tag, @NonNull Object... msgs) {
-        printLog(LogType.E, tag, null, parseMsgs(msgs));
+        printLog(LogType.E, tag, null, msgs);
     }
 
     public static void e(@NonNull Throwable e) {
@@ -385,20 +717,48 @@ public final class Logger extends BaseLog {
     }
 
     public static void e(@NonNull Throwable e, @NonNull Object... msgs) {
-        printLog(LogType.E, null, e, parseMsgs(msgs));
+        printLog(LogType.E, null, e, msgs);
     }
 
     public static void e(@NonNull LogTag tag, @NonNull Throwable e, @NonNull Object... msgs) {
-        printLog(LogType.E, tag, e, parseMsgs(msgs));
+        printLog(LogType.E, tag, e, msgs);
+    }
+
+    /**
+     * 参数化日志,例: Logger.e(tag, "user {} took {} ms", user, time)
+     * * 先检测等级再格式化,日志关闭时不产生任何字符串
+     */
+    public static void e(@NonNull LogTag tag, @NonNull String format, Object arg1) {
+        if (isLoggable(LogType.E, tag)) {
+            printFormat(LogType.E, tag, format, 1, arg1, null, null, null);
+        }
+    }
+
+    public static void e(@NonNull LogTag tag, @NonNull String format, Object arg1, Object arg2) {
+        if (isLoggable(LogType.E, tag)) {
+            printFormat(LogType.E, tag, format, 2, arg1, arg2, null, null);
+        }
+    }
+
+    public static void e(@NonNull LogTag tag, @NonNull String format, Object arg1, Object arg2, Object arg3) {
+        if (isLoggable(LogType.E, tag)) {
+            printFormat(LogType.E, tag, format, 3, arg1, arg2, arg3, null);
+        }
+    }
+
+    public static void e(@NonNull LogTag tag, @NonNull String format, Object arg1, Object arg2, Object arg3, Object arg4) {
+        if (isLoggable(LogType.E, tag)) {
+            printFormat(LogType.E, tag, format, 4, arg1, arg2, arg3, arg4);
+        }
     }
 
     // A
     public static void a(@NonNull Object... msgs) {
-        printLog(LogType.A, null, null, parseMsgs(msgs));
+        printLog(LogType.A, null, null, msgs);
     }
 
     public static void a(@NonNull LogTag tag, @NonNull Object... msgs) {
-        printLog(LogType.A, tag, null, parseMsgs(msgs));
+        printLog(LogType.A, tag, null, msgs);
     }
 
     public static void a(@NonNull Throwable e) {
@@ -410,11 +770,39 @@ public final class Logger extends BaseLog {
     }
 
     public static void a(@NonNull Throwable e, @NonNull Object... msgs) {
-        printLog(LogType.A, null, e, parseMsgs(msgs));
+        printLog(LogType.A, null, e, msgs);
     }
 
     public static void a(@NonNull LogTag tag, @NonNull Throwable e, @NonNull Object... msgs) {
-        printLog(LogType.A, tag, e, parseMsgs(msgs));
+        printLog(LogType.A, tag, e, msgs);
+    }
+
+    /**
+     * 参数化日志,例: Logger.a(tag, "user {} took {} ms", user, time)
+     * * 先检测等级再格式化,日志关闭时不产生任何字符串
+     */
+    public static void a(@NonNull LogTag tag, @NonNull String format, Object arg1) {
+        if (isLoggable(LogType.A, tag)) {
+            printFormat(LogType.A, tag, format, 1, arg1, null, null, null);
+        }
+    }
+
+    public static void a(@NonNull LogTag tag, @NonNull String format, Object arg1, Object arg2) {
+        if (isLoggable(LogType.A, tag)) {
+            printFormat(LogType.A, tag, format, 2, arg1, arg2, null, null);
+        }
+    }
+
+    public static void a(@NonNull LogTag tag, @NonNull String format, Object arg1, Object arg2, Object arg3) {
+        if (isLoggable(LogType.A, tag)) {
+            printFormat(LogType.A, tag, format, 3, arg1, arg2, arg3, null);
+        }
+    }
+
+    public static void a(@NonNull LogTag tag, @NonNull String format, Object arg1, Object arg2, Object arg3, Object arg4) {
+        if (isLoggable(LogType.A, tag)) {
+            printFormat(LogType.A, tag, format, 4, arg1, arg2, arg3, arg4);
+        }
     }
 
 }
@@ -11,21 +11,13 @@ import android.support.annotation.NonNull;
  */
 public final class XmlLog {
 
-    private static final String LINE_SEPARATOR = System.getProperty("line.separator");//行分隔
-
     public static void printXml(@NonNull LogTag tag, @NonNull String headString, @NonNull String xml) {
-        String message;
+        BaseLog.printLine(LogType.XML, tag, true);
+        BaseLog.printSub(LogType.XML, tag, "║ " + headString);
         if (xml == null) {
-            message = headString + LINE_SEPARATOR + " Log with null object";
+            BaseLog.printSub(LogType.XML, tag, "║  Log with null object");
         } else {
-            message = headString + LINE_SEPARATOR + xml;
-        }
-        BaseLog.printLine(LogType.XML, tag, true);
-        String[] lines = message.split(LINE_SEPARATOR);
-        for (String line : lines) {
-            if (!BaseLog.isEmpty(line)) {
-                BaseLog.printSub(LogType.XML, tag, "║ " + line);
-            }
+            LogPrettyPrinter.printXml(LogType.XML, tag, xml);
         }
         BaseLog.printLine(LogType.XML, tag, false);
     }
@@ -0,0 +1,47 @@
+package com.acmenxd.retrofit;
+
+import android.support.annotation.NonNull;
+
+import okhttp3.Request;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/1 10:20
+ * @detail Request的tag,由NetManager创建Call时设置
+ * * 拦截器重建Request时tag保持不变,拦截器通过此类获取IRequest方法的信息
+ */
+public final class NetCallTag {
+    /**
+     * 接口模板,格式"请求方式 相对地址",如"GET user/{id}"; 非IRequest发起的请求为null
+     */
+    public final String template;
+    /**
+     * 是否为Streaming请求(IRequest方法上有@Streaming注解)
+     */
+    public final boolean streaming;
+
+    public NetCallTag(String pTemplate, boolean pStreaming) {
+        template = pTemplate;
+        streaming = pStreaming;
+    }
+
+    /**
+     * 获取Request的NetCallTag
+     *
+     * @return 不是由NetManager创建的Request返回null
+     */
+    public static NetCallTag of(@NonNull Request request) {
+        Object tag = request.tag();
+        return tag instanceof NetCallTag ? (NetCallTag) tag : null;
+    }
+
+    /**
+     * 是否为Streaming请求
+     */
+    public static boolean isStreaming(@NonNull Request request) {
+        NetCallTag tag = of(request);
+        return tag != null && tag.streaming;
+    }
+}
@@ -6,18 +6,27 @@ import android.support.annotation.IntRange;
 import android.support.annotation.NonNull;
 
 import com.acmenxd.logger.LogTag;
+import com.acmenxd.logger.Logger;
 import com.acmenxd.retrofit.converter.CustomConverterFactory;
 import com.acmenxd.retrofit.cookie.NetCookieJar;
-import com.acmenxd.retrofit.interceptor.BodyInterceptor;
-import com.acmenxd.retrofit.interceptor.HeaderInterceptor;
 import com.acmenxd.retrofit.interceptor.LoggerInterceptor;
-import com.acmenxd.retrofit.interceptor.ParameterInterceptor;
+import com.acmenxd.retrofit.interceptor.MutualInterceptor;
+import com.acmenxd.retrofit.metrics.NetEndpointMetrics;
+import com.acmenxd.retrofit.metrics.NetMetrics;
+import com.acmenxd.retrofit.metrics.NetMetricsCallAdapterFactory;
+import com.acmenxd.retrofit.metrics.NetMetricsDns;
+import com.acmenxd.retrofit.metrics.NetMetricsInterceptor;
 
 import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.Dns;
 import okhttp3.OkHttpClient;
+import okhttp3.Request;
 import retrofit2.Retrofit;
 import retrofit2.adapter.rxjava.RxJavaCallAdapterFactory;
 
@@ -57,52 +66,299 @@ public enum NetManager {
     public int read_timeout = 30;
     // 写入超时时间(秒)
     public int write_timeout = 30;
+    // preloadRequests时是否在后台线程解析IRequest的所有方法(方法声明有误时立即报错); request获取的实例始终在首次调用时解析
+    public boolean net_validate_eagerly = false;
+    // Net Log 中请求体/响应体最多输出的字节数,超出部分不复制
+    public long net_log_body_limit = 32 * 1024;
+    // NetMutualCallback公共参数的缓存时间(毫秒),按完整url缓存; 默认0表示每次请求都获取,回调结果只由url决定时才可开启
+    public long net_mutual_cache_time = 0;
+    // 是否统计请求各阶段耗时(DNS/建立连接/发送/首字节/响应体),通过getMetrics获取
+    public boolean net_metrics_open = false;
     // 统一处理NetCode回调
     public NetCodeParse.parseNetCode parseNetCode;
     public NetMutualCallback mutualCallback;
 
-    private Retrofit mRetrofit;
+    /**
+     * 单次请求超时时间(秒)的请求头,格式"connect,read,write",发送前移除
+     * * 用法: 在IRequest的方法上添加 @Headers(NetManager.TIMEOUT_HEADER + ": 10,60,60")
+     */
+    public static final String TIMEOUT_HEADER = "Net-Timeout";
+
+    // 基础OkHttpClient,其他超时配置的实例由此派生,共享连接池/线程池/缓存
+    private OkHttpClient mClient;
+    // 派生的OkHttpClient,key为超时配置
+    private final Map<String, OkHttpClient> mClients = new ConcurrentHashMap<>();
+    // 默认超时配置的Retrofit及Request实例
+    private volatile NetConfig mDefaultConfig;
+    // 其他超时配置的Retrofit及Request实例,key为超时配置
+    private final Map<String, NetConfig> mConfigs = new ConcurrentHashMap<>();
 
     /**
      * 根据IRequest类获取Request实例
+     * * 同一IRequest类只创建一次
      */
     public <T> T request(@NonNull Class<T> pIRequest) {
-        if (mRetrofit == null) {
-            mRetrofit = createRetrofit(createClient(connect_timeout, read_timeout, write_timeout));
-        }
-        return mRetrofit.create(pIRequest);
+        return service(defaultConfig(), pIRequest);
     }
 
     /**
-     * 创建新的Retrofit实例
      * 根据IRequest类获取Request实例
+     * * 与request相同,不再创建新的Retrofit实例
      */
     public <T> T newRequest(@NonNull Class<T> pIRequest) {
-        return newRequest(connect_timeout, read_timeout, write_timeout, pIRequest);
+        return request(pIRequest);
     }
 
     /**
-     * 创建新的Retrofit实例,并设置超时时间
-     * 根据IRequest类获取Request实例
+     * 根据IRequest类获取Request实例,并设置超时时间
+     * * 不影响其他请求的超时时间;同一超时配置与IRequest类只创建一次
      */
     public <T> T newRequest(@IntRange(from = 0) int connectTimeout, @IntRange(from = 0) int readTimeout, @IntRange(from = 0) int writeTimeout, @NonNull Class<T> pIRequest) {
-        mRetrofit = createRetrofit(createClient(connectTimeout, readTimeout, writeTimeout));
-        return mRetrofit.create(pIRequest);
+        return service(config(connectTimeout, readTimeout, writeTimeout), pIRequest);
+    }
+
+    /**
+     * 在后台线程预先创建Request实例,开启net_validate_eagerly时并解析IRequest的所有方法
+     * * 方法声明有误时在此输出错误日志,而不是等到首次调用时
+     */
+    public void preloadRequests(@NonNull final Class<?>... pIRequests) {
+        if (pIRequests == null || pIRequests.length <= 0) {
+            return;
+        }
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                NetConfig config = defaultConfig();
+                Retrofit retrofit = net_validate_eagerly ? config.eagerRetrofit() : config.retrofit;
+                for (Class<?> iRequest : pIRequests) {
+                    if (config.services.containsKey(iRequest)) {
+                        continue;
+                    }
+                    try {
+                        config.services.putIfAbsent(iRequest, retrofit.create(iRequest));
+                    } catch (RuntimeException pE) {
+                        Logger.e(net_log_tag, pE, "IRequest解析失败:" + iRequest.getName());
+                    }
+                }
+            }
+        }, "NetManager-Preload");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 清除NetMutualCallback公共参数的缓存 - 公共参数变化(如登录/获取到设备信息)后调用
+     */
+    public void clearMutualCache() {
+        MutualInterceptor.clearCache();
+    }
+
+    /**
+     * 获取请求统计的快照 - key为接口模板("请求方式 相对地址"),各阶段耗时单位为微秒
+     * * 需开启net_metrics_open
+     */
+    public Map<String, NetEndpointMetrics.Snapshot> getMetrics() {
+        return NetMetrics.snapshot();
+    }
+
+    /**
+     * 清空请求统计 - 如统计上报后调用
+     */
+    public void resetMetrics() {
+        NetMetrics.reset();
+    }
+
+    /**
+     * 获取缓存的Request实例,不存在时创建
+     */
+    private static <T> T service(@NonNull NetConfig config, @NonNull Class<T> pIRequest) {
+        Object service = config.services.get(pIRequest);
+        if (service == null) {
+            service = config.retrofit.create(pIRequest);
+            Object old = config.services.putIfAbsent(pIRequest, service);
+            if (old != null) {
+                service = old;
+            }
+        }
+        return pIRequest.cast(service);
+    }
+
+    /**
+     * 获取默认超时时间的配置
+     */
+    private NetConfig defaultConfig() {
+        NetConfig config = mDefaultConfig;
+        if (config == null) {
+            synchronized (this) {
+                config = mDefaultConfig;
+                if (config == null) {
+                    config = new NetConfig(new TimeoutCallFactory(baseClient()));
+                    mDefaultConfig = config;
+                }
+            }
+        }
+        return config;
+    }
+
+    /**
+     * 获取指定超时时间的配置
+     */
+    private NetConfig config(int connectTimeout, int readTimeout, int writeTimeout) {
+        if (connectTimeout == connect_timeout && readTimeout == read_timeout && writeTimeout == write_timeout) {
+            return defaultConfig();
+        }
+        String key = timeoutKey(connectTimeout, readTimeout, writeTimeout);
+        NetConfig config = mConfigs.get(key);
+        if (config == null) {
+            synchronized (this) {
+                config = mConfigs.get(key);
+                if (config == null) {
+                    config = new NetConfig(new TimeoutCallFactory(client(connectTimeout, readTimeout, writeTimeout)));
+                    mConfigs.put(key, config);
+                }
+            }
+        }
+        return config;
+    }
+
+    /**
+     * 一种超时配置对应的Retrofit及其创建的Request实例
+     */
+    private static final class NetConfig {
+        final Call.Factory callFactory;
+        // 首次调用方法时才解析,创建Request实例不阻塞调用线程
+        final Retrofit retrofit;
+        // key为IRequest类
+        final ConcurrentHashMap<Class<?>, Object> services = new ConcurrentHashMap<>();
+        // 创建时解析所有方法的Retrofit,仅预加载时使用
+        private Retrofit mEagerRetrofit;
+
+        NetConfig(@NonNull Call.Factory pCallFactory) {
+            callFactory = pCallFactory;
+            retrofit = INSTANCE.createRetrofit(pCallFactory, false);
+        }
+
+        synchronized Retrofit eagerRetrofit() {
+            if (mEagerRetrofit == null) {
+                mEagerRetrofit = INSTANCE.createRetrofit(callFactory, true);
+            }
+            return mEagerRetrofit;
+        }
+    }
+
+    /**
+     * 获取基础OkHttpClient
+     */
+    private synchronized OkHttpClient baseClient() {
+        if (mClient == null) {
+            mClient = createClient(connect_timeout, read_timeout, write_timeout);
+        }
+        return mClient;
+    }
+
+    /**
+     * 获取指定超时时间的OkHttpClient - 由基础实例派生,共享连接池/线程池/缓存
+     */
+    private OkHttpClient client(int connectTimeout, int readTimeout, int writeTimeout) {
+        OkHttpClient base = baseClient();
+        if (base.connectTimeoutMillis() == TimeUnit.SECONDS.toMillis(connectTimeout)
+                && base.readTimeoutMillis() == TimeUnit.SECONDS.toMillis(readTimeout)
+                && base.writeTimeoutMillis() == TimeUnit.SECONDS.toMillis(writeTimeout)) {
+            return base;
+        }
+        String key = timeoutKey(connectTimeout, readTimeout, writeTimeout);
+        OkHttpClient client = mClients.get(key);
+        if (client == null) {
+            synchronized (this) {
+                client = mClients.get(key);
+                if (client == null) {
+                    client = base.newBuilder()
+                            .connectTimeout(connectTimeout, TimeUnit.SECONDS)
+                            .readTimeout(readTimeout, TimeUnit.SECONDS)
+                            .writeTimeout(writeTimeout, TimeUnit.SECONDS)
+                            .build();
+                    mClients.put(key, client);
+                }
+            }
+        }
+        return client;
+    }
+
+    private static String timeoutKey(int connectTimeout, int readTimeout, int writeTimeout) {
+        return connectTimeout + "," + readTimeout + "," + writeTimeout;
+    }
+
+    /**
+     * 按请求头TIMEOUT_HEADER选择OkHttpClient,未设置时使用默认实例
+     * * IRequest方法的接口模板及@Streaming记入Request的tag(NetCallTag)
+     */
+    private static final class TimeoutCallFactory implements Call.Factory {
+        private final OkHttpClient mDefault;
+
+        TimeoutCallFactory(@NonNull OkHttpClient pDefault) {
+            mDefault = pDefault;
+        }
+
+        @Override
+        public Call newCall(Request request) {
+            NetCallTag tag = NetMetricsCallAdapterFactory.currentTag();
+            String timeout = request.header(TIMEOUT_HEADER);
+            if (tag != null || timeout != null) {
+                // tag与移除请求头在同一次重建中完成
+                Request.Builder builder = request.newBuilder();
+                if (tag != null) {
+                    builder.tag(tag);
+                }
+                if (timeout != null) {
+                    builder.removeHeader(TIMEOUT_HEADER);
+                }
+                request = builder.build();
+            }
+            OkHttpClient client = timeout == null ? null : timeoutClient(timeout);
+            return (client == null ? mDefault : client).newCall(request);
+        }
+
+        /**
+         * 按"connect,read,write"获取OkHttpClient
+         *
+         * @return 格式错误返回null
+         */
+        private static OkHttpClient timeoutClient(@NonNull String timeout) {
+            String[] values = timeout.split(",");
+            if (values.length != 3) {
+                return null;
+            }
+            try {
+                int connectTimeout = Integer.parseInt(values[0].trim());
+                int readTimeout = Integer.parseInt(values[1].trim());
+                int writeTimeout = Integer.parseInt(values[2].trim());
+                if (connectTimeout < 0 || readTimeout < 0 || writeTimeout < 0) {
+                    return null;
+                }
+                return INSTANCE.client(connectTimeout, readTimeout, writeTimeout);
+            } catch (NumberFormatException pE) {
+                return null;
+            }
+        }
     }
 
     /**
      * 创建 Retrofit实例
      */
-    private Retrofit createRetrofit(@NonNull OkHttpClient client) {
+    private Retrofit createRetrofit(@NonNull Call.Factory callFactory, boolean validateEagerly) {
         Retrofit retrofit = new Retrofit.Builder()
                 // 设置baseUrl
                 .baseUrl(base_url)
+                // 请求统计的接口模板 -> 需在其他CallAdapterFactory前面
+                .addCallAdapterFactory(NetMetricsCallAdapterFactory.create())
                 // 使用RxJava
                 .addCallAdapterFactory(RxJavaCallAdapterFactory.create())
                 // 网络数据解析总类
                 .addConverterFactory(CustomConverterFactory.create())
                 // 设置OkHttpClient
-                .client(client)
+                .callFactory(callFactory)
+                // 创建Request实例时解析所有方法
+                .validateEagerly(validateEagerly)
                 // 构建
                 .build();
         return retrofit;
@@ -113,12 +369,12 @@ public enum NetManager {
      */
     private OkHttpClient createClient(@IntRange(from = 0) int connectTimeout, @IntRange(from = 0) int readTimeout, @IntRange(from = 0) int writeTimeout) {
         OkHttpClient.Builder mClientBuilder = new OkHttpClient.Builder();
-        // 添加参数
-        mClientBuilder.addInterceptor(new ParameterInterceptor());
-        // 添加请求头
-        mClientBuilder.addInterceptor(new HeaderInterceptor());
-        // 添加Body参数
-        mClientBuilder.addInterceptor(new BodyInterceptor());
+        // 请求统计 -> 需在最前面,总耗时包含其他拦截器
+        if (net_metrics_open) {
+            mClientBuilder.addInterceptor(new NetMetricsInterceptor());
+        }
+        // 添加公共参数/请求头/Body参数
+        mClientBuilder.addInterceptor(new MutualInterceptor());
         // 设置Log日志 -> 需在Gzip前面,否则输出信息因为Gzip压缩导致乱码
         if (net_log_details_all) {
             // 如启用此日志方式,Gzip也开启的情况下,输入日志会有乱码
@@ -126,6 +382,11 @@ public enum NetManager {
         } else {
             mClientBuilder.addInterceptor(new LoggerInterceptor());
         }
+        // 请求统计 -> 需在其他网络拦截器后面,DNS/建立连接计时
+        if (net_metrics_open) {
+            mClientBuilder.addNetworkInterceptor(new NetMetricsInterceptor.Network());
+            mClientBuilder.dns(new NetMetricsDns(Dns.SYSTEM));
+        }
         // 启用Gzip压缩
         // mClientBuilder.addInterceptor(new GzipInterceptor());
         // 设置缓存
@@ -8,6 +8,9 @@ import java.util.Map;
  * @github https://github.com/AcmenXD
  * @date 2017/7/6 16:41
  * @detail Retrofit公共参数回调类
+ * * 默认每次请求都会回调,返回值可以依赖url以外的状态(如登录token、时间戳签名)
+ * * 开启NetManager.net_mutual_cache_time后,同一完整url在有效期内只回调一次,返回值必须只由url决定;
+ * * 开启时依赖的状态变化后需调用MutualInterceptor.clearCache()
  */
 public abstract class NetMutualCallback {
     /**
@@ -0,0 +1,68 @@
+package com.acmenxd.retrofit.cookie;
+
+import android.support.annotation.NonNull;
+
+import com.acmenxd.sptool.SpBinaryCodec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import okhttp3.Cookie;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/27 15:10
+ * @detail Cookie的sp二进制编解码
+ * * 格式: 版本(1字节) + 标记位(1字节) + name + value + domain + path(UTF) + expiresAt(long)
+ */
+final class CookieCodec extends SpBinaryCodec<Cookie> {
+    private static final int VERSION = 1;
+    private static final int FLAG_SECURE = 1;
+    private static final int FLAG_HTTP_ONLY = 1 << 1;
+    private static final int FLAG_HOST_ONLY = 1 << 2;
+    private static final int FLAG_PERSISTENT = 1 << 3;
+
+    @Override
+    protected void write(@NonNull DataOutput pOut, @NonNull Cookie pValue) throws IOException {
+        int flags = (pValue.secure() ? FLAG_SECURE : 0)
+                | (pValue.httpOnly() ? FLAG_HTTP_ONLY : 0)
+                | (pValue.hostOnly() ? FLAG_HOST_ONLY : 0)
+                | (pValue.persistent() ? FLAG_PERSISTENT : 0);
+        pOut.writeByte(VERSION);
+        pOut.writeByte(flags);
+        pOut.writeUTF(pValue.name());
+        pOut.writeUTF(pValue.value());
+        pOut.writeUTF(pValue.domain());
+        pOut.writeUTF(pValue.path());
+        pOut.writeLong(pValue.expiresAt());
+    }
+
+    @Override
+    protected Cookie read(@NonNull DataInput pIn) throws IOException {
+        int version = pIn.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unknown cookie version: " + version);
+        }
+        int flags = pIn.readUnsignedByte();
+        String name = pIn.readUTF();
+        String value = pIn.readUTF();
+        String domain = pIn.readUTF();
+        String path = pIn.readUTF();
+        long expiresAt = pIn.readLong();
+        Cookie.Builder builder = new Cookie.Builder().name(name).value(value).path(path);
+        builder = (flags & FLAG_HOST_ONLY) != 0 ? builder.hostOnlyDomain(domain) : builder.domain(domain);
+        if ((flags & FLAG_PERSISTENT) != 0) {
+            builder = builder.expiresAt(expiresAt);
+        }
+        if ((flags & FLAG_SECURE) != 0) {
+            builder = builder.secure();
+        }
+        if ((flags & FLAG_HTTP_ONLY) != 0) {
+            builder = builder.httpOnly();
+        }
+        return builder.build();
+    }
+}
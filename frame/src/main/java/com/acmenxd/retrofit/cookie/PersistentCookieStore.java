@@ -8,14 +8,11 @@ import com.acmenxd.sptool.SpManager;
 import com.acmenxd.sptool.SpTool;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -35,26 +32,44 @@ public final class PersistentCookieStore {
     private final Map<String, ConcurrentHashMap<String, Cookie>> cookies;
 
     public PersistentCookieStore() {
+        SpManager.registerObjectCodec(Cookie.class, new CookieCodec());
         cookieSp = SpManager.getSp(cookieSpName);
         cookies = new HashMap<>();
 
         // 将持久化的cookies缓存到内存中 即map cookies
         Map<String, ?> prefsMap = cookieSp.getAll();
+        // 旧版序列化+十六进制格式的cookie,重写为二进制格式
+        SpTool.Batch migration = null;
         for (Map.Entry<String, ?> entry : prefsMap.entrySet()) {
+            if (!(entry.getValue() instanceof String)) {
+                continue;
+            }
             String[] cookieNames = TextUtils.split((String) entry.getValue(), ",");
             for (String name : cookieNames) {
-                String encodedCookie = cookieSp.getString(name, null);
-                if (encodedCookie != null) {
-                    Cookie decodedCookie = decodeCookie(encodedCookie);
-                    if (decodedCookie != null) {
-                        if (!cookies.containsKey(entry.getKey())) {
-                            cookies.put(entry.getKey(), new ConcurrentHashMap<String, Cookie>());
+                Cookie decodedCookie = cookieSp.getObject(name, Cookie.class, null);
+                if (decodedCookie == null) {
+                    String encodedCookie = cookieSp.getString(name, null);
+                    if (encodedCookie != null) {
+                        decodedCookie = decodeCookie(encodedCookie);
+                        if (decodedCookie != null) {
+                            if (migration == null) {
+                                migration = cookieSp.batch();
+                            }
+                            migration.putObject(name, decodedCookie);
                         }
-                        cookies.get(entry.getKey()).put(name, decodedCookie);
                     }
                 }
+                if (decodedCookie != null) {
+                    if (!cookies.containsKey(entry.getKey())) {
+                        cookies.put(entry.getKey(), new ConcurrentHashMap<String, Cookie>());
+                    }
+                    cookies.get(entry.getKey()).put(name, decodedCookie);
+                }
             }
         }
+        if (migration != null) {
+            migration.apply();
+        }
     }
 
     /* 此种方式会导致程序崩溃
@@ -93,9 +108,11 @@ public final class PersistentCookieStore {
             cookies.put(url.host(), new ConcurrentHashMap<String, Cookie>());
         }
         cookies.get(url.host()).put(name, cookie);
-        //将cookies持久化到本地
-        cookieSp.putString(url.host(), TextUtils.join(",", cookies.get(url.host()).keySet()));
-        cookieSp.putString(name, encodeCookie(new NetCookies(cookie)));
+        //将cookies持久化到本地 - 合并为一次异步写入
+        cookieSp.batch()
+                .putString(url.host(), TextUtils.join(",", cookies.get(url.host()).keySet()))
+                .putObject(name, cookie)
+                .apply();
     }
 
     public List<Cookie> get(@NonNull HttpUrl url) {
@@ -115,10 +132,11 @@ public final class PersistentCookieStore {
         String name = getCookieToken(cookie);
         if (cookies.containsKey(url.host()) && cookies.get(url.host()).containsKey(name)) {
             cookies.get(url.host()).remove(name);
+            SpTool.Batch batch = cookieSp.batch();
             if (cookieSp.contains(name)) {
-                cookieSp.remove(name);
+                batch.remove(name);
             }
-            cookieSp.putString(url.host(), TextUtils.join(",", cookies.get(url.host()).keySet()));
+            batch.putString(url.host(), TextUtils.join(",", cookies.get(url.host()).keySet())).apply();
             return true;
         } else {
             return false;
@@ -134,27 +152,7 @@ public final class PersistentCookieStore {
     }
 
     /**
-     * cookies 序列化成 string
-     *
-     * @param cookie 要序列化的cookie
-     * @return 序列化之后的string
-     */
-    protected String encodeCookie(@NonNull NetCookies cookie) {
-        if (cookie == null)
-            return null;
-        ByteArrayOutputStream os = new ByteArrayOutputStream();
-        try {
-            ObjectOutputStream outputStream = new ObjectOutputStream(os);
-            outputStream.writeObject(cookie);
-        } catch (IOException pE) {
-            Logger.e(pE);
-            return null;
-        }
-        return byteArrayToHexString(os.toByteArray());
-    }
-
-    /**
-     * 将字符串反序列化成cookies
+     * 将旧版字符串反序列化成cookies - 仅用于读取旧数据,新数据由CookieCodec编码
      *
      * @param cookieString cookies string
      * @return cookie object
@@ -174,24 +172,6 @@ public final class PersistentCookieStore {
         return cookie;
     }
 
-    /**
-     * 二进制数组转十六进制字符串
-     *
-     * @param bytes byte array to be converted
-     * @return string containing hex values
-     */
-    protected String byteArrayToHexString(@NonNull byte[] bytes) {
-        StringBuilder sb = new StringBuilder(bytes.length * 2);
-        for (byte element : bytes) {
-            int v = element & 0xff;
-            if (v < 16) {
-                sb.append('0');
-            }
-            sb.append(Integer.toHexString(v));
-        }
-        return sb.toString().toUpperCase(Locale.US);
-    }
-
     /**
      * 十六进制字符串转二进制数组
      *
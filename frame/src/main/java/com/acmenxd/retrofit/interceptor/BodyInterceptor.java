@@ -23,7 +23,9 @@ import okio.Buffer;
  * @github https://github.com/AcmenXD
  * @date 2016/12/13 18:11
  * @detail 统一添加body拦截器
+ * @deprecated 已合并到MutualInterceptor
  */
+@Deprecated
 public final class BodyInterceptor implements Interceptor {
     @Override
     public Response intercept(Chain chain) throws IOException {
@@ -16,7 +16,9 @@ import okhttp3.Response;
  * @github https://github.com/AcmenXD
  * @date 2016/12/13 18:11
  * @detail 统一添加Header拦截器
+ * @deprecated 已合并到MutualInterceptor
  */
+@Deprecated
 public final class HeaderInterceptor implements Interceptor {
     @Override
     public Response intercept(Chain chain) throws IOException {
@@ -6,6 +6,7 @@ import android.text.format.Formatter;
 
 import com.acmenxd.logger.LogTag;
 import com.acmenxd.logger.Logger;
+import com.acmenxd.retrofit.NetCallTag;
 import com.acmenxd.retrofit.NetManager;
 
 import java.io.EOFException;
@@ -26,6 +27,8 @@ import okhttp3.ResponseBody;
 import okhttp3.internal.http.HttpHeaders;
 import okio.Buffer;
 import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
 
 /**
  * @author AcmenXD
@@ -33,72 +36,67 @@ import okio.BufferedSource;
  * @github https://github.com/AcmenXD
  * @date 2016/12/13 18:11
  * @detail 日志输出拦截器
+ * * 响应体在调用方读取时同步复制前net_log_body_limit个字节,读取完毕/关闭时输出日志,不会提前读取整个响应体
+ * * Streaming请求(@Streaming方法)与非文本类型的响应体不复制
  */
 public final class LoggerInterceptor implements Interceptor {
+    private static final String CHAR_STR = "非字符型数据,无法输出为Log形式!";
+
     @Override
     public Response intercept(Chain chain) throws IOException {
-        boolean net_log_open = Logger.LOG_OPEN;
-        boolean logDetails = NetManager.INSTANCE.net_log_details;
-        LogTag logTag = NetManager.INSTANCE.net_log_tag;
-        Context context = NetManager.INSTANCE.context;
-        // 日志String
-        StringBuilder sb = new StringBuilder();
         // 请求request
         Request request = chain.request();
-        if (!net_log_open) {
+        if (!Logger.LOG_OPEN) {
             // 日志关闭,直接返回
             return chain.proceed(request);
         }
-        Logger.w(logTag, "请求已发起:" + request.url());
-        if (logDetails) {
-            sb.append("请求方式: ").append(request.method()).append("\n");
-            Connection requestConnection = chain.connection();
-            Protocol requestProtocol = requestConnection == null ? Protocol.HTTP_1_1 : requestConnection.protocol();
-            sb.append("请求协议: ").append(requestProtocol).append("\n");
+        LogTag logTag = NetManager.INSTANCE.net_log_tag;
+        Logger.w(logTag, "请求已发起:{}", request.url());
+        if (!NetManager.INSTANCE.net_log_details) {
+            return interceptSimple(chain, request, logTag);
         }
+        Context context = NetManager.INSTANCE.context;
+        long bodyLimit = NetManager.INSTANCE.net_log_body_limit;
+        boolean streaming = NetCallTag.isStreaming(request);
+        // 日志String
+        StringBuilder sb = new StringBuilder();
+        sb.append("请求方式: ").append(request.method()).append("\n");
+        Connection requestConnection = chain.connection();
+        Protocol requestProtocol = requestConnection == null ? Protocol.HTTP_1_1 : requestConnection.protocol();
+        sb.append("请求协议: ").append(requestProtocol).append("\n");
         sb.append("请求地址: ").append(request.url()).append("\n");
-        String charStr = "非字符型数据,无法输出为Log形式!";
-        // 显示详情
-        if (logDetails) {
-            // 请求头
-            Headers requestHeaders = request.headers();
-            int requestHeadersCount = requestHeaders.size();
-            if (requestHeaders != null && requestHeadersCount > 0) {
-                sb.append("RequestHeaders:").append("\n");
-                for (int i = 0; i < requestHeadersCount; i++) {
-                    if (!requestHeaders.name(i).equals("Content-Type") && !requestHeaders.name(i).equals("Content-Length")) {
-                        sb.append("\t").append(requestHeaders.name(i)).append(": ").append(requestHeaders.value(i)).append("\n");
-                    }
-                }
+        // 请求头
+        Headers requestHeaders = request.headers();
+        appendHeaders(sb, "RequestHeaders:", requestHeaders);
+        // 请求体
+        RequestBody requestBody = request.body();
+        if (requestBody != null) {
+            sb.append("RequestBody:").append("\n");
+            MediaType contentType = requestBody.contentType();
+            long contentLength = requestBody.contentLength();
+            Charset charset = null;
+            if (contentType != null) {
+                sb.append("\tContent-Type: ").append(contentType).append("\n");
+                charset = contentType.charset(Charset.forName("UTF-8"));
             }
-            // 请求体
-            RequestBody requestBody = request.body();
-            if (requestBody != null) {
-                sb.append("RequestBody:").append("\n");
-                MediaType contentType = requestBody.contentType();
-                long contentLength = requestBody.contentLength();
-                Charset charset = null;
-                if (contentType != null) {
-                    sb.append("\tContent-Type: ").append(contentType).append("\n");
-                    charset = contentType.charset(Charset.forName("UTF-8"));
-                }
-                if (contentLength != -1) {
-                    sb.append("\tContent-Length: ").append(Formatter.formatFileSize(context, contentLength)).append("\n");
-                } else {
-                    sb.append("\tContent-Length: ").append("unknown-length").append("\n");
-                }
-                if (charset != null) {
-                    if (!bodyEncoded(requestHeaders) && !(requestBody instanceof MultipartBody)) {
-                        Buffer buffer = new Buffer();
-                        requestBody.writeTo(buffer);
-                        if (isPlaintext(buffer)) {
-                            sb.append("\tParameters: ").append(buffer.clone().readString(charset)).append("\n");
-                        } else {
-                            sb.append("\tParameters: ").append(charStr).append("\n");
-                        }
+            if (contentLength != -1) {
+                sb.append("\tContent-Length: ").append(Formatter.formatFileSize(context, contentLength)).append("\n");
+            } else {
+                sb.append("\tContent-Length: ").append("unknown-length").append("\n");
+            }
+            if (charset != null) {
+                if (!bodyEncoded(requestHeaders) && !(requestBody instanceof MultipartBody) && !streaming
+                        && contentLength >= 0 && contentLength <= bodyLimit) {
+                    // 长度已知且不超过上限时才复制请求体
+                    Buffer buffer = new Buffer();
+                    requestBody.writeTo(buffer);
+                    if (isPlaintext(buffer)) {
+                        sb.append("\tParameters: ").append(buffer.readString(charset)).append("\n");
                     } else {
-                        sb.append("\tParameters: ").append(charStr).append("\n");
+                        sb.append("\tParameters: ").append(CHAR_STR).append("\n");
                     }
+                } else {
+                    sb.append("\tParameters: ").append(CHAR_STR).append("\n");
                 }
             }
         }
@@ -112,90 +110,96 @@ public final class LoggerInterceptor implements Interceptor {
         } catch (Exception pE) {
             sb.append("-----------------Http Failed!-------------------");
             Logger.w(logTag, sb.toString());
-            // 显示详情
-            if (logDetails) {
-                if (net_log_open) {
-                    Logger.e(logTag, pE);
-                }
-            }
+            Logger.e(logTag, pE);
             throw pE;
         }
         long endTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
-        if (logDetails) {
-            sb.append("响应状态码: ").append(response.code()).append("\n");
-            sb.append("响应消息: ").append(response.message()).append("\n");
-        }
+        sb.append("响应状态码: ").append(response.code()).append("\n");
+        sb.append("响应消息: ").append(response.message()).append("\n");
         sb.append("响应地址: ").append(response.request().url()).append("\n");
         sb.append("响应时间: ").append(endTime).append(" ms\n");
-        // 显示详情
-        if (logDetails) {
-            // 响应头
-            Headers responseHeaders = response.headers();
-            int responseHeadersCount = responseHeaders.size();
-            if (responseHeaders != null && responseHeadersCount > 0) {
-                sb.append("ResponseHeaders:").append("\n");
-                for (int i = 0; i < responseHeadersCount; i++) {
-                    if (!responseHeaders.name(i).equals("Content-Type") && !responseHeaders.name(i).equals("Content-Length")) {
-                        sb.append("\t").append(responseHeaders.name(i)).append(": ").append(responseHeaders.value(i)).append("\n");
-                    }
-                }
-            }
-        }
+        // 响应头
+        appendHeaders(sb, "ResponseHeaders:", response.headers());
         // 响应体
         ResponseBody responseBody = response.body();
-        if (responseBody != null) {
-            sb.append("ResponseBody:").append("\n");
-            MediaType contentType = responseBody.contentType();
-            long contentLength = responseBody.contentLength();
-            if (logDetails) {
-                if (contentType != null) {
-                    sb.append("\tContent-Type: ").append(contentType).append("\n");
-                }
-                if (contentLength != -1) {
-                    sb.append("\tContent-Length: ").append(Formatter.formatFileSize(context, contentLength)).append("\n");
-                }
+        if (responseBody == null) {
+            log(logTag, sb);
+            return response;
+        }
+        sb.append("ResponseBody:").append("\n");
+        MediaType contentType = responseBody.contentType();
+        long contentLength = responseBody.contentLength();
+        if (contentType != null) {
+            sb.append("\tContent-Type: ").append(contentType).append("\n");
+        }
+        if (contentLength != -1) {
+            sb.append("\tContent-Length: ").append(Formatter.formatFileSize(context, contentLength)).append("\n");
+        }
+        if (!HttpHeaders.hasBody(response)) {
+            log(logTag, sb);
+            return response;
+        }
+        Charset charset = null;
+        if (contentType != null) {
+            try {
+                charset = contentType.charset(Charset.forName("UTF-8"));
+            } catch (Exception pE) {
+                sb.append("无法解析的响应体,字符集可能是异常的!");
+                Logger.w(logTag, sb.toString());
+                Logger.e(logTag, pE);
+                return response;
             }
-            if (HttpHeaders.hasBody(response)) {
-                BufferedSource source = responseBody.source();
-                source.request(Long.MAX_VALUE);
-                Buffer buffer = source.buffer();
-                Charset charset = null;
-                if (contentType != null) {
-                    try {
-                        charset = contentType.charset(Charset.forName("UTF-8"));
-                    } catch (Exception pE) {
-                        sb.append("无法解析的响应体,字符集可能是异常的!");
-                        Logger.w(logTag, sb.toString());
-                        // 显示详情
-                        if (logDetails) {
-                            if (net_log_open) {
-                                Logger.e(logTag, pE);
-                            }
-                        }
-                        return response;
-                    }
-                }
-                if (logDetails) {
-                    sb.append("\t").append("Size: ").append(Formatter.formatFileSize(context, buffer.size())).append("\n");
-                }
-                if (charset != null) {
-                    if (isPlaintext(buffer) && !bodyEncoded(request.headers())) {
-                        sb.append("\tParameters: ").append(buffer.clone().readString(charset)).append("\n");
-                    } else {
-                        sb.append("\tParameters: ").append(charStr).append("\n");
-                    }
+        }
+        if (streaming || charset == null || bodyLimit <= 0 || bodyEncoded(response.headers()) || !isTextType(contentType)) {
+            // 不复制响应体
+            sb.append("\tParameters: ").append(CHAR_STR).append("\n");
+            log(logTag, sb);
+            return response;
+        }
+        // 调用方读取响应体时复制,读取完毕后输出日志
+        return response.newBuilder()
+                .body(new LogResponseBody(responseBody, sb, charset, bodyLimit, logTag, context))
+                .build();
+    }
+
+    /**
+     * 不显示详情 - 只输出地址与响应时间,不创建StringBuilder
+     */
+    private Response interceptSimple(@NonNull Chain chain, @NonNull Request request, @NonNull LogTag logTag) throws IOException {
+        long startTime = System.nanoTime();
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (Exception pE) {
+            Logger.w(logTag, "请求地址: {}\n-----------------Http Failed!-------------------", request.url());
+            throw pE;
+        }
+        long endTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        Logger.w(logTag, "请求地址: {}\n响应地址: {}\n响应时间: {} ms", request.url(), response.request().url(), endTime);
+        return response;
+    }
+
+    private static void appendHeaders(@NonNull StringBuilder sb, @NonNull String title, Headers headers) {
+        int headersCount = headers == null ? 0 : headers.size();
+        if (headersCount > 0) {
+            sb.append(title).append("\n");
+            for (int i = 0; i < headersCount; i++) {
+                if (!headers.name(i).equals("Content-Type") && !headers.name(i).equals("Content-Length")) {
+                    sb.append("\t").append(headers.name(i)).append(": ").append(headers.value(i)).append("\n");
                 }
             }
         }
-        String inStr = sb.toString();
-        if (inStr.endsWith("\n")) {
-            inStr = inStr.substring(0, inStr.length() - 1);
+    }
+
+    private static void log(@NonNull LogTag logTag, @NonNull StringBuilder sb) {
+        int len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) == '\n') {
+            sb.setLength(len - 1);
         }
-        Logger.w(logTag, inStr);
-        return response;
+        Logger.w(logTag, sb.toString());
     }
 
-    private boolean isPlaintext(@NonNull Buffer buffer) {
+    private static boolean isPlaintext(@NonNull Buffer buffer) {
         if (buffer == null || buffer.size() <= 0) {
             return false;
         }
@@ -218,9 +222,107 @@ public final class LoggerInterceptor implements Interceptor {
         }
     }
 
-    private boolean bodyEncoded(@NonNull Headers headers) {
+    private static boolean bodyEncoded(@NonNull Headers headers) {
         String contentEncoding = headers.get("Content-Encoding");
         return contentEncoding != null && !contentEncoding.equalsIgnoreCase("identity");
     }
 
+    /**
+     * 是否为文本类型的响应体 - 未知类型时按文本处理,输出前再检查内容
+     */
+    private static boolean isTextType(MediaType contentType) {
+        if (contentType == null) {
+            return true;
+        }
+        if ("text".equals(contentType.type())) {
+            return true;
+        }
+        String subtype = contentType.subtype();
+        return subtype != null && (subtype.contains("json") || subtype.contains("xml") || subtype.contains("html")
+                || subtype.contains("javascript") || subtype.contains("x-www-form-urlencoded"));
+    }
+
+    /**
+     * 响应体读取时复制前limit个字节,读取完毕或关闭时输出日志
+     */
+    private static final class LogResponseBody extends ResponseBody {
+        private final ResponseBody mBody;
+        private final BufferedSource mSource;
+        private final StringBuilder mLog;
+        private final Charset mCharset;
+        private final long mLimit;
+        private final LogTag mLogTag;
+        private final Context mContext;
+        // 已复制的内容
+        private final Buffer mCapture = new Buffer();
+        // 调用方已读取的总字节数
+        private long mTotal;
+        private boolean mLogged;
+
+        LogResponseBody(@NonNull ResponseBody pBody, @NonNull StringBuilder pLog, @NonNull Charset pCharset, long pLimit,
+                        @NonNull LogTag pLogTag, Context pContext) {
+            mBody = pBody;
+            mLog = pLog;
+            mCharset = pCharset;
+            mLimit = pLimit;
+            mLogTag = pLogTag;
+            mContext = pContext;
+            mSource = Okio.buffer(new ForwardingSource(pBody.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read == -1) {
+                        logOnce();
+                        return read;
+                    }
+                    long remain = mLimit - mCapture.size();
+                    if (remain > 0) {
+                        sink.copyTo(mCapture, sink.size() - read, Math.min(read, remain));
+                    }
+                    mTotal += read;
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    logOnce();
+                    super.close();
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return mBody.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return mBody.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return mSource;
+        }
+
+        private synchronized void logOnce() {
+            if (mLogged) {
+                return;
+            }
+            mLogged = true;
+            mLog.append("\t").append("Size: ").append(Formatter.formatFileSize(mContext, mTotal)).append("\n");
+            if (isPlaintext(mCapture)) {
+                boolean truncated = mTotal > mCapture.size();
+                mLog.append("\tParameters: ").append(mCapture.readString(mCharset));
+                if (truncated) {
+                    mLog.append("...(已截断,只显示前").append(mLimit).append("字节)");
+                }
+                mLog.append("\n");
+            } else {
+                mLog.append("\tParameters: ").append(CHAR_STR).append("\n");
+            }
+            log(mLogTag, mLog);
+        }
+    }
 }
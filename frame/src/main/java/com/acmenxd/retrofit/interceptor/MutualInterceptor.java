@@ -0,0 +1,220 @@
+package com.acmenxd.retrofit.interceptor;
+
+import android.support.annotation.NonNull;
+
+import com.acmenxd.retrofit.NetManager;
+import com.acmenxd.retrofit.NetMutualCallback;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.FormBody;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/28 10:40
+ * @detail 统一添加请求参数/Header/body拦截器
+ * * 合并ParameterInterceptor/HeaderInterceptor/BodyInterceptor,只重建一次Request
+ * * net_mutual_cache_time大于0时,NetMutualCallback的结果按完整url缓存,有效期内同一url不再回调
+ */
+public final class MutualInterceptor implements Interceptor {
+    private static final MediaType FORM_TYPE = MediaType.parse("application/x-www-form-urlencoded;charset=UTF-8");
+    private static final int MAX_CACHE_SIZE = 256;
+    /**
+     * 公共参数缓存: 完整url -> 公共参数
+     */
+    private static final Map<String, Mutual> sCache = new ConcurrentHashMap<>();
+
+    /**
+     * 清除公共参数缓存 - 公共参数变化(如登录/获取到设备信息)后调用
+     */
+    public static void clearCache() {
+        sCache.clear();
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request original = chain.request();
+        NetMutualCallback callback = NetManager.INSTANCE.mutualCallback;
+        if (callback == null) {
+            return chain.proceed(original);
+        }
+        Mutual mutual = mutual(callback, original.url());
+        if (mutual.isEmpty()) {
+            return chain.proceed(original);
+        }
+        Request.Builder requestBuilder = original.newBuilder();
+        //添加请求公共参数
+        if (mutual.parameters.length > 0) {
+            HttpUrl.Builder urlBuilder = original.url().newBuilder();
+            for (int i = 0, len = mutual.parameters.length; i < len; i += 2) {
+                urlBuilder.addQueryParameter(mutual.parameters[i], mutual.parameters[i + 1]);
+            }
+            requestBuilder.url(urlBuilder.build());
+        }
+        //添加请求公共Header - header()如果有重名的将会覆盖
+        for (int i = 0, len = mutual.headers.length; i < len; i += 2) {
+            requestBuilder.header(mutual.headers[i], mutual.headers[i + 1]);
+        }
+        //addHeader()允许相同key值的header存在
+        for (int i = 0, len = mutual.reHeaders.length; i < len; i += 2) {
+            requestBuilder.addHeader(mutual.reHeaders[i], mutual.reHeaders[i + 1]);
+        }
+        //添加公共body参数
+        RequestBody requestBody = original.body();
+        if (mutual.bodys.length > 0) {
+            if (requestBody instanceof FormBody) {
+                //表单形式,添加公共body参数
+                FormBody.Builder formBody = new FormBody.Builder();
+                FormBody oldFormBody = (FormBody) requestBody;
+                for (int i = 0, len = oldFormBody.size(); i < len; i++) {
+                    formBody.addEncoded(oldFormBody.encodedName(i), oldFormBody.encodedValue(i));
+                }
+                for (int i = 0, len = mutual.bodys.length; i < len; i += 2) {
+                    formBody.add(mutual.bodys[i], mutual.bodys[i + 1]);
+                }
+                requestBuilder.method(original.method(), formBody.build());
+            } else if (requestBody != null && NetManager.INSTANCE.noformbody_canaddbody && !(requestBody instanceof MultipartBody)) {
+                //非表单形式 & 非上传数据的情况下,写入原body后追加公共body参数
+                requestBuilder.method(original.method(), new AppendedBody(requestBody, mutual.encodedBodys));
+            }
+        }
+        return chain.proceed(requestBuilder.build());
+    }
+
+    /**
+     * 获取公共参数,缓存过期时重新从回调获取
+     */
+    private static Mutual mutual(@NonNull NetMutualCallback callback, @NonNull HttpUrl url) {
+        // 回调收到的是完整url,缓存也按完整url区分,不同的scheme/query不会共用结果
+        String urlStr = url.toString();
+        long now = System.currentTimeMillis();
+        Mutual mutual = sCache.get(urlStr);
+        if (mutual != null && now < mutual.expireAt) {
+            return mutual;
+        }
+        mutual = new Mutual(now + NetManager.INSTANCE.net_mutual_cache_time,
+                toArray(callback.getParameters(urlStr)),
+                toArray(callback.getHeaders(urlStr)),
+                toArray(callback.getReHeaders(urlStr)),
+                toArray(callback.getBodys(urlStr)));
+        if (NetManager.INSTANCE.net_mutual_cache_time > 0) {
+            if (sCache.size() >= MAX_CACHE_SIZE) {
+                sCache.clear();
+            }
+            sCache.put(urlStr, mutual);
+        }
+        return mutual;
+    }
+
+    /**
+     * Map转为key/value交替的数组,与回调返回的Map解除关联
+     */
+    private static String[] toArray(Map<String, String> map) {
+        if (map == null || map.size() <= 0) {
+            return Mutual.EMPTY;
+        }
+        String[] result = new String[map.size() * 2];
+        int i = 0;
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            result[i++] = entry.getKey();
+            result[i++] = entry.getValue();
+        }
+        return result;
+    }
+
+    /**
+     * 一个url的公共参数
+     */
+    private static final class Mutual {
+        static final String[] EMPTY = new String[0];
+        final long expireAt;
+        final String[] parameters;
+        final String[] headers;
+        final String[] reHeaders;
+        final String[] bodys;
+        // 公共body参数的表单编码,非表单body追加时使用
+        final ByteString encodedBodys;
+
+        Mutual(long pExpireAt, String[] pParameters, String[] pHeaders, String[] pReHeaders, String[] pBodys) {
+            expireAt = pExpireAt;
+            parameters = pParameters;
+            headers = pHeaders;
+            reHeaders = pReHeaders;
+            bodys = pBodys;
+            encodedBodys = encodeForm(pBodys);
+        }
+
+        boolean isEmpty() {
+            return parameters.length == 0 && headers.length == 0 && reHeaders.length == 0 && bodys.length == 0;
+        }
+
+        private static ByteString encodeForm(String[] bodys) {
+            if (bodys.length == 0) {
+                return ByteString.EMPTY;
+            }
+            FormBody.Builder formBody = new FormBody.Builder();
+            for (int i = 0, len = bodys.length; i < len; i += 2) {
+                formBody.add(bodys[i], bodys[i + 1]);
+            }
+            Buffer buffer = new Buffer();
+            try {
+                formBody.build().writeTo(buffer);
+            } catch (IOException pE) {
+                // 写入内存不会失败
+                throw new AssertionError(pE);
+            }
+            return buffer.readByteString();
+        }
+    }
+
+    /**
+     * 原body + "&" + 公共body参数,写入时直接输出到请求流,不拼接字符串
+     */
+    private static final class AppendedBody extends RequestBody {
+        private final RequestBody mBody;
+        private final ByteString mAppend;
+
+        AppendedBody(@NonNull RequestBody pBody, @NonNull ByteString pAppend) {
+            mBody = pBody;
+            mAppend = pAppend;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return FORM_TYPE;
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            long length = mBody.contentLength();
+            if (length < 0) {
+                return -1;
+            }
+            return length + (length > 0 ? 1 : 0) + mAppend.size();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            long length = mBody.contentLength();
+            mBody.writeTo(sink);
+            if (length != 0) {
+                sink.writeByte('&');
+            }
+            sink.write(mAppend);
+        }
+    }
+}
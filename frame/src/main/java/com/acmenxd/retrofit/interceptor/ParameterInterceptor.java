@@ -17,7 +17,9 @@ import okhttp3.Response;
  * @github https://github.com/AcmenXD
  * @date 2016/12/13 17:31
  * @detail 统一添加请求参数拦截器
+ * @deprecated 已合并到MutualInterceptor
  */
+@Deprecated
 public final class ParameterInterceptor implements Interceptor {
     @Override
     public Response intercept(Chain chain) throws IOException {
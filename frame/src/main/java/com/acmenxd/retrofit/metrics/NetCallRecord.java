@@ -0,0 +1,57 @@
+package com.acmenxd.retrofit.metrics;
+
+import android.support.annotation.NonNull;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/1 10:40
+ * @detail 单次请求各阶段的时间点(System.nanoTime)
+ * * 建立连接/发送请求阶段由请求线程写入,响应体阶段可能在其他线程写入,结束时只统计一次
+ */
+final class NetCallRecord {
+    final String endpoint;
+    final long startNanos;
+    // DNS解析耗时,重试/重定向时累加
+    long dnsNanos;
+    // 最后一次DNS解析完成的时间
+    long dnsEndNanos;
+    // 最后一次网络请求是否使用了新建立的连接
+    boolean newConnection;
+    // 最后一次网络请求的开始/请求体写完/收到响应头的时间
+    long networkStartNanos;
+    long requestEndNanos;
+    long responseNanos;
+    // 应用层收到响应的时间
+    long headersNanos;
+    boolean cacheHit;
+    boolean failed;
+    // 是否有响应体需要读取
+    boolean hasBody;
+    long bodyEndNanos;
+    private boolean mFinished;
+
+    NetCallRecord(@NonNull String pEndpoint, long pStartNanos) {
+        endpoint = pEndpoint;
+        startNanos = pStartNanos;
+    }
+
+    /**
+     * 请求结束,记录到NetMetrics - 多次调用只记录一次
+     */
+    void finish(long pEndNanos) {
+        synchronized (this) {
+            if (mFinished) {
+                return;
+            }
+            mFinished = true;
+            if (hasBody) {
+                bodyEndNanos = pEndNanos;
+            } else if (headersNanos == 0) {
+                headersNanos = pEndNanos;
+            }
+        }
+        NetMetrics.record(this);
+    }
+}
@@ -0,0 +1,154 @@
+package com.acmenxd.retrofit.metrics;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/1 10:50
+ * @detail 一个接口的请求统计
+ * * 各阶段耗时分布见PHASE_*,DNS/连接只在建立新连接时记录,发送请求/首字节只在请求网络时记录
+ */
+public final class NetEndpointMetrics {
+    /**
+     * 阶段
+     */
+    // DNS解析
+    public static final int PHASE_DNS = 0;
+    // 建立连接(TCP连接+TLS握手,DNS解析完成到开始发送请求)
+    public static final int PHASE_CONNECT = 1;
+    // 发送请求头/请求体
+    public static final int PHASE_REQUEST = 2;
+    // 请求发送完毕到收到响应头(TTFB)
+    public static final int PHASE_TTFB = 3;
+    // 读取响应体
+    public static final int PHASE_BODY = 4;
+    // 总耗时
+    public static final int PHASE_TOTAL = 5;
+    static final String[] PHASE_NAMES = {"dns", "connect", "request", "ttfb", "body", "total"};
+
+    private final String mEndpoint;
+    private final NetHistogram[] mPhases = new NetHistogram[PHASE_NAMES.length];
+    private final AtomicLong mCalls = new AtomicLong();
+    private final AtomicLong mFailures = new AtomicLong();
+    private final AtomicLong mReused = new AtomicLong();
+    private final AtomicLong mCacheHits = new AtomicLong();
+
+    NetEndpointMetrics(@NonNull String pEndpoint) {
+        mEndpoint = pEndpoint;
+        for (int i = 0; i < mPhases.length; i++) {
+            mPhases[i] = new NetHistogram();
+        }
+    }
+
+    void record(@NonNull NetCallRecord r) {
+        mCalls.incrementAndGet();
+        if (r.failed) {
+            mFailures.incrementAndGet();
+        }
+        if (r.cacheHit) {
+            mCacheHits.incrementAndGet();
+        }
+        if (r.networkStartNanos > 0) {
+            if (r.newConnection) {
+                if (r.dnsNanos > 0) {
+                    record(PHASE_DNS, r.dnsNanos);
+                }
+                if (r.dnsEndNanos > 0) {
+                    record(PHASE_CONNECT, r.networkStartNanos - r.dnsEndNanos);
+                }
+            } else {
+                mReused.incrementAndGet();
+            }
+            long requestEnd = r.requestEndNanos > 0 ? r.requestEndNanos : r.networkStartNanos;
+            record(PHASE_REQUEST, requestEnd - r.networkStartNanos);
+            if (r.responseNanos > 0) {
+                record(PHASE_TTFB, r.responseNanos - requestEnd);
+            }
+        }
+        if (r.hasBody) {
+            record(PHASE_BODY, r.bodyEndNanos - r.headersNanos);
+        }
+        record(PHASE_TOTAL, (r.hasBody ? r.bodyEndNanos : r.headersNanos) - r.startNanos);
+    }
+
+    private void record(int phase, long nanos) {
+        mPhases[phase].record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    void reset() {
+        for (NetHistogram phase : mPhases) {
+            phase.reset();
+        }
+        mCalls.set(0);
+        mFailures.set(0);
+        mReused.set(0);
+        mCacheHits.set(0);
+    }
+
+    /**
+     * 获取当前统计的快照
+     */
+    public Snapshot snapshot() {
+        NetHistogram.Snapshot[] phases = new NetHistogram.Snapshot[mPhases.length];
+        for (int i = 0; i < mPhases.length; i++) {
+            phases[i] = mPhases[i].snapshot();
+        }
+        return new Snapshot(mEndpoint, mCalls.get(), mFailures.get(), mReused.get(), mCacheHits.get(), phases);
+    }
+
+    /**
+     * 统计快照
+     */
+    public static final class Snapshot {
+        /**
+         * 接口,格式"请求方式 相对地址"
+         */
+        public final String endpoint;
+        // 请求次数
+        public final long calls;
+        // 失败次数(未收到响应或读取响应体出错)
+        public final long failures;
+        // 复用已有连接的次数
+        public final long connectionReused;
+        // 直接使用缓存响应的次数
+        public final long cacheHits;
+        private final NetHistogram.Snapshot[] mPhases;
+
+        Snapshot(String pEndpoint, long pCalls, long pFailures, long pConnectionReused, long pCacheHits,
+                 NetHistogram.Snapshot[] pPhases) {
+            endpoint = pEndpoint;
+            calls = pCalls;
+            failures = pFailures;
+            connectionReused = pConnectionReused;
+            cacheHits = pCacheHits;
+            mPhases = pPhases;
+        }
+
+        /**
+         * 获取阶段的耗时分布
+         *
+         * @param phase PHASE_*
+         */
+        public NetHistogram.Snapshot getPhase(int phase) {
+            return mPhases[phase];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(endpoint).append(": calls=").append(calls).append(" failures=").append(failures)
+                    .append(" reused=").append(connectionReused).append(" cacheHits=").append(cacheHits);
+            for (int i = 0; i < mPhases.length; i++) {
+                if (mPhases[i].getCount() > 0) {
+                    sb.append("\n\t").append(PHASE_NAMES[i]).append("(us): ").append(mPhases[i]);
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
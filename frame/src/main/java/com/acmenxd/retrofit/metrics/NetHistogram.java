@@ -0,0 +1,153 @@
+package com.acmenxd.retrofit.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/1 10:30
+ * @detail 无锁的耗时分布统计(单位微秒)
+ * * 按2的幂分段,每段再均分为16个桶,相对误差不超过1/16;0~31微秒精确到1微秒
+ * * record只做原子自增,不加锁不分配内存,可在请求线程中直接调用
+ */
+public final class NetHistogram {
+    // 每段的桶数 = 2^(SUB_BUCKET_BITS - 1)
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_HALF = 1 << (SUB_BUCKET_BITS - 1);
+    private static final int MAX_SHIFT = 36;
+    // 可记录的最大值,约38小时,超出按最大值记录
+    static final long MAX_VALUE = (1L << (MAX_SHIFT + SUB_BUCKET_BITS)) - 1;
+    private static final int BUCKET_COUNT = (MAX_SHIFT + 2) * SUB_BUCKET_HALF;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong mSum = new AtomicLong();
+    private final AtomicLong mMax = new AtomicLong();
+
+    /**
+     * 记录一个值
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        } else if (value > MAX_VALUE) {
+            value = MAX_VALUE;
+        }
+        mCounts.incrementAndGet(index(value));
+        mSum.addAndGet(value);
+        long max;
+        while (value > (max = mMax.get()) && !mMax.compareAndSet(max, value)) {
+            // 其他线程已更新,重试
+        }
+    }
+
+    /**
+     * 清空记录
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts.set(i, 0);
+        }
+        mSum.set(0);
+        mMax.set(0);
+    }
+
+    /**
+     * 获取当前分布的快照 - 与并发的record之间不保证原子性,误差不超过并发中的几次记录
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = mCounts.get(i);
+            total += counts[i];
+        }
+        return new Snapshot(counts, total, mSum.get(), mMax.get());
+    }
+
+    /**
+     * 值所在的桶
+     */
+    static int index(long value) {
+        int msb = 63 - Long.numberOfLeadingZeros(value | (SUB_BUCKET_HALF * 2 - 1));
+        int shift = msb - (SUB_BUCKET_BITS - 1);
+        return shift * SUB_BUCKET_HALF + (int) (value >>> shift);
+    }
+
+    /**
+     * 桶内的最大值
+     */
+    static long highestEquivalent(int index) {
+        int shift = Math.max(0, index / SUB_BUCKET_HALF - 1);
+        long sub = index - shift * SUB_BUCKET_HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * 分布快照
+     */
+    public static final class Snapshot {
+        private final long[] mCounts;
+        private final long mTotal;
+        private final long mSum;
+        private final long mMax;
+
+        Snapshot(long[] pCounts, long pTotal, long pSum, long pMax) {
+            mCounts = pCounts;
+            mTotal = pTotal;
+            mSum = pSum;
+            mMax = pMax;
+        }
+
+        /**
+         * 记录次数
+         */
+        public long getCount() {
+            return mTotal;
+        }
+
+        /**
+         * 最大值(微秒)
+         */
+        public long getMax() {
+            return mMax;
+        }
+
+        /**
+         * 平均值(微秒)
+         */
+        public long getMean() {
+            return mTotal == 0 ? 0 : mSum / mTotal;
+        }
+
+        /**
+         * 百分位值(微秒)
+         *
+         * @param percentile 0~100,如50/90/99
+         */
+        public long getPercentile(double percentile) {
+            if (mTotal == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * mTotal);
+            if (target < 1) {
+                target = 1;
+            }
+            long count = 0;
+            for (int i = 0, len = mCounts.length; i < len; i++) {
+                count += mCounts[i];
+                if (count >= target) {
+                    return Math.min(highestEquivalent(i), mMax);
+                }
+            }
+            return mMax;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + mTotal + " mean=" + getMean() + " p50=" + getPercentile(50)
+                    + " p90=" + getPercentile(90) + " p99=" + getPercentile(99) + " max=" + mMax;
+        }
+    }
+}
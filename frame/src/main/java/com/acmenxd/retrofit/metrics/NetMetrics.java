@@ -0,0 +1,71 @@
+package com.acmenxd.retrofit.metrics;
+
+import android.support.annotation.NonNull;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/1 11:00
+ * @detail 网络请求统计 - 按接口模板汇总各阶段耗时
+ * * 统计由NetMetricsInterceptor/NetMetricsDns采集,通过NetManager.getMetrics获取
+ * * 接口数量超过MAX_ENDPOINTS后,新接口统一记入OTHER
+ */
+public final class NetMetrics {
+    private static final int MAX_ENDPOINTS = 256;
+    public static final String OTHER = "other";
+    /**
+     * 接口 -> 统计
+     */
+    private static final ConcurrentHashMap<String, NetEndpointMetrics> sEndpoints = new ConcurrentHashMap<>();
+    /**
+     * 当前线程正在执行的请求 - 建立连接与发送请求都在请求线程中同步执行
+     */
+    static final ThreadLocal<NetCallRecord> sCurrent = new ThreadLocal<>();
+
+    private NetMetrics() {
+    }
+
+    /**
+     * 获取所有接口统计的快照,按接口排序
+     */
+    public static Map<String, NetEndpointMetrics.Snapshot> snapshot() {
+        Map<String, NetEndpointMetrics.Snapshot> result = new TreeMap<>();
+        for (Map.Entry<String, NetEndpointMetrics> entry : sEndpoints.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return result;
+    }
+
+    /**
+     * 清空统计
+     */
+    public static void reset() {
+        for (NetEndpointMetrics metrics : sEndpoints.values()) {
+            metrics.reset();
+        }
+    }
+
+    static void record(@NonNull NetCallRecord record) {
+        String endpoint = record.endpoint;
+        NetEndpointMetrics metrics = sEndpoints.get(endpoint);
+        if (metrics == null) {
+            if (sEndpoints.size() >= MAX_ENDPOINTS) {
+                endpoint = OTHER;
+                metrics = sEndpoints.get(endpoint);
+            }
+            if (metrics == null) {
+                metrics = new NetEndpointMetrics(endpoint);
+                NetEndpointMetrics old = sEndpoints.putIfAbsent(endpoint, metrics);
+                if (old != null) {
+                    metrics = old;
+                }
+            }
+        }
+        metrics.record(record);
+    }
+}
@@ -0,0 +1,210 @@
+package com.acmenxd.retrofit.metrics;
+
+import android.support.annotation.NonNull;
+
+import com.acmenxd.retrofit.NetCallTag;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import okhttp3.Request;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.http.DELETE;
+import retrofit2.http.GET;
+import retrofit2.http.HEAD;
+import retrofit2.http.HTTP;
+import retrofit2.http.OPTIONS;
+import retrofit2.http.PATCH;
+import retrofit2.http.POST;
+import retrofit2.http.PUT;
+import retrofit2.http.Streaming;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/1 11:30
+ * @detail 为IRequest方法发起的请求提供NetCallTag: 接口模板("请求方式 相对地址",如"GET user/{id}")及是否有@Streaming注解
+ * * 需添加在其他CallAdapter.Factory之前,只包装Call,实际的适配交给后面的Factory
+ * * Retrofit在execute/enqueue的调用线程中创建okhttp3.Call,创建期间通过currentTag()获取
+ */
+public final class NetMetricsCallAdapterFactory extends CallAdapter.Factory {
+    private static final ThreadLocal<NetCallTag> sTag = new ThreadLocal<>();
+
+    public static NetMetricsCallAdapterFactory create() {
+        return new NetMetricsCallAdapterFactory();
+    }
+
+    private NetMetricsCallAdapterFactory() {
+    }
+
+    /**
+     * 当前线程正在创建的请求的NetCallTag - 供Call.Factory写入Request的tag
+     *
+     * @return 不是IRequest方法发起的请求返回null
+     */
+    public static NetCallTag currentTag() {
+        return sTag.get();
+    }
+
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        @SuppressWarnings("unchecked")
+        final CallAdapter<Object, Object> delegate = (CallAdapter<Object, Object>) retrofit.nextCallAdapter(this, returnType, annotations);
+        String template = template(annotations);
+        if (template == null) {
+            return delegate;
+        }
+        final NetCallTag tag = new NetCallTag(template, streaming(annotations));
+        return new CallAdapter<Object, Object>() {
+            @Override
+            public Type responseType() {
+                return delegate.responseType();
+            }
+
+            @Override
+            public Object adapt(Call<Object> call) {
+                return delegate.adapt(new TaggedCall<>(call, tag));
+            }
+        };
+    }
+
+    /**
+     * 从方法注解获取接口模板 - @Url方法的相对地址为"{url}"
+     */
+    private static String template(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            String method;
+            String path;
+            if (annotation instanceof GET) {
+                method = "GET";
+                path = ((GET) annotation).value();
+            } else if (annotation instanceof POST) {
+                method = "POST";
+                path = ((POST) annotation).value();
+            } else if (annotation instanceof PUT) {
+                method = "PUT";
+                path = ((PUT) annotation).value();
+            } else if (annotation instanceof DELETE) {
+                method = "DELETE";
+                path = ((DELETE) annotation).value();
+            } else if (annotation instanceof PATCH) {
+                method = "PATCH";
+                path = ((PATCH) annotation).value();
+            } else if (annotation instanceof HEAD) {
+                method = "HEAD";
+                path = ((HEAD) annotation).value();
+            } else if (annotation instanceof OPTIONS) {
+                method = "OPTIONS";
+                path = ((OPTIONS) annotation).value();
+            } else if (annotation instanceof HTTP) {
+                method = ((HTTP) annotation).method();
+                path = ((HTTP) annotation).path();
+            } else {
+                continue;
+            }
+            // 去掉查询参数,只保留路径
+            int query = path.indexOf('?');
+            if (query >= 0) {
+                path = path.substring(0, query);
+            }
+            return method + " " + (path.length() == 0 ? "{url}" : path);
+        }
+        return null;
+    }
+
+    /**
+     * 方法上是否有@Streaming注解
+     */
+    private static boolean streaming(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof Streaming) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 在创建okhttp3.Call期间设置NetCallTag的Call
+     */
+    private static final class TaggedCall<T> implements Call<T> {
+        private final Call<T> mDelegate;
+        private final NetCallTag mTag;
+
+        TaggedCall(@NonNull Call<T> pDelegate, @NonNull NetCallTag pTag) {
+            mDelegate = pDelegate;
+            mTag = pTag;
+        }
+
+        @Override
+        public Response<T> execute() throws IOException {
+            NetCallTag outer = enter();
+            try {
+                return mDelegate.execute();
+            } finally {
+                exit(outer);
+            }
+        }
+
+        @Override
+        public void enqueue(Callback<T> callback) {
+            NetCallTag outer = enter();
+            try {
+                mDelegate.enqueue(callback);
+            } finally {
+                exit(outer);
+            }
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return mDelegate.isExecuted();
+        }
+
+        @Override
+        public void cancel() {
+            mDelegate.cancel();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return mDelegate.isCanceled();
+        }
+
+        @SuppressWarnings("CloneDoesntCallSuperClone")
+        @Override
+        public Call<T> clone() {
+            return new TaggedCall<>(mDelegate.clone(), mTag);
+        }
+
+        @Override
+        public Request request() {
+            NetCallTag outer = enter();
+            try {
+                return mDelegate.request();
+            } finally {
+                exit(outer);
+            }
+        }
+
+        private NetCallTag enter() {
+            NetCallTag outer = sTag.get();
+            sTag.set(mTag);
+            return outer;
+        }
+
+        private static void exit(NetCallTag outer) {
+            if (outer == null) {
+                sTag.remove();
+            } else {
+                sTag.set(outer);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.acmenxd.retrofit.metrics;
+
+import android.support.annotation.NonNull;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+import okhttp3.Dns;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/1 11:20
+ * @detail 记录DNS解析耗时的Dns - 解析在请求线程中执行,耗时记入当前请求
+ */
+public final class NetMetricsDns implements Dns {
+    private final Dns mDelegate;
+
+    public NetMetricsDns(@NonNull Dns pDelegate) {
+        mDelegate = pDelegate;
+    }
+
+    @Override
+    public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+        long start = System.nanoTime();
+        try {
+            return mDelegate.lookup(hostname);
+        } finally {
+            NetCallRecord record = NetMetrics.sCurrent.get();
+            if (record != null) {
+                long end = System.nanoTime();
+                record.dnsNanos += end - start;
+                record.dnsEndNanos = end;
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.acmenxd.retrofit.metrics;
+
+import android.support.annotation.NonNull;
+
+import com.acmenxd.retrofit.NetCallTag;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import okhttp3.Connection;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okhttp3.internal.http.HttpHeaders;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/1 11:10
+ * @detail 网络请求统计拦截器
+ * * 作为应用拦截器添加在最前面:记录总耗时/缓存命中,响应体读取完毕或关闭时结束统计
+ * * Network作为网络拦截器添加在最后面:记录建立连接、发送请求与等待响应头的耗时
+ */
+public final class NetMetricsInterceptor implements Interceptor {
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        NetCallRecord record = new NetCallRecord(endpoint(request), System.nanoTime());
+        NetCallRecord outer = NetMetrics.sCurrent.get();
+        NetMetrics.sCurrent.set(record);
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException | RuntimeException pE) {
+            record.failed = true;
+            record.finish(System.nanoTime());
+            throw pE;
+        } finally {
+            if (outer == null) {
+                NetMetrics.sCurrent.remove();
+            } else {
+                NetMetrics.sCurrent.set(outer);
+            }
+        }
+        record.headersNanos = System.nanoTime();
+        record.cacheHit = response.cacheResponse() != null && response.networkResponse() == null;
+        ResponseBody body = response.body();
+        if (body == null || !HttpHeaders.hasBody(response)) {
+            record.finish(record.headersNanos);
+            return response;
+        }
+        record.hasBody = true;
+        return response.newBuilder().body(new MetricsResponseBody(body, record)).build();
+    }
+
+    /**
+     * 统计用的接口名 - IRequest发起的请求使用方法上的模板,其他请求使用host + path
+     */
+    private static String endpoint(@NonNull Request request) {
+        NetCallTag tag = NetCallTag.of(request);
+        if (tag != null && tag.template != null) {
+            return tag.template;
+        }
+        HttpUrl url = request.url();
+        return request.method() + " " + url.host() + url.encodedPath();
+    }
+
+    /**
+     * 网络拦截器 - 需添加在其他网络拦截器之后,请求体替换为计时的包装类
+     * * 首次经过的连接即为本次请求新建立的连接,DNS解析完成到进入此拦截器为建立连接(TCP+TLS)的耗时
+     * * 不包装Socket: Android上TLS和流量统计依赖Socket本身的文件描述符
+     */
+    public static final class Network implements Interceptor {
+        // 已经过的连接,连接关闭回收后自动移除
+        private static final Set<Connection> sConnections = Collections.newSetFromMap(new WeakHashMap<Connection, Boolean>());
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            NetCallRecord record = NetMetrics.sCurrent.get();
+            if (record == null) {
+                return chain.proceed(request);
+            }
+            // 重试/重定向时以最后一次为准
+            record.networkStartNanos = System.nanoTime();
+            Connection connection = chain.connection();
+            if (connection != null) {
+                synchronized (sConnections) {
+                    record.newConnection = sConnections.add(connection);
+                }
+            }
+            record.requestEndNanos = 0;
+            record.responseNanos = 0;
+            RequestBody body = request.body();
+            if (body != null) {
+                request = request.newBuilder().method(request.method(), new MetricsRequestBody(body, record)).build();
+            }
+            Response response = chain.proceed(request);
+            record.responseNanos = System.nanoTime();
+            return response;
+        }
+    }
+
+    /**
+     * 请求体写完时记录时间
+     */
+    private static final class MetricsRequestBody extends RequestBody {
+        private final RequestBody mBody;
+        private final NetCallRecord mRecord;
+
+        MetricsRequestBody(@NonNull RequestBody pBody, @NonNull NetCallRecord pRecord) {
+            mBody = pBody;
+            mRecord = pRecord;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return mBody.contentType();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return mBody.contentLength();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            mBody.writeTo(sink);
+            mRecord.requestEndNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * 响应体读取完毕或关闭时结束统计
+     */
+    private static final class MetricsResponseBody extends ResponseBody {
+        private final ResponseBody mBody;
+        private final BufferedSource mSource;
+
+        MetricsResponseBody(@NonNull ResponseBody pBody, @NonNull final NetCallRecord pRecord) {
+            mBody = pBody;
+            mSource = Okio.buffer(new ForwardingSource(pBody.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read;
+                    try {
+                        read = super.read(sink, byteCount);
+                    } catch (IOException pE) {
+                        pRecord.failed = true;
+                        pRecord.finish(System.nanoTime());
+                        throw pE;
+                    }
+                    if (read == -1) {
+                        pRecord.finish(System.nanoTime());
+                    }
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    pRecord.finish(System.nanoTime());
+                    super.close();
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return mBody.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return mBody.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return mSource;
+        }
+    }
+}
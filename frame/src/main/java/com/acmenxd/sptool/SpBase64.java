@@ -0,0 +1,98 @@
+package com.acmenxd.sptool;
+
+import android.support.annotation.NonNull;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/3 10:20
+ * @detail URL安全的Base64,无换行无填充
+ * * 结果与android.util.Base64(URL_SAFE | NO_WRAP | NO_PADDING)相同,已存储的数据无需迁移
+ * * 纯Java实现,值编码和加解密不依赖Android,可在本地单元测试中运行
+ */
+final class SpBase64 {
+    private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    private static final int[] DECODE = new int[128];
+
+    static {
+        for (int i = 0; i < DECODE.length; i++) {
+            DECODE[i] = -1;
+        }
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = i;
+        }
+    }
+
+    private SpBase64() {
+    }
+
+    static String encode(@NonNull byte[] pData) {
+        int length = pData.length;
+        char[] out = new char[(length * 4 + 2) / 3];
+        int o = 0;
+        int i = 0;
+        while (i + 3 <= length) {
+            int bits = (pData[i++] & 0xff) << 16 | (pData[i++] & 0xff) << 8 | (pData[i++] & 0xff);
+            out[o++] = ALPHABET[bits >>> 18];
+            out[o++] = ALPHABET[bits >>> 12 & 0x3f];
+            out[o++] = ALPHABET[bits >>> 6 & 0x3f];
+            out[o++] = ALPHABET[bits & 0x3f];
+        }
+        int rest = length - i;
+        if (rest > 0) {
+            int bits = (pData[i++] & 0xff) << 16 | (rest == 2 ? (pData[i] & 0xff) << 8 : 0);
+            out[o++] = ALPHABET[bits >>> 18];
+            out[o++] = ALPHABET[bits >>> 12 & 0x3f];
+            if (rest == 2) {
+                out[o] = ALPHABET[bits >>> 6 & 0x3f];
+            }
+        }
+        return new String(out);
+    }
+
+    /**
+     * 解码 - 与android.util.Base64相同,跳过字母表之外的字符,遇到'='结束
+     *
+     * @throws IllegalArgumentException 剩余的位数不足一个字节
+     */
+    static byte[] decode(@NonNull String pStr) {
+        int length = pStr.length();
+        byte[] out = new byte[length * 3 / 4];
+        int o = 0;
+        int bits = 0;
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            char c = pStr.charAt(i);
+            if (c == '=') {
+                break;
+            }
+            int d = c < DECODE.length ? DECODE[c] : -1;
+            if (d < 0) {
+                continue;
+            }
+            bits = bits << 6 | d;
+            if (++count == 4) {
+                out[o++] = (byte) (bits >> 16);
+                out[o++] = (byte) (bits >> 8);
+                out[o++] = (byte) bits;
+                bits = 0;
+                count = 0;
+            }
+        }
+        if (count == 1) {
+            throw new IllegalArgumentException("bad base-64");
+        } else if (count == 2) {
+            out[o++] = (byte) (bits >> 4);
+        } else if (count == 3) {
+            out[o++] = (byte) (bits >> 10);
+            out[o++] = (byte) (bits >> 2);
+        }
+        if (o == out.length) {
+            return out;
+        }
+        byte[] result = new byte[o];
+        System.arraycopy(out, 0, result, 0, o);
+        return result;
+    }
+}
@@ -0,0 +1,46 @@
+package com.acmenxd.sptool;
+
+import android.support.annotation.NonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/27 14:42
+ * @detail 紧凑二进制sp对象编解码 - 频繁读写的类型继承此类,按字段顺序读写
+ * * 字段有增减时建议先写入版本号,读取时按版本兼容
+ */
+public abstract class SpBinaryCodec<T> implements SpObjectCodec<T> {
+
+    @Override
+    public final byte[] encode(@NonNull T pValue) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        write(out, pValue);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public final T decode(@NonNull byte[] pData) throws IOException {
+        return read(new DataInputStream(new ByteArrayInputStream(pData)));
+    }
+
+    /**
+     * 写入对象字段
+     */
+    protected abstract void write(@NonNull DataOutput pOut, @NonNull T pValue) throws IOException;
+
+    /**
+     * 按write的顺序读取对象字段
+     */
+    protected abstract T read(@NonNull DataInput pIn) throws IOException;
+}
@@ -0,0 +1,217 @@
+package com.acmenxd.sptool;
+
+import android.support.annotation.NonNull;
+
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/24 15:10
+ * @detail 基于AES的sp加解密回调
+ * * 密钥在首次加解密时由口令派生一次(PBKDF2,耗时数十毫秒),创建实例不阻塞调用线程;之后每个线程缓存自己的Cipher/Mac实例
+ * * 格式: IV(16字节) + AES-CTR密文,IV = HMAC-SHA256(明文)的前16字节,解密后重新计算校验,篡改或密钥错误时解密返回null
+ * * 相同明文得到相同密文(Sp需要用加密后的key查找数据),只会泄露两个值是否相同
+ */
+public final class SpCipherCallback implements SpEncodeDecodeCallback {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int IV_SIZE = 16;
+    private static final int KEY_SIZE = 32;
+    private static final int PBKDF2_ITERATIONS = 10000;
+
+    // 派生密钥用的口令和盐,派生完成后清除
+    private char[] mSecret;
+    private byte[] mSalt;
+    private volatile Keys mKeys;
+    private final ThreadLocal<Cipher> mCipher = new ThreadLocal<Cipher>() {
+        @Override
+        protected Cipher initialValue() {
+            try {
+                return Cipher.getInstance("AES/CTR/NoPadding");
+            } catch (GeneralSecurityException pE) {
+                throw new IllegalStateException(pE);
+            }
+        }
+    };
+    private final ThreadLocal<Mac> mMac = new ThreadLocal<Mac>() {
+        @Override
+        protected Mac initialValue() {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(keys().mac);
+                return mac;
+            } catch (GeneralSecurityException pE) {
+                throw new IllegalStateException(pE);
+            }
+        }
+    };
+
+    /**
+     * @param pSecret 口令
+     * @param pSalt   盐,如包名
+     */
+    public SpCipherCallback(@NonNull char[] pSecret, @NonNull byte[] pSalt) {
+        mSecret = pSecret.clone();
+        mSalt = pSalt.clone();
+    }
+
+    /**
+     * 密钥指纹 - 区分不同口令/盐派生的密钥,不泄露密钥本身
+     */
+    String fingerprint() {
+        return keys().fingerprint;
+    }
+
+    /**
+     * 密钥是否已派生
+     */
+    boolean isDerived() {
+        return mKeys != null;
+    }
+
+    @Override
+    public String encode(@NonNull String pStr) {
+        return encodeBytes(pStr.getBytes(UTF_8));
+    }
+
+    @Override
+    public String decode(@NonNull String pStr) {
+        byte[] plain = decodeBytes(pStr);
+        return plain == null ? null : new String(plain, UTF_8);
+    }
+
+    /**
+     * 加密字节数据,结果为Base64字符串
+     */
+    public String encodeBytes(@NonNull byte[] pPlain) {
+        return SpBase64.encode(encrypt(pPlain));
+    }
+
+    /**
+     * 解密encodeBytes的结果
+     *
+     * @return 格式错误/校验失败返回null
+     */
+    public byte[] decodeBytes(@NonNull String pStr) {
+        byte[] data;
+        try {
+            data = SpBase64.decode(pStr);
+        } catch (IllegalArgumentException pE) {
+            return null;
+        }
+        return decrypt(data);
+    }
+
+    /**
+     * 加密
+     *
+     * @return IV + 密文
+     */
+    public byte[] encrypt(@NonNull byte[] pPlain) {
+        byte[] iv = syntheticIv(pPlain);
+        byte[] result = new byte[IV_SIZE + pPlain.length];
+        System.arraycopy(iv, 0, result, 0, IV_SIZE);
+        try {
+            Cipher cipher = mCipher.get();
+            cipher.init(Cipher.ENCRYPT_MODE, keys().cipher, new IvParameterSpec(iv));
+            cipher.doFinal(pPlain, 0, pPlain.length, result, IV_SIZE);
+        } catch (GeneralSecurityException pE) {
+            throw new IllegalStateException(pE);
+        }
+        return result;
+    }
+
+    /**
+     * 解密
+     *
+     * @return 格式错误/校验失败返回null
+     */
+    public byte[] decrypt(@NonNull byte[] pData) {
+        if (pData.length < IV_SIZE) {
+            return null;
+        }
+        byte[] iv = Arrays.copyOfRange(pData, 0, IV_SIZE);
+        byte[] plain;
+        try {
+            Cipher cipher = mCipher.get();
+            cipher.init(Cipher.DECRYPT_MODE, keys().cipher, new IvParameterSpec(iv));
+            plain = cipher.doFinal(pData, IV_SIZE, pData.length - IV_SIZE);
+        } catch (GeneralSecurityException pE) {
+            return null;
+        }
+        return MessageDigest.isEqual(iv, syntheticIv(plain)) ? plain : null;
+    }
+
+    private byte[] syntheticIv(@NonNull byte[] pPlain) {
+        Mac mac = mMac.get();
+        byte[] digest = mac.doFinal(pPlain);
+        return Arrays.copyOf(digest, IV_SIZE);
+    }
+
+    /**
+     * 获取密钥,首次调用时派生
+     */
+    private Keys keys() {
+        Keys keys = mKeys;
+        if (keys == null) {
+            synchronized (this) {
+                keys = mKeys;
+                if (keys == null) {
+                    keys = Keys.derive(mSecret, mSalt);
+                    mKeys = keys;
+                    Arrays.fill(mSecret, '\0');
+                    mSecret = null;
+                    mSalt = null;
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 派生出的密钥
+     */
+    private static final class Keys {
+        final SecretKeySpec cipher;
+        final SecretKeySpec mac;
+        final String fingerprint;
+
+        private Keys(SecretKeySpec pCipher, SecretKeySpec pMac, String pFingerprint) {
+            cipher = pCipher;
+            mac = pMac;
+            fingerprint = pFingerprint;
+        }
+
+        static Keys derive(@NonNull char[] pSecret, @NonNull byte[] pSalt) {
+            byte[] keys = null;
+            try {
+                SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
+                keys = factory.generateSecret(new PBEKeySpec(pSecret, pSalt, PBKDF2_ITERATIONS, KEY_SIZE * 2 * 8)).getEncoded();
+                SecretKeySpec cipher = new SecretKeySpec(keys, 0, KEY_SIZE, "AES");
+                SecretKeySpec mac = new SecretKeySpec(keys, KEY_SIZE, KEY_SIZE, "HmacSHA256");
+                // 指纹: HMAC(常量)的前8字节
+                Mac fingerprint = Mac.getInstance("HmacSHA256");
+                fingerprint.init(mac);
+                byte[] digest = fingerprint.doFinal("SpCipherCallback".getBytes(UTF_8));
+                return new Keys(cipher, mac, SpBase64.encode(Arrays.copyOf(digest, 8)));
+            } catch (GeneralSecurityException pE) {
+                throw new IllegalStateException(pE);
+            } finally {
+                if (keys != null) {
+                    Arrays.fill(keys, (byte) 0);
+                }
+            }
+        }
+    }
+}
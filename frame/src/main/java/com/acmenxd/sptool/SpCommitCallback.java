@@ -0,0 +1,18 @@
+package com.acmenxd.sptool;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/19 14:20
+ * @detail SP批量异步提交完成的回调
+ * * 在后台线程中回调
+ */
+public interface SpCommitCallback {
+    /**
+     * 数据已写入磁盘
+     *
+     * @param pSuccess 是否写入成功
+     */
+    void onCommitted(boolean pSuccess);
+}
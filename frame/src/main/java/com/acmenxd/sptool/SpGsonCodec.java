@@ -0,0 +1,43 @@
+package com.acmenxd.sptool;
+
+import android.support.annotation.NonNull;
+
+import com.google.gson.Gson;
+
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/27 14:36
+ * @detail 基于Gson的sp对象编解码 - 默认编解码,数据为UTF-8的json
+ * * 泛型类型(如List<Bean>)可通过TypeToken.getType()创建后注册
+ */
+public final class SpGsonCodec<T> implements SpObjectCodec<T> {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Gson sGson = new Gson();
+
+    private final Gson mGson;
+    private final Type mType;
+
+    public SpGsonCodec(@NonNull Type pType) {
+        this(sGson, pType);
+    }
+
+    public SpGsonCodec(@NonNull Gson pGson, @NonNull Type pType) {
+        mGson = pGson;
+        mType = pType;
+    }
+
+    @Override
+    public byte[] encode(@NonNull T pValue) {
+        return mGson.toJson(pValue, mType).getBytes(UTF_8);
+    }
+
+    @Override
+    public T decode(@NonNull byte[] pData) {
+        return mGson.fromJson(new String(pData, UTF_8), mType);
+    }
+}
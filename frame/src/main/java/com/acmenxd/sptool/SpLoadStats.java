@@ -0,0 +1,44 @@
+package com.acmenxd.sptool;
+
+import android.support.annotation.NonNull;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/26 10:20
+ * @detail Sp加载耗时统计
+ * * 时间单位均为毫秒,尚未开始/尚未完成的阶段为-1
+ */
+public final class SpLoadStats {
+    // sp名称
+    public final String name;
+    // 是否在后台预加载
+    public final boolean preload;
+    // 是否加载完成
+    public final boolean loaded;
+    // 排队时间: 创建实例到开始加载
+    public final long queueMillis;
+    // 加载耗时: 读取磁盘 + 迁移旧数据 + 解密预热
+    public final long loadMillis;
+    // 预热到读取缓存的数据条数
+    public final int entryCount;
+    // 调用方等待加载完成的累计时间
+    public final long blockedMillis;
+
+    SpLoadStats(@NonNull String pName, boolean pPreload, boolean pLoaded, long pQueueMillis, long pLoadMillis, int pEntryCount, long pBlockedMillis) {
+        name = pName;
+        preload = pPreload;
+        loaded = pLoaded;
+        queueMillis = pQueueMillis;
+        loadMillis = pLoadMillis;
+        entryCount = pEntryCount;
+        blockedMillis = pBlockedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return name + "{preload=" + preload + ", loaded=" + loaded + ", queue=" + queueMillis + "ms, load=" + loadMillis
+                + "ms, entries=" + entryCount + ", blocked=" + blockedMillis + "ms}";
+    }
+}
@@ -3,8 +3,17 @@ package com.acmenxd.sptool;
 import android.content.Context;
 import android.support.annotation.NonNull;
 
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author AcmenXD
@@ -19,43 +28,125 @@ public final class SpManager {
      */
     // 全局Sp实例,项目启动时创建,并通过getCommonSp拿到,项目中只有一份实例
     public static String[] CommonSp;
+    // 使用内存映射文件存储(SpMmapStore)的Sp名称,其余使用系统SharedPreferences
+    public static String[] MmapSp;
+    // 全局Sp是否在后台线程并行预加载 - 加载完成前读写只等待对应的Sp
+    public static boolean PRELOAD = true;
     // 加解密回调
     protected static SpEncodeDecodeCallback sEncodeDecodeCallback;
+    // 旧加解密回调 - 不为null时,Sp实例首次创建时把旧回调加密的数据用新回调重新加密
+    protected static SpEncodeDecodeCallback sLegacyEncodeDecodeCallback;
     // 上下文对象
     private static Context sContext;
     /**
      * 存储全局Sp实例
      */
     private static Map<String, SpTool> spMap = new ConcurrentHashMap<>();
+    /**
+     * 预加载线程池,空闲后线程自动退出
+     */
+    private static final int MAX_PRELOAD_THREADS = 4;
+    private static ThreadPoolExecutor sPreloader;
+    /**
+     * 非全局Sp实例,每个名称只有一个实例,没有引用后自动回收
+     */
+    private static final Map<String, WeakReference<SpTool>> sSpRefs = new ConcurrentHashMap<>();
+    /**
+     * key加密结果缓存(原始key <-> 加密key),所有Sp实例共用
+     * * 超出上限后清空重建,更换加解密回调时清空
+     */
+    private static final int MAX_KEY_CACHE_SIZE = 8192;
+    private static final Map<String, String> sEncodedKeys = new ConcurrentHashMap<>();
+    private static final Map<String, String> sDecodedKeys = new ConcurrentHashMap<>();
+    /**
+     * 对象编解码,按类型注册,未注册的类型使用SpGsonCodec
+     */
+    private static final ConcurrentHashMap<Class<?>, SpObjectCodec<?>> sObjectCodecs = new ConcurrentHashMap<>();
 
     /**
      * 设置Context对象
      * * 必须设置,否则无法使用
+     * * PRELOAD为true时全局Sp在后台并行加载,不阻塞调用线程
      */
     public static void setContext(@NonNull Context pContext) {
         sContext = pContext;
+        sSpRefs.clear();
         String[] spAll = CommonSp;
         if (spAll == null || spAll.length <= 0) {
             return;
         }
+        Executor preloader = PRELOAD ? preloader() : null;
         for (int i = 0, len = spAll.length; i < len; i++) {
             String name = spAll[i];
-            spMap.put(name, new SpTool(sContext, name));
+            spMap.put(name, new SpTool(sContext, name, preloader));
         }
     }
 
+    /**
+     * 获取全局Sp的加载耗时统计,按CommonSp的顺序排列
+     */
+    public static Map<String, SpLoadStats> getLoadStats() {
+        Map<String, SpLoadStats> result = new LinkedHashMap<>();
+        String[] spAll = CommonSp;
+        if (spAll == null) {
+            return result;
+        }
+        for (int i = 0, len = spAll.length; i < len; i++) {
+            SpTool sp = spMap.get(spAll[i]);
+            if (sp != null) {
+                result.put(spAll[i], sp.getLoadStats());
+            }
+        }
+        return result;
+    }
+
     /**
      * 设置加解密回调
      * * 不设置或null表示不进行加解密处理
      */
     public static void setEncodeDecodeCallback(SpEncodeDecodeCallback pEncodeDecodeCallback) {
+        setEncodeDecodeCallback(pEncodeDecodeCallback, null);
+    }
+
+    /**
+     * 设置加解密回调,并把旧回调加密的数据迁移为新回调加密
+     * * 每个Sp在首次创建实例时迁移一次,需在setContext之前调用
+     *
+     * @param pLegacyEncodeDecodeCallback 旧加解密回调,null表示不迁移
+     */
+    public static void setEncodeDecodeCallback(SpEncodeDecodeCallback pEncodeDecodeCallback, SpEncodeDecodeCallback pLegacyEncodeDecodeCallback) {
         sEncodeDecodeCallback = pEncodeDecodeCallback;
+        sLegacyEncodeDecodeCallback = pLegacyEncodeDecodeCallback;
+        sEncodedKeys.clear();
+        sDecodedKeys.clear();
+    }
+
+    /**
+     * 注册对象编解码 - 频繁读写的类型可注册SpBinaryCodec的实现
+     * * 已存储的数据需要用同一个编解码读取,更换编解码前需自行迁移
+     */
+    public static <T> void registerObjectCodec(@NonNull Class<T> pClass, @NonNull SpObjectCodec<T> pCodec) {
+        sObjectCodecs.put(pClass, pCodec);
+    }
+
+    /**
+     * 获取对象编解码,未注册时创建并缓存Gson编解码
+     */
+    static <T> SpObjectCodec<T> getObjectCodec(@NonNull Class<T> pClass) {
+        SpObjectCodec<T> codec = (SpObjectCodec<T>) sObjectCodecs.get(pClass);
+        if (codec == null) {
+            codec = new SpGsonCodec<>(pClass);
+            SpObjectCodec<T> old = (SpObjectCodec<T>) sObjectCodecs.putIfAbsent(pClass, codec);
+            if (old != null) {
+                codec = old;
+            }
+        }
+        return codec;
     }
 
     /**
      * 根据名称获取Sp实例 -> 获取全局Sp实例
      * * 如做全局字段变更监听,使用此函数获取实例
-     * * 否则请使用函数getSp()获取新实例,防止因监听造成内存溢出
      */
     public static SpTool getCommonSp(@NonNull String pName) {
         return spMap.get(pName);
@@ -63,9 +154,98 @@ public final class SpManager {
 
     /**
      * 根据名称获取Sp实例
+     * * 同一名称返回同一个实例(全局Sp返回全局实例),读取缓存和监听在所有调用方之间共享
+     * * 非全局Sp实例在没有引用后自动回收;注册的监听不再使用时需及时注销
      */
     public static SpTool getSp(@NonNull String pName) {
-        return new SpTool(sContext, pName);
+        SpTool sp = spMap.get(pName);
+        if (sp != null) {
+            return sp;
+        }
+        WeakReference<SpTool> ref = sSpRefs.get(pName);
+        sp = ref == null ? null : ref.get();
+        if (sp != null) {
+            return sp;
+        }
+        synchronized (sSpRefs) {
+            ref = sSpRefs.get(pName);
+            sp = ref == null ? null : ref.get();
+            if (sp == null) {
+                // 清除已回收的实例
+                Iterator<WeakReference<SpTool>> it = sSpRefs.values().iterator();
+                while (it.hasNext()) {
+                    if (it.next().get() == null) {
+                        it.remove();
+                    }
+                }
+                sp = new SpTool(sContext, pName);
+                sSpRefs.put(pName, new WeakReference<>(sp));
+            }
+        }
+        return sp;
+    }
+
+    /**
+     * 获取缓存的加密key,未缓存返回null
+     */
+    static String getEncodedKey(@NonNull String pKey) {
+        return sEncodedKeys.get(pKey);
+    }
+
+    /**
+     * 获取缓存的原始key,未缓存返回null
+     */
+    static String getDecodedKey(@NonNull String pEncodedKey) {
+        return sDecodedKeys.get(pEncodedKey);
+    }
+
+    /**
+     * 缓存key的加密结果,正反两个方向同时缓存
+     */
+    static void putKeyCache(String pKey, String pEncodedKey) {
+        if (pKey == null || pEncodedKey == null) {
+            return;
+        }
+        if (sEncodedKeys.size() >= MAX_KEY_CACHE_SIZE) {
+            sEncodedKeys.clear();
+            sDecodedKeys.clear();
+        }
+        sEncodedKeys.put(pKey, pEncodedKey);
+        sDecodedKeys.put(pEncodedKey, pKey);
+    }
+
+    private static synchronized Executor preloader() {
+        if (sPreloader == null) {
+            int threads = Math.max(1, Math.min(MAX_PRELOAD_THREADS, Runtime.getRuntime().availableProcessors()));
+            sPreloader = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                private final AtomicInteger mCount = new AtomicInteger(0);
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "SpTool-Preload-" + mCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            sPreloader.allowCoreThreadTimeOut(true);
+        }
+        return sPreloader;
+    }
+
+    /**
+     * 指定名称的Sp是否使用内存映射文件存储
+     */
+    static boolean isMmap(@NonNull String pName) {
+        String[] names = MmapSp;
+        if (names == null) {
+            return false;
+        }
+        for (int i = 0, len = names.length; i < len; i++) {
+            if (pName.equals(names[i])) {
+                return true;
+            }
+        }
+        return false;
     }
 
 }
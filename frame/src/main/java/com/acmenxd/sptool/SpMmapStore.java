@@ -0,0 +1,746 @@
+package com.acmenxd.sptool;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/21 10:30
+ * @detail 基于内存映射文件的SharedPreferences实现
+ * * 每次提交只在文件末尾追加一条记录,不重写整个文件;全部数据常驻内存,读取不访问文件
+ * * 记录格式: 长度(4字节) + CRC32(4字节) + 操作列表,一次提交的所有操作在同一条记录中,校验失败的记录及之后的内容丢弃
+ * * 无效记录超过一半时在后台线程压缩文件
+ * * 仅支持单进程访问
+ */
+final class SpMmapStore implements SharedPreferences {
+    private static final byte[] MAGIC = {'S', 'P', 'K', 'V'};
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 1;
+    // 记录头: 长度 + CRC32
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MIN_FILE_SIZE = 16 * 1024;
+    // 文件小于该大小时不压缩
+    private static final int COMPACT_MIN_SIZE = 64 * 1024;
+    private static final String DIR_NAME = "sptool";
+    private static final String SUFFIX = ".kv";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    /**
+     * 操作类型
+     */
+    private static final byte OP_STRING = 1;
+    private static final byte OP_STRING_SET = 2;
+    private static final byte OP_INT = 3;
+    private static final byte OP_LONG = 4;
+    private static final byte OP_FLOAT = 5;
+    private static final byte OP_BOOLEAN = 6;
+    private static final byte OP_REMOVE = 7;
+    private static final byte OP_CLEAR = 8;
+
+    private static final Map<String, SpMmapStore> sStores = new HashMap<>();
+    private static ExecutorService sExecutor;
+    private static Handler sMainHandler;
+
+    private final File mFile;
+    // 全部数据,访问时需持有this锁
+    private final Map<String, Object> mMap = new HashMap<>();
+    private final WeakHashMap<OnSharedPreferenceChangeListener, Object> mListeners = new WeakHashMap<>();
+    private MappedByteBuffer mBuffer;
+    // 有效数据的结束位置
+    private int mPosition;
+    // 当前数据全部重写时的字节数,用于判断是否需要压缩
+    private int mLiveBytes;
+    private boolean mCompactScheduled;
+
+    private SpMmapStore(@NonNull File file) {
+        mFile = file;
+    }
+
+    /**
+     * 获取指定名称的存储,同一名称只创建一个实例
+     * * 文件不存在时导入同名SharedPreferences中的数据,导入失败时抛出异常,下次获取时重新导入
+     */
+    static SpMmapStore get(@NonNull Context pContext, @NonNull String pName) {
+        synchronized (sStores) {
+            SpMmapStore store = sStores.get(pName);
+            if (store == null) {
+                File dir = new File(pContext.getFilesDir(), DIR_NAME);
+                dir.mkdirs();
+                File file = new File(dir, pName + SUFFIX);
+                try {
+                    if (!file.exists()) {
+                        importTo(file, pContext.getSharedPreferences(pName, Context.MODE_PRIVATE));
+                    }
+                    store = open(file);
+                } catch (IOException pE) {
+                    throw new IllegalStateException("Failed to open " + file, pE);
+                }
+                sStores.put(pName, store);
+            }
+            return store;
+        }
+    }
+
+    /**
+     * 打开文件并读取全部数据,不缓存实例
+     */
+    static SpMmapStore open(@NonNull File pFile) throws IOException {
+        SpMmapStore store = new SpMmapStore(pFile);
+        store.load();
+        return store;
+    }
+
+    @Override
+    public synchronized Map<String, ?> getAll() {
+        Map<String, Object> result = new HashMap<>(mMap.size());
+        for (Map.Entry<String, Object> entry : mMap.entrySet()) {
+            Object value = entry.getValue();
+            result.put(entry.getKey(), value instanceof Set ? new HashSet<>((Set<String>) value) : value);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized String getString(String key, String defValue) {
+        Object value = mMap.get(key);
+        return value != null ? (String) value : defValue;
+    }
+
+    @Override
+    public synchronized Set<String> getStringSet(String key, Set<String> defValues) {
+        Object value = mMap.get(key);
+        return value != null ? new HashSet<>((Set<String>) value) : defValues;
+    }
+
+    @Override
+    public synchronized int getInt(String key, int defValue) {
+        Object value = mMap.get(key);
+        return value != null ? (Integer) value : defValue;
+    }
+
+    @Override
+    public synchronized long getLong(String key, long defValue) {
+        Object value = mMap.get(key);
+        return value != null ? (Long) value : defValue;
+    }
+
+    @Override
+    public synchronized float getFloat(String key, float defValue) {
+        Object value = mMap.get(key);
+        return value != null ? (Float) value : defValue;
+    }
+
+    @Override
+    public synchronized boolean getBoolean(String key, boolean defValue) {
+        Object value = mMap.get(key);
+        return value != null ? (Boolean) value : defValue;
+    }
+
+    @Override
+    public synchronized boolean contains(String key) {
+        return mMap.containsKey(key);
+    }
+
+    @Override
+    public Editor edit() {
+        return new EditorImpl();
+    }
+
+    @Override
+    public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        synchronized (mListeners) {
+            mListeners.put(listener, this);
+        }
+    }
+
+    @Override
+    public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        synchronized (mListeners) {
+            mListeners.remove(listener);
+        }
+    }
+
+    /**
+     * 编辑器 - 与SharedPreferences相同,提交时先执行clear再执行其他修改
+     */
+    private final class EditorImpl implements Editor {
+        // 修改内容,value为this表示删除
+        private final Map<String, Object> mModified = new LinkedHashMap<>();
+        private boolean mClear;
+
+        @Override
+        public synchronized Editor putString(String key, String value) {
+            mModified.put(key, value == null ? this : value);
+            return this;
+        }
+
+        @Override
+        public synchronized Editor putStringSet(String key, Set<String> values) {
+            mModified.put(key, values == null ? this : new HashSet<>(values));
+            return this;
+        }
+
+        @Override
+        public synchronized Editor putInt(String key, int value) {
+            mModified.put(key, value);
+            return this;
+        }
+
+        @Override
+        public synchronized Editor putLong(String key, long value) {
+            mModified.put(key, value);
+            return this;
+        }
+
+        @Override
+        public synchronized Editor putFloat(String key, float value) {
+            mModified.put(key, value);
+            return this;
+        }
+
+        @Override
+        public synchronized Editor putBoolean(String key, boolean value) {
+            mModified.put(key, value);
+            return this;
+        }
+
+        @Override
+        public synchronized Editor remove(String key) {
+            mModified.put(key, this);
+            return this;
+        }
+
+        @Override
+        public synchronized Editor clear() {
+            mClear = true;
+            return this;
+        }
+
+        @Override
+        public boolean commit() {
+            return write(true);
+        }
+
+        @Override
+        public void apply() {
+            write(false);
+        }
+
+        private boolean write(boolean sync) {
+            Map<String, Object> modified;
+            boolean clear;
+            synchronized (this) {
+                modified = new LinkedHashMap<>(mModified);
+                clear = mClear;
+                mModified.clear();
+                mClear = false;
+            }
+            List<String> changed = new ArrayList<>(modified.size());
+            boolean result = SpMmapStore.this.write(modified, clear, this, changed, sync);
+            notifyListeners(changed, clear);
+            return result;
+        }
+    }
+
+    /**
+     * 追加一条记录并更新内存数据
+     * * 持有锁时只更新内存和映射区,刷盘在锁外进行,不阻塞其他读写
+     *
+     * @param removed 修改内容中表示删除的标记
+     * @param changed 返回发生变化的key
+     */
+    private boolean write(Map<String, Object> modified, boolean clear, Object removed, List<String> changed, boolean sync) {
+        MappedByteBuffer buffer;
+        synchronized (this) {
+            if (!clear && modified.isEmpty()) {
+                return true;
+            }
+            ByteBuffer record = encodeRecord(modified, clear, removed);
+            if (clear) {
+                mMap.clear();
+                mLiveBytes = 0;
+            }
+            for (Map.Entry<String, Object> entry : modified.entrySet()) {
+                String key = entry.getKey();
+                Object value = entry.getValue();
+                Object old = value == removed ? mMap.remove(key) : mMap.put(key, value);
+                if (old != null) {
+                    mLiveBytes -= entrySize(key, old);
+                }
+                if (value != removed) {
+                    mLiveBytes += entrySize(key, value);
+                }
+                if (value == removed ? old != null : !value.equals(old)) {
+                    changed.add(key);
+                }
+            }
+            try {
+                append(record);
+            } catch (IOException pE) {
+                // 内存数据已更新,与SharedPreferences写入失败时的行为一致
+                return false;
+            } finally {
+                scheduleCompactIfNeeded();
+            }
+            buffer = mBuffer;
+        }
+        // 刷盘期间如果完成了压缩,本条记录已包含在压缩时同步过的新文件中
+        if (sync) {
+            buffer.force();
+        } else {
+            forceAsync(buffer);
+        }
+        return true;
+    }
+
+    private void load() throws IOException {
+        long length = mFile.exists() ? mFile.length() : 0;
+        mBuffer = map(mFile, Math.max(length, MIN_FILE_SIZE));
+        mBuffer.position(0);
+        boolean valid = length >= HEADER_SIZE;
+        for (int i = 0; valid && i < MAGIC.length; i++) {
+            valid = mBuffer.get() == MAGIC[i];
+        }
+        if (!valid || mBuffer.get() != VERSION) {
+            // 新文件或无法识别的文件,重新开始
+            mBuffer.position(0);
+            mBuffer.put(MAGIC).put(VERSION);
+            mPosition = HEADER_SIZE;
+            clearTail();
+            mBuffer.force();
+            return;
+        }
+        mPosition = HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        while (mPosition + RECORD_HEADER_SIZE <= mBuffer.capacity()) {
+            int size = mBuffer.getInt(mPosition);
+            if (size <= 0 || size > mBuffer.capacity() - mPosition - RECORD_HEADER_SIZE) {
+                break;
+            }
+            byte[] payload = new byte[size];
+            mBuffer.position(mPosition + RECORD_HEADER_SIZE);
+            mBuffer.get(payload);
+            crc.reset();
+            crc.update(payload, 0, size);
+            if ((int) crc.getValue() != mBuffer.getInt(mPosition + 4)) {
+                // 写入中断的记录,丢弃
+                break;
+            }
+            try {
+                applyRecord(ByteBuffer.wrap(payload));
+            } catch (RuntimeException pE) {
+                break;
+            }
+            mPosition += RECORD_HEADER_SIZE + size;
+        }
+        clearTail();
+        mLiveBytes = 0;
+        for (Map.Entry<String, Object> entry : mMap.entrySet()) {
+            mLiveBytes += entrySize(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 清除有效数据之后的记录头,防止之后追加的记录与残留数据混淆
+     */
+    private void clearTail() {
+        for (int i = mPosition; i < Math.min(mBuffer.capacity(), mPosition + RECORD_HEADER_SIZE); i++) {
+            mBuffer.put(i, (byte) 0);
+        }
+    }
+
+    /**
+     * 将SharedPreferences中的数据导入到新文件
+     * * 先写入临时文件并刷盘,成功后再重命名为目标文件;中途失败或进程退出时目标文件不存在,下次重新导入
+     */
+    static void importTo(@NonNull File pFile, @NonNull SharedPreferences pSp) throws IOException {
+        File tmp = new File(pFile.getPath() + ".import");
+        tmp.delete();
+        try {
+            SpMmapStore staging = open(tmp);
+            Map<String, ?> all = pSp.getAll();
+            if (!all.isEmpty() && !staging.write(new LinkedHashMap<String, Object>(all), false, null, new ArrayList<String>(), true)) {
+                throw new IOException("Failed to import " + pFile);
+            }
+            if (!tmp.renameTo(pFile)) {
+                throw new IOException("Failed to rename " + tmp);
+            }
+        } catch (IOException pE) {
+            tmp.delete();
+            throw pE;
+        }
+    }
+
+    private void applyRecord(@NonNull ByteBuffer payload) {
+        while (payload.hasRemaining()) {
+            byte op = payload.get();
+            if (op == OP_CLEAR) {
+                mMap.clear();
+                continue;
+            }
+            String key = readString(payload);
+            switch (op) {
+                case OP_STRING:
+                    mMap.put(key, readString(payload));
+                    break;
+                case OP_STRING_SET:
+                    int count = payload.getInt();
+                    Set<String> set = new HashSet<>(count);
+                    for (int i = 0; i < count; i++) {
+                        set.add(readString(payload));
+                    }
+                    mMap.put(key, set);
+                    break;
+                case OP_INT:
+                    mMap.put(key, payload.getInt());
+                    break;
+                case OP_LONG:
+                    mMap.put(key, payload.getLong());
+                    break;
+                case OP_FLOAT:
+                    mMap.put(key, payload.getFloat());
+                    break;
+                case OP_BOOLEAN:
+                    mMap.put(key, payload.get() != 0);
+                    break;
+                case OP_REMOVE:
+                    mMap.remove(key);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown op " + op);
+            }
+        }
+    }
+
+    private ByteBuffer encodeRecord(@NonNull Map<String, Object> modified, boolean clear, Object removed) {
+        int size = clear ? 1 : 0;
+        for (Map.Entry<String, Object> entry : modified.entrySet()) {
+            size += entry.getValue() == removed ? 1 + stringSize(entry.getKey()) : entrySize(entry.getKey(), entry.getValue());
+        }
+        ByteBuffer payload = ByteBuffer.allocate(RECORD_HEADER_SIZE + size);
+        payload.position(RECORD_HEADER_SIZE);
+        if (clear) {
+            payload.put(OP_CLEAR);
+        }
+        for (Map.Entry<String, Object> entry : modified.entrySet()) {
+            Object value = entry.getValue();
+            if (value == removed) {
+                payload.put(OP_REMOVE);
+                putString(payload, entry.getKey());
+            } else {
+                putEntry(payload, entry.getKey(), value);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload.array(), RECORD_HEADER_SIZE, size);
+        payload.putInt(0, size);
+        payload.putInt(4, (int) crc.getValue());
+        payload.position(0);
+        return payload;
+    }
+
+    private void putEntry(@NonNull ByteBuffer payload, @NonNull String key, @NonNull Object value) {
+        if (value instanceof String) {
+            payload.put(OP_STRING);
+            putString(payload, key);
+            putString(payload, (String) value);
+        } else if (value instanceof Set) {
+            Set<String> set = (Set<String>) value;
+            payload.put(OP_STRING_SET);
+            putString(payload, key);
+            payload.putInt(set.size());
+            for (String item : set) {
+                putString(payload, item);
+            }
+        } else if (value instanceof Integer) {
+            payload.put(OP_INT);
+            putString(payload, key);
+            payload.putInt((Integer) value);
+        } else if (value instanceof Long) {
+            payload.put(OP_LONG);
+            putString(payload, key);
+            payload.putLong((Long) value);
+        } else if (value instanceof Float) {
+            payload.put(OP_FLOAT);
+            putString(payload, key);
+            payload.putFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            payload.put(OP_BOOLEAN);
+            putString(payload, key);
+            payload.put((byte) ((Boolean) value ? 1 : 0));
+        }
+    }
+
+    /**
+     * 一条数据写入记录时的字节数
+     */
+    private static int entrySize(@NonNull String key, @NonNull Object value) {
+        int size = 1 + stringSize(key);
+        if (value instanceof String) {
+            size += stringSize((String) value);
+        } else if (value instanceof Set) {
+            size += 4;
+            for (String item : (Set<String>) value) {
+                size += stringSize(item);
+            }
+        } else if (value instanceof Long) {
+            size += 8;
+        } else if (value instanceof Boolean) {
+            size += 1;
+        } else {
+            size += 4;
+        }
+        return size;
+    }
+
+    private static int stringSize(String value) {
+        return 4 + (value == null ? 0 : utf8Length(value));
+    }
+
+    private static int utf8Length(@NonNull String value) {
+        int bytes = 0;
+        for (int i = 0, len = value.length(); i < len; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static void putString(@NonNull ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String readString(@NonNull ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * 追加记录,空间不足时扩大映射区
+     * * 新旧映射区共用同一份页缓存,扩大前不需要刷盘
+     */
+    private void append(@NonNull ByteBuffer record) throws IOException {
+        int required = mPosition + record.remaining();
+        if (required > mBuffer.capacity()) {
+            long size = mBuffer.capacity();
+            while (size < required) {
+                size *= 2;
+            }
+            mBuffer = map(mFile, size);
+        }
+        mBuffer.position(mPosition);
+        mBuffer.put(record);
+        mPosition = required;
+    }
+
+    /**
+     * 映射文件的[0, size),文件不足size时先在末尾写满0
+     * * 不用setLength: 它只产生稀疏文件,磁盘满时写映射区会触发SIGBUS使进程崩溃;
+     * * 预先写入真实字节,空间不足时在这里抛出IOException,文件恢复原长度
+     */
+    private static MappedByteBuffer map(@NonNull File file, long size) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            long length = channel.size();
+            if (length < size) {
+                try {
+                    fill(channel, length, size);
+                } catch (IOException pE) {
+                    channel.truncate(length);
+                    throw pE;
+                }
+            }
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } finally {
+            // 映射建立后即可关闭文件,映射区仍然有效
+            raf.close();
+        }
+    }
+
+    /**
+     * 将[from, size)写满0
+     */
+    private static void fill(@NonNull FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer zeros = ByteBuffer.allocate((int) Math.min(8 * 1024, Math.max(size - from, 1)));
+        long position = from;
+        while (position < size) {
+            zeros.clear();
+            zeros.limit((int) Math.min(zeros.capacity(), size - position));
+            position += channel.write(zeros, position);
+        }
+    }
+
+    private void forceAsync(@NonNull final MappedByteBuffer buffer) {
+        executor().execute(new Runnable() {
+            @Override
+            public void run() {
+                buffer.force();
+            }
+        });
+    }
+
+    private void scheduleCompactIfNeeded() {
+        if (mCompactScheduled || mPosition < COMPACT_MIN_SIZE || mPosition - HEADER_SIZE < mLiveBytes * 2) {
+            return;
+        }
+        mCompactScheduled = true;
+        executor().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    compact();
+                } catch (IOException pE) {
+                    pE.printStackTrace();
+                }
+            }
+        });
+    }
+
+    /**
+     * 压缩: 当前数据写入新文件后替换旧文件
+     * * 持有锁时只生成数据快照和替换文件/映射区,写新文件、同步磁盘、建立映射都在锁外进行
+     * * 期间有新的写入时放弃本次压缩,之后的写入会重新判断是否需要压缩
+     */
+    private void compact() throws IOException {
+        ByteBuffer record;
+        MappedByteBuffer buffer;
+        int position;
+        synchronized (this) {
+            mCompactScheduled = false;
+            record = mMap.isEmpty() ? ByteBuffer.allocate(0) : encodeRecord(mMap, false, null);
+            buffer = mBuffer;
+            position = mPosition;
+        }
+        int length = HEADER_SIZE + record.limit();
+        long size = Math.max(length * 2L, MIN_FILE_SIZE);
+        File tmp = new File(mFile.getPath() + ".tmp");
+        MappedByteBuffer mapped;
+        RandomAccessFile raf = new RandomAccessFile(tmp, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            channel.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.put(MAGIC).put(VERSION).flip();
+            channel.write(header, 0);
+            channel.write(record, HEADER_SIZE);
+            // 记录之后写满0,长度为0的记录头表示数据结束
+            fill(channel, length, size);
+            raf.getFD().sync();
+            // 映射跟随文件本身,重命名后仍然有效
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException pE) {
+            tmp.delete();
+            throw pE;
+        } finally {
+            raf.close();
+        }
+        synchronized (this) {
+            if (mBuffer != buffer || mPosition != position) {
+                tmp.delete();
+                return;
+            }
+            if (!tmp.renameTo(mFile)) {
+                tmp.delete();
+                throw new IOException("Failed to replace " + mFile);
+            }
+            mBuffer = mapped;
+            mPosition = length;
+        }
+    }
+
+    private void notifyListeners(@NonNull final List<String> changed, final boolean clear) {
+        final List<OnSharedPreferenceChangeListener> listeners;
+        synchronized (mListeners) {
+            if (mListeners.isEmpty() || (changed.isEmpty() && !clear)) {
+                return;
+            }
+            listeners = new ArrayList<>(mListeners.keySet());
+        }
+        Runnable notify = new Runnable() {
+            @Override
+            public void run() {
+                for (OnSharedPreferenceChangeListener listener : listeners) {
+                    if (clear) {
+                        // key为null表示数据已全部清除
+                        listener.onSharedPreferenceChanged(SpMmapStore.this, null);
+                    }
+                    for (int i = changed.size() - 1; i >= 0; i--) {
+                        listener.onSharedPreferenceChanged(SpMmapStore.this, changed.get(i));
+                    }
+                }
+            }
+        };
+        // 与SharedPreferences相同,在主线程回调
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            notify.run();
+        } else {
+            mainHandler().post(notify);
+        }
+    }
+
+    private static synchronized Handler mainHandler() {
+        if (sMainHandler == null) {
+            sMainHandler = new Handler(Looper.getMainLooper());
+        }
+        return sMainHandler;
+    }
+
+    private static synchronized ExecutorService executor() {
+        if (sExecutor == null) {
+            sExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "SpTool-Mmap");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sExecutor;
+    }
+}
@@ -0,0 +1,31 @@
+package com.acmenxd.sptool;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/27 14:30
+ * @detail sp对象编解码
+ * * 通过SpManager.registerObjectCodec按类型注册,未注册的类型使用SpGsonCodec
+ */
+public interface SpObjectCodec<T> {
+    /**
+     * 编码
+     *
+     * @param pValue 对象
+     * @return 编码后的字节数据
+     */
+    byte[] encode(@NonNull T pValue) throws IOException;
+
+    /**
+     * 解码
+     *
+     * @param pData 编码后的字节数据
+     * @return 对象
+     */
+    T decode(@NonNull byte[] pData) throws IOException;
+}
@@ -1,18 +1,38 @@
 package com.acmenxd.sptool;
 
+import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.content.SharedPreferences.Editor;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.text.TextUtils;
+import android.view.Choreographer;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author AcmenXD
@@ -20,116 +40,310 @@ import java.util.Set;
  * @github https://github.com/AcmenXD
  * @date 2016/12/26 17:18
  * @detail sp实体类
+ * * 读取结果按key缓存为解密后的类型值,重复读取不再加解密;sp变化时通过监听失效
+ * * 值以二进制类型编码存储(见SpValueCodec),旧版文本标记格式在首次读取时重写为新格式
+ * * 变化监听可按key注册,同一帧内的多次变化合并为每个key一次回调
+ * * 对象通过SpObjectCodec编码为字节存储(默认Gson),读取后缓存解码后的对象
  */
 public final class SpTool {
     /**
      * 存储类型
      */
-    private final int TYPE_INT = 0x1;
-    private final int TYPE_LONG = 0x2;
-    private final int TYPE_FLOAT = 0x3;
-    private final int TYPE_BOOLEAN = 0x4;
-    private final int TYPE_STRING = 0x5;
-    private final int TYPE_SETSTRING = 0x6;
-    private final String INT_STR = "|#@int_int@#|";
-    private final String LONG_STR = "|#@long_long@#|";
-    private final String FLOAT_STR = "|#@float_float@#|";
-    private final String BOOLEAN_STR = "|#@boolean_boolean@#|";
-    private final String STRING_STR = "|#@string_string@#|";
-    private final String SETSTRING_STR = "|#@setString_setString@#|";
+    private static final int TYPE_INT = SpValueCodec.TYPE_INT;
+    private static final int TYPE_LONG = SpValueCodec.TYPE_LONG;
+    private static final int TYPE_FLOAT = SpValueCodec.TYPE_FLOAT;
+    private static final int TYPE_BOOLEAN = SpValueCodec.TYPE_BOOLEAN;
+    private static final int TYPE_STRING = SpValueCodec.TYPE_STRING;
+    private static final int TYPE_SETSTRING = SpValueCodec.TYPE_SETSTRING;
+    private static final int TYPE_OBJECT = SpValueCodec.TYPE_OBJECT;
 
     private Context mContext; //上下文对象
     private String mName; //sp名称
-    private SharedPreferences mSp; //实例对象
-    private List<SpChangeListener> mListeners;
-    private SharedPreferences.OnSharedPreferenceChangeListener mChangeListener;
+    private volatile SharedPreferences mSp; //实例对象,加载完成前为null
+    /**
+     * 监听器快照,注册/注销时整体替换(写时复制),分发时无需加锁
+     */
+    private volatile Listeners mListeners = Listeners.EMPTY;
+    /**
+     * 等待分发的key(已解密),同一帧内的多次变化合并为一次回调
+     */
+    private final Set<String> mPendingKeys = new LinkedHashSet<>();
+    private boolean mPendingClear;
+    private boolean mDispatchScheduled;
+    /**
+     * 读取缓存: 原始key -> 解密后的类型值,基本类型不装箱
+     */
+    private final Map<String, SpValueCodec.Value> mCache = new ConcurrentHashMap<>();
+    // 缓存失效次数,读取期间发生失效时不写入缓存,防止缓存旧值
+    private final AtomicInteger mCacheVersion = new AtomicInteger(0);
+    // getAll的结果快照,任何key变化时与读取缓存一起清除
+    private volatile AllSnapshot mAllCache;
+    // sp只弱引用监听器,必须由本实例强引用;缓存失效与监听分发共用,每次变化只解密一次key
+    private final SharedPreferences.OnSharedPreferenceChangeListener mCacheListener = new SharedPreferences.OnSharedPreferenceChangeListener() {
+        @Override
+        public void onSharedPreferenceChanged(SharedPreferences pSharedPreferences, String pKey) {
+            if (mSp == pSharedPreferences) {
+                String key = pKey == null ? null : decodeKey(pKey);
+                invalidate(key);
+                if (pKey == null || key != null) {
+                    onKeyChanged(key);
+                }
+            }
+        }
+    };
+
+    // 重新加密完成标记(未加密的key),值见migrationMarker
+    private static final String MIGRATION_KEY = "#sptool_encoding#";
+
+    /**
+     * 加载状态 - 预加载完成前,读写只等待本实例的加载
+     */
+    private final CountDownLatch mLoaded = new CountDownLatch(1);
+    private final boolean mPreload;
+    private final long mSubmitTime;
+    private volatile long mStartTime;
+    private volatile long mEndTime;
+    private volatile int mEntryCount;
+    private final AtomicLong mBlockedNanos = new AtomicLong(0);
 
     protected SpTool(@NonNull Context pContext, @NonNull String pName) {
+        this(pContext, pName, null);
+    }
+
+    /**
+     * @param pPreloader 不为null时在此线程池中加载并预热读取缓存,为null时在当前线程加载
+     */
+    protected SpTool(@NonNull Context pContext, @NonNull String pName, Executor pPreloader) {
         mContext = pContext;
         mName = pName;
-        mSp = mContext.getSharedPreferences(mName, mContext.MODE_PRIVATE);
+        mPreload = pPreloader != null;
+        mSubmitTime = System.nanoTime();
+        if (pPreloader == null) {
+            load();
+        } else {
+            pPreloader.execute(new Runnable() {
+                @Override
+                public void run() {
+                    load();
+                }
+            });
+        }
     }
 
     /**
-     * 注册监听 -> 允许多个监听同时存在
+     * 加载Sp: 读取磁盘数据,迁移旧加密数据,预加载时解密全部数据到读取缓存
+     * * 加载失败时不缓存失败结果,之后访问时在调用线程重新加载
      */
-    public SpChangeListener registerOnChangeListener(@NonNull SpChangeListener pListener) {
-        if (pListener == null) {
-            return null;
+    private void load() {
+        mStartTime = System.nanoTime();
+        try {
+            mSp = open();
+            if (mPreload) {
+                warmCache();
+            }
+        } catch (Throwable pE) {
+            // 加载失败时mSp为null,访问时在调用线程重新加载并抛出异常
+        } finally {
+            mEndTime = System.nanoTime();
+            mLoaded.countDown();
         }
-        if (mListeners == null) {
-            mListeners = new ArrayList<>();
+    }
+
+    /**
+     * 打开Sp并迁移旧加密数据,全部成功后才赋值给mSp
+     */
+    private SharedPreferences open() {
+        SharedPreferences sp = SpManager.isMmap(mName) ? SpMmapStore.get(mContext, mName) : mContext.getSharedPreferences(mName, mContext.MODE_PRIVATE);
+        if (SpManager.sLegacyEncodeDecodeCallback != null) {
+            migrate(sp, SpManager.sLegacyEncodeDecodeCallback);
         }
-        if (mChangeListener == null) {
-            mChangeListener = new SharedPreferences.OnSharedPreferenceChangeListener() {
-                @Override
-                public void onSharedPreferenceChanged(SharedPreferences pSharedPreferences, String pKey) {
-                    if (mSp == pSharedPreferences && mListeners != null) {
-                        String key = decode(pKey);
-                        Iterator<SpChangeListener> it = mListeners.iterator();
-                        while (it.hasNext()) {
-                            SpChangeListener listener = it.next();
-                            if (listener != null) {
-                                listener.onChanged(key);
-                            }
-                        }
-                    }
+        sp.registerOnSharedPreferenceChangeListener(mCacheListener);
+        return sp;
+    }
+
+    /**
+     * 上次加载失败时在调用线程重新加载,仍然失败时抛出异常,下次访问再重试
+     */
+    private SharedPreferences reload() {
+        synchronized (mLoaded) {
+            if (mSp == null) {
+                try {
+                    mSp = open();
+                } catch (Throwable pE) {
+                    throw new IllegalStateException("SpTool load failed: " + mName, pE);
                 }
-            };
-            registerOnSharedPreferenceChangeListener(mChangeListener);
+            }
+            return mSp;
         }
-        mListeners.add(pListener);
-        return pListener;
     }
 
     /**
-     * 注销监听
-     * * 注意:无用的Listener一定要及时销毁,否则可能会引发异常
+     * 解密全部数据放入读取缓存,旧版格式的数据留给首次读取时重写
      */
-    public void unregisterOnChangeListener(@NonNull SpChangeListener pListener) {
-        if (pListener == null) {
+    private void warmCache() {
+        Map<String, ?> all = mSp.getAll();
+        int count = 0;
+        for (Map.Entry<String, ?> entry : all.entrySet()) {
+            String rawKey = entry.getKey();
+            if (rawKey == null || MIGRATION_KEY.equals(rawKey)) {
+                continue;
+            }
+            try {
+                String key = decodeKey(rawKey);
+                SpValueCodec.Value value;
+                if (entry.getValue() instanceof Set) {
+                    value = decodeSet(SpManager.sEncodeDecodeCallback, (Set<String>) entry.getValue());
+                } else {
+                    value = decodeValue(String.valueOf(entry.getValue()));
+                }
+                if (key != null && value != null && !value.legacy) {
+                    mCache.put(key, value);
+                    count++;
+                }
+            } catch (RuntimeException pE) {
+                // 无法解密的数据不预热,读取时再处理
+            }
+        }
+        mEntryCount = count;
+    }
+
+    /**
+     * 获取SharedPreferences - 加载未完成时等待
+     */
+    private SharedPreferences sp() {
+        if (mLoaded.getCount() > 0) {
+            long start = System.nanoTime();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    mLoaded.await();
+                    break;
+                } catch (InterruptedException pE) {
+                    interrupted = true;
+                }
+            }
+            mBlockedNanos.addAndGet(System.nanoTime() - start);
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        SharedPreferences sp = mSp;
+        return sp != null ? sp : reload();
+    }
+
+    /**
+     * 加载是否完成
+     */
+    public boolean isLoaded() {
+        return mLoaded.getCount() == 0;
+    }
+
+    /**
+     * 获取加载耗时统计
+     */
+    public SpLoadStats getLoadStats() {
+        boolean loaded = isLoaded();
+        long start = mStartTime;
+        return new SpLoadStats(mName, mPreload, loaded,
+                start == 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(start - mSubmitTime),
+                loaded ? TimeUnit.NANOSECONDS.toMillis(mEndTime - start) : -1,
+                mEntryCount, TimeUnit.NANOSECONDS.toMillis(mBlockedNanos.get()));
+    }
+
+    /**
+     * 把旧加解密回调加密的数据用当前回调重新加密,一次写入
+     * * 完成后写入标记,之后不再检查;已是新格式或无法解密的数据保持不变
+     */
+    private void migrate(@NonNull SharedPreferences pSp, @NonNull SpEncodeDecodeCallback pLegacy) {
+        SpEncodeDecodeCallback current = SpManager.sEncodeDecodeCallback;
+        if (current == null || current == pLegacy) {
             return;
         }
-        if (mListeners == null) {
+        String marker = migrationMarker(current);
+        Map<String, ?> all = pSp.getAll();
+        if (marker.equals(all.get(MIGRATION_KEY))) {
             return;
         }
-        Iterator<SpChangeListener> it = mListeners.iterator();
-        while (it.hasNext()) {
-            SpChangeListener listener = it.next();
-            if (listener != null && listener == pListener) {
-                it.remove();
-                break;
+        Editor editor = pSp.edit();
+        for (Map.Entry<String, ?> entry : all.entrySet()) {
+            String rawKey = entry.getKey();
+            if (rawKey == null || MIGRATION_KEY.equals(rawKey)) {
+                continue;
             }
-        }
-        if (mListeners.size() <= 0) {
-            mListeners = null;
-            if (mChangeListener != null) {
-                unregisterOnSharedPreferenceChangeListener(mChangeListener);
-                mChangeListener = null;
+            try {
+                if (decode(current, rawKey) != null) {
+                    // 已是新格式
+                    continue;
+                }
+                String key = decode(pLegacy, rawKey);
+                SpValueCodec.Value value;
+                if (entry.getValue() instanceof Set) {
+                    value = decodeSet(pLegacy, (Set<String>) entry.getValue());
+                } else {
+                    value = decodeValue(pLegacy, String.valueOf(entry.getValue()));
+                }
+                if (key != null && value != null && value.exists) {
+                    editor.remove(rawKey);
+                    putObject(editor, key, value.boxed(), value.type);
+                }
+            } catch (RuntimeException pE) {
+                // 无法用旧回调解密,保留原数据
             }
         }
+        editor.putString(MIGRATION_KEY, marker);
+        editor.commit();
     }
 
     /**
-     * 销毁所有监听器
+     * 重新加密完成标记: 加解密回调的类名,SpCipherCallback再加上密钥指纹,更换口令后重新迁移
      */
-    public void unregisterOnChangeListenerAll() {
-        if (mListeners == null) {
-            return;
+    static String migrationMarker(@NonNull SpEncodeDecodeCallback pCallback) {
+        String marker = pCallback.getClass().getName();
+        if (pCallback instanceof SpCipherCallback) {
+            marker += ":" + ((SpCipherCallback) pCallback).fingerprint();
         }
-        Iterator<SpChangeListener> it = mListeners.iterator();
-        while (it.hasNext()) {
-            SpChangeListener listener = it.next();
-            if (listener != null) {
-                it.remove();
-            }
+        return marker;
+    }
+
+    /**
+     * 注册监听 -> 允许多个监听同时存在,所有key变化都会回调
+     * * 同一帧内的多次变化合并,每个key只回调一次
+     */
+    public SpChangeListener registerOnChangeListener(@NonNull SpChangeListener pListener) {
+        return registerOnChangeListener(null, pListener);
+    }
+
+    /**
+     * 注册监听 -> 只在指定key变化时回调
+     * * Sp被清空时也会回调
+     *
+     * @param pKey 为null时监听所有key
+     */
+    public synchronized SpChangeListener registerOnChangeListener(String pKey, @NonNull SpChangeListener pListener) {
+        if (pListener == null) {
+            return null;
         }
-        mListeners.clear();
-        mListeners = null;
-        if (mChangeListener != null) {
-            unregisterOnSharedPreferenceChangeListener(mChangeListener);
-            mChangeListener = null;
+        mListeners = mListeners.add(pKey, pListener);
+        return pListener;
+    }
+
+    /**
+     * 注销监听(包括按key注册的)
+     * * 注意:无用的Listener一定要及时销毁,否则可能会引发异常
+     */
+    public synchronized void unregisterOnChangeListener(@NonNull SpChangeListener pListener) {
+        if (pListener == null) {
+            return;
         }
+        mListeners = mListeners.remove(pListener);
+    }
+
+    /**
+     * 销毁所有监听器
+     * * 注意:同名Sp实例是共享的,会同时销毁其他调用方注册的监听器
+     */
+    public synchronized void unregisterOnChangeListenerAll() {
+        mListeners = Listeners.EMPTY;
     }
 
     /**
@@ -139,7 +353,11 @@ public final class SpTool {
      * @return
      */
     public boolean contains(@NonNull String pKey) {
-        return mSp.contains(encode(pKey));
+        SpValueCodec.Value entry = mCache.get(pKey);
+        if (entry != null) {
+            return entry.exists;
+        }
+        return sp().contains(encodeKey(pKey));
     }
 
     /**
@@ -148,7 +366,9 @@ public final class SpTool {
      * @return 返回是否成功结果
      */
     public boolean clear() {
-        return mSp.edit().clear().commit();
+        boolean result = sp().edit().clear().commit();
+        invalidate(null);
+        return result;
     }
 
     /**
@@ -157,7 +377,9 @@ public final class SpTool {
      * @return 返回是否成功结果
      */
     public boolean remove(@NonNull String pKey) {
-        return mSp.edit().remove(encode(pKey)).commit();
+        boolean result = sp().edit().remove(encodeKey(pKey)).commit();
+        invalidate(pKey);
+        return result;
     }
 
     /**
@@ -188,6 +410,19 @@ public final class SpTool {
     public boolean putStringSet(@NonNull String pKey, @NonNull Set<String> pValue) {
         return putObject(pKey, pValue, TYPE_SETSTRING);
     }
+
+    /**
+     * 存入对象 - 使用SpManager中为其类型注册的SpObjectCodec编码,未注册时使用Gson
+     *
+     * @return 返回是否成功结果,编码失败返回false
+     */
+    public <T> boolean putObject(@NonNull String pKey, @NonNull T pValue) {
+        byte[] data = encodeObject(pValue);
+        if (data == null) {
+            return false;
+        }
+        return putObject(pKey, data, TYPE_OBJECT);
+    }
     //-------------------------------------------- put end
 
     /**
@@ -196,108 +431,573 @@ public final class SpTool {
      * @return 读取值
      */
     public int getInt(@NonNull String pKey, int pDefaultValue) {
-        Object obj = getObject(pKey, TYPE_INT);
-        if (obj != null) {
-            return Integer.parseInt(String.valueOf(obj));
-        } else {
-            return pDefaultValue;
-        }
+        SpValueCodec.Value entry = getValue(pKey, TYPE_INT);
+        return entry != null ? entry.intValue() : pDefaultValue;
     }
 
     public long getLong(@NonNull String pKey, long pDefaultValue) {
-        Object obj = getObject(pKey, TYPE_LONG);
-        if (obj != null) {
-            return Long.parseLong(String.valueOf(obj));
-        } else {
-            return pDefaultValue;
-        }
+        SpValueCodec.Value entry = getValue(pKey, TYPE_LONG);
+        return entry != null ? entry.longValue() : pDefaultValue;
     }
 
     public float getFloat(@NonNull String pKey, float pDefaultValue) {
-        Object obj = getObject(pKey, TYPE_FLOAT);
-        if (obj != null) {
-            return Float.parseFloat(String.valueOf(obj));
-        } else {
-            return pDefaultValue;
-        }
+        SpValueCodec.Value entry = getValue(pKey, TYPE_FLOAT);
+        return entry != null ? entry.floatValue() : pDefaultValue;
     }
 
     public boolean getBoolean(@NonNull String pKey, boolean pDefaultValue) {
-        Object obj = getObject(pKey, TYPE_BOOLEAN);
-        if (obj != null) {
-            return Boolean.parseBoolean(String.valueOf(obj));
-        } else {
-            return pDefaultValue;
-        }
+        SpValueCodec.Value entry = getValue(pKey, TYPE_BOOLEAN);
+        return entry != null ? entry.booleanValue() : pDefaultValue;
     }
 
     public String getString(@NonNull String pKey, @NonNull String pDefaultValue) {
-        Object obj = getObject(pKey, TYPE_STRING);
-        if (obj != null) {
-            return String.valueOf(obj);
+        SpValueCodec.Value entry = getValue(pKey, TYPE_STRING);
+        return entry != null ? (String) entry.value : pDefaultValue;
+    }
+
+    public Set<String> getStringSet(@NonNull String pKey, @NonNull Set<String> pDefaultValue) {
+        SpValueCodec.Value entry = getValue(pKey, TYPE_SETSTRING);
+        if (entry != null) {
+            // 缓存的是不可变集合,返回可修改的副本
+            return new HashSet<>((Set<String>) entry.value);
         } else {
             return pDefaultValue;
         }
     }
 
-    public Set<String> getStringSet(@NonNull String pKey, @NonNull Set<String> pDefaultValue) {
-        Object obj = getObject(pKey, TYPE_SETSTRING);
-        if (obj != null) {
-            return (Set<String>) obj;
-        } else {
+    /**
+     * 读取对象 - 解码结果缓存,重复读取返回同一实例,请勿修改返回的对象
+     *
+     * @return 不存在/类型不同/解码失败时返回默认值
+     */
+    public <T> T getObject(@NonNull String pKey, @NonNull Class<T> pClass, T pDefaultValue) {
+        SpValueCodec.Value entry = getValue(pKey, TYPE_OBJECT);
+        if (entry == null) {
+            return pDefaultValue;
+        }
+        Object decoded = entry.decoded;
+        if (pClass.isInstance(decoded)) {
+            return pClass.cast(decoded);
+        }
+        T result;
+        try {
+            result = SpManager.getObjectCodec(pClass).decode((byte[]) entry.value);
+        } catch (IOException | RuntimeException pE) {
             return pDefaultValue;
         }
+        if (result == null) {
+            return pDefaultValue;
+        }
+        entry.decoded = result;
+        return result;
     }
 
+    /**
+     * 读取全部数据 - 返回快照的副本,数据未变化时不再解密
+     */
     public Map<String, ?> getAll() {
-        Map<String, ?> map = mSp.getAll();
-        Map<String, Object> result = new HashMap<>();
+        AllSnapshot snapshot = mAllCache;
+        if (snapshot == null) {
+            int version = mCacheVersion.get();
+            snapshot = loadAll();
+            if (snapshot.cacheable) {
+                mAllCache = snapshot;
+                if (version != mCacheVersion.get()) {
+                    // 读取期间数据有变化,放弃本次快照
+                    mAllCache = null;
+                }
+            }
+        }
+        return snapshot.copy();
+    }
+
+    /**
+     * 解密全部数据 - 已缓存的值直接使用,未缓存的解密后写入读取缓存
+     */
+    private AllSnapshot loadAll() {
+        Map<String, ?> map = sp().getAll();
+        Map<String, Object> result = new HashMap<>(map.size() * 4 / 3 + 1);
+        int version = mCacheVersion.get();
+        boolean mutable = false;
+        // 旧版格式的数据,统一重写为新格式
+        Editor migration = null;
         for (Map.Entry<String, ?> entry : map.entrySet()) {
-            String key = decode(entry.getKey());
-            if (entry.getValue() instanceof Set) {
-                result.put(key, typeParseSet((Set<String>) entry.getValue()));
+            String rawKey = entry.getKey();
+            if (rawKey == null || MIGRATION_KEY.equals(rawKey)) {
+                continue;
+            }
+            String key = decodeKey(rawKey);
+            if (key == null) {
+                continue;
+            }
+            SpValueCodec.Value value = mCache.get(key);
+            if (value == null || !value.exists) {
+                if (entry.getValue() instanceof Set) {
+                    value = decodeSet(SpManager.sEncodeDecodeCallback, (Set<String>) entry.getValue());
+                } else {
+                    value = decodeValue(String.valueOf(entry.getValue()));
+                }
+                if (value == null) {
+                    continue;
+                }
+                if (!value.legacy) {
+                    mCache.put(key, value);
+                }
+            }
+            if (value.type == TYPE_SETSTRING || value.type == TYPE_OBJECT) {
+                // 对象返回编码后的字节数据
+                result.put(key, value.value);
+                mutable = true;
             } else {
-                String[] obj = typeParse(entry.getValue());
-                if (obj != null && obj.length >= 2 && obj[0] != null && obj[1] != null) {
-                    if (obj[1] == INT_STR) {
-                        result.put(key, Integer.parseInt(obj[0]));
-                    } else if (obj[1] == LONG_STR) {
-                        result.put(key, Long.parseLong(obj[0]));
-                    } else if (obj[1] == FLOAT_STR) {
-                        result.put(key, Float.parseFloat(obj[0]));
-                    } else if (obj[1] == BOOLEAN_STR) {
-                        result.put(key, Boolean.parseBoolean(obj[0]));
-                    } else if (obj[1] == STRING_STR) {
-                        result.put(key, obj[0]);
-                    }
+                result.put(key, value.boxed());
+            }
+            if (value.legacy) {
+                if (migration == null) {
+                    migration = edit();
                 }
+                putObject(migration, key, value.boxed(), value.type);
             }
         }
-        return result;
+        if (version != mCacheVersion.get()) {
+            // 读取期间数据有变化,放弃本次写入的缓存
+            invalidate(null);
+        }
+        if (migration != null) {
+            migration.apply();
+        }
+        return new AllSnapshot(result, mutable, migration == null);
     }
     //-------------------------------------------- get end
 
+    /**
+     * 创建批量编辑器 - 多个put/remove合并为一次写入
+     */
+    public Batch batch() {
+        return new Batch();
+    }
+
+    /**
+     * 批量编辑器
+     * * commit: 同步写入,返回是否成功
+     * * apply: 内存立即生效,后台写入磁盘
+     * * applyAsync: 在后台线程提交本批次,通过Future或回调获取本批次的写入结果
+     * * 每个Batch只能提交一次
+     */
+    public final class Batch {
+        private final Editor mEditor = edit();
+        // 修改过的原始key,提交后清除缓存
+        private final List<String> mKeys = new ArrayList<>();
+        private boolean mClear;
+        private boolean mDone;
+
+        private Batch() {
+        }
+
+        public Batch putInt(@NonNull String pKey, int pValue) {
+            return put(pKey, pValue, TYPE_INT);
+        }
+
+        public Batch putLong(@NonNull String pKey, long pValue) {
+            return put(pKey, pValue, TYPE_LONG);
+        }
+
+        public Batch putFloat(@NonNull String pKey, float pValue) {
+            return put(pKey, pValue, TYPE_FLOAT);
+        }
+
+        public Batch putBoolean(@NonNull String pKey, boolean pValue) {
+            return put(pKey, pValue, TYPE_BOOLEAN);
+        }
+
+        public Batch putString(@NonNull String pKey, @NonNull String pValue) {
+            return put(pKey, pValue, TYPE_STRING);
+        }
+
+        public Batch putStringSet(@NonNull String pKey, @NonNull Set<String> pValue) {
+            return put(pKey, pValue, TYPE_SETSTRING);
+        }
+
+        /**
+         * 存入对象,编码失败时忽略此项
+         */
+        public <T> Batch putObject(@NonNull String pKey, @NonNull T pValue) {
+            byte[] data = encodeObject(pValue);
+            return data == null ? this : put(pKey, data, TYPE_OBJECT);
+        }
+
+        public Batch remove(@NonNull String pKey) {
+            mEditor.remove(encodeKey(pKey));
+            mKeys.add(pKey);
+            return this;
+        }
+
+        /**
+         * 清除所有数据 - 与SharedPreferences.Editor相同,先执行clear再执行本批次的put
+         */
+        public Batch clear() {
+            mEditor.clear();
+            mClear = true;
+            return this;
+        }
+
+        /**
+         * 同步写入
+         *
+         * @return 返回是否成功结果
+         */
+        public boolean commit() {
+            checkDone();
+            boolean result = mEditor.commit();
+            invalidateAll();
+            return result;
+        }
+
+        /**
+         * 异步写入,不需要写入结果
+         */
+        public void apply() {
+            checkDone();
+            mEditor.apply();
+            invalidateAll();
+        }
+
+        /**
+         * 在后台线程提交本批次
+         *
+         * @return 本批次写入磁盘完成后返回是否成功
+         */
+        public Future<Boolean> applyAsync() {
+            return applyAsync(null);
+        }
+
+        /**
+         * 在后台线程提交本批次 - 提交前读取的仍是旧值
+         *
+         * @param pCallback 本批次写入磁盘完成后在后台线程回调,可以为null
+         * @return 本批次写入磁盘完成后返回是否成功
+         */
+        public Future<Boolean> applyAsync(final SpCommitCallback pCallback) {
+            checkDone();
+            return applyExecutor().submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    // 提交本批次自己的修改,结果即为这次写入的结果
+                    boolean result = mEditor.commit();
+                    invalidateAll();
+                    if (pCallback != null) {
+                        pCallback.onCommitted(result);
+                    }
+                    return result;
+                }
+            });
+        }
+
+        private Batch put(@NonNull String pKey, @NonNull Object pValue, int type) {
+            SpTool.this.putObject(mEditor, pKey, pValue, type);
+            mKeys.add(pKey);
+            return this;
+        }
+
+        private void checkDone() {
+            if (mDone) {
+                throw new IllegalStateException("Batch already committed");
+            }
+            mDone = true;
+        }
+
+        private void invalidateAll() {
+            if (mClear) {
+                invalidate(null);
+                return;
+            }
+            for (int i = 0, len = mKeys.size(); i < len; i++) {
+                invalidate(mKeys.get(i));
+            }
+        }
+    }
+
     //-----------------------private 方法,无需关心------------------------------
 
+    /**
+     * 等待异步写入完成的线程,所有Sp实例共用
+     */
+    private static ExecutorService sApplyExecutor;
+
+    private static synchronized ExecutorService applyExecutor() {
+        if (sApplyExecutor == null) {
+            sApplyExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "SpTool-Apply");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sApplyExecutor;
+    }
+
+    /**
+     * 监听分发在主线程执行,所有Sp实例共用
+     */
+    private static Handler sMainHandler;
+    // 不支持Choreographer时按一帧的时长延迟分发
+    private static final long FRAME_INTERVAL = 16;
+
+    private static synchronized Handler mainHandler() {
+        if (sMainHandler == null) {
+            sMainHandler = new Handler(Looper.getMainLooper());
+        }
+        return sMainHandler;
+    }
+
+    private final Runnable mDispatchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            dispatchChanges();
+        }
+    };
+
+    /**
+     * key发生变化 - 有对应监听时加入待分发集合,每帧只安排一次分发
+     *
+     * @param pKey 为null表示Sp被清空
+     */
+    private void onKeyChanged(String pKey) {
+        if (!mListeners.accept(pKey)) {
+            return;
+        }
+        boolean schedule;
+        synchronized (mPendingKeys) {
+            if (pKey == null) {
+                mPendingClear = true;
+            } else {
+                mPendingKeys.add(pKey);
+            }
+            schedule = !mDispatchScheduled;
+            mDispatchScheduled = true;
+        }
+        if (schedule) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN && Looper.myLooper() == Looper.getMainLooper()) {
+                FrameDispatcher.post(mDispatchRunnable);
+            } else {
+                mainHandler().postDelayed(mDispatchRunnable, FRAME_INTERVAL);
+            }
+        }
+    }
+
+    /**
+     * 分发本帧内合并的变化
+     */
+    private void dispatchChanges() {
+        List<String> keys;
+        boolean clear;
+        synchronized (mPendingKeys) {
+            keys = new ArrayList<>(mPendingKeys);
+            clear = mPendingClear;
+            mPendingKeys.clear();
+            mPendingClear = false;
+            mDispatchScheduled = false;
+        }
+        Listeners listeners = mListeners;
+        if (clear) {
+            listeners.dispatchClear(keys);
+        }
+        for (int i = 0, len = keys.size(); i < len; i++) {
+            listeners.dispatch(keys.get(i));
+        }
+    }
+
+    /**
+     * 在下一帧执行 - 仅API 16及以上可用
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static final class FrameDispatcher {
+        static void post(@NonNull final Runnable pRunnable) {
+            Choreographer.getInstance().postFrameCallback(new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    pRunnable.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * getAll的结果快照 - 不可变,返回给调用方的是副本
+     */
+    private static final class AllSnapshot {
+        final Map<String, Object> values;
+        // 是否含有Set<String>/对象字节,复制时需要连同这些值一起复制
+        final boolean mutable;
+        // 含旧版格式数据时正在重写,不缓存
+        final boolean cacheable;
+
+        AllSnapshot(Map<String, Object> pValues, boolean pMutable, boolean pCacheable) {
+            values = pValues;
+            mutable = pMutable;
+            cacheable = pCacheable;
+        }
+
+        Map<String, Object> copy() {
+            Map<String, Object> result = new HashMap<>(values);
+            if (mutable) {
+                for (Map.Entry<String, Object> entry : result.entrySet()) {
+                    Object value = entry.getValue();
+                    if (value instanceof Set) {
+                        entry.setValue(new HashSet<>((Set<String>) value));
+                    } else if (value instanceof byte[]) {
+                        entry.setValue(((byte[]) value).clone());
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 监听器快照 - 不可变,修改时生成新实例
+     */
+    private static final class Listeners {
+        static final Listeners EMPTY = new Listeners(new SpChangeListener[0], Collections.<String, SpChangeListener[]>emptyMap());
+        // 监听所有key
+        final SpChangeListener[] all;
+        // 按key监听
+        final Map<String, SpChangeListener[]> byKey;
+
+        Listeners(SpChangeListener[] pAll, Map<String, SpChangeListener[]> pByKey) {
+            all = pAll;
+            byKey = pByKey;
+        }
+
+        Listeners add(String pKey, @NonNull SpChangeListener pListener) {
+            if (pKey == null) {
+                return new Listeners(append(all, pListener), byKey);
+            }
+            Map<String, SpChangeListener[]> map = new HashMap<>(byKey);
+            SpChangeListener[] listeners = map.get(pKey);
+            map.put(pKey, append(listeners == null ? EMPTY.all : listeners, pListener));
+            return new Listeners(all, map);
+        }
+
+        Listeners remove(@NonNull SpChangeListener pListener) {
+            Map<String, SpChangeListener[]> map = new HashMap<>();
+            for (Map.Entry<String, SpChangeListener[]> entry : byKey.entrySet()) {
+                SpChangeListener[] listeners = without(entry.getValue(), pListener);
+                if (listeners.length > 0) {
+                    map.put(entry.getKey(), listeners);
+                }
+            }
+            SpChangeListener[] allListeners = without(all, pListener);
+            if (allListeners.length == 0 && map.isEmpty()) {
+                return EMPTY;
+            }
+            return new Listeners(allListeners, map);
+        }
+
+        /**
+         * 是否有监听关心此key
+         */
+        boolean accept(String pKey) {
+            if (all.length > 0) {
+                return true;
+            }
+            return pKey == null ? !byKey.isEmpty() : byKey.containsKey(pKey);
+        }
+
+        void dispatch(@NonNull String pKey) {
+            notify(all, pKey);
+            SpChangeListener[] listeners = byKey.get(pKey);
+            if (listeners != null) {
+                notify(listeners, pKey);
+            }
+        }
+
+        /**
+         * Sp被清空 - 按key监听的回调各自的key,已在pKeys中的随后单独回调
+         */
+        void dispatchClear(@NonNull List<String> pKeys) {
+            notify(all, null);
+            for (Map.Entry<String, SpChangeListener[]> entry : byKey.entrySet()) {
+                if (!pKeys.contains(entry.getKey())) {
+                    notify(entry.getValue(), entry.getKey());
+                }
+            }
+        }
+
+        private static void notify(@NonNull SpChangeListener[] pListeners, String pKey) {
+            for (SpChangeListener listener : pListeners) {
+                listener.onChanged(pKey);
+            }
+        }
+
+        private static SpChangeListener[] append(@NonNull SpChangeListener[] pListeners, @NonNull SpChangeListener pListener) {
+            SpChangeListener[] result = Arrays.copyOf(pListeners, pListeners.length + 1);
+            result[pListeners.length] = pListener;
+            return result;
+        }
+
+        private static SpChangeListener[] without(@NonNull SpChangeListener[] pListeners, @NonNull SpChangeListener pListener) {
+            int index = -1;
+            for (int i = 0; i < pListeners.length; i++) {
+                if (pListeners[i] == pListener) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return pListeners;
+            }
+            SpChangeListener[] result = new SpChangeListener[pListeners.length - 1];
+            System.arraycopy(pListeners, 0, result, 0, index);
+            System.arraycopy(pListeners, index + 1, result, index, result.length - index);
+            return result;
+        }
+    }
+
     /**
      * 获取Editor 实例
      */
     private Editor edit() {
-        return mSp.edit();
+        return sp().edit();
     }
 
     /**
      * 注册监听
      */
     private void registerOnSharedPreferenceChangeListener(@NonNull SharedPreferences.OnSharedPreferenceChangeListener pOnSharedPreferenceChangeListener) {
-        mSp.registerOnSharedPreferenceChangeListener(pOnSharedPreferenceChangeListener);
+        sp().registerOnSharedPreferenceChangeListener(pOnSharedPreferenceChangeListener);
     }
 
     /**
      * 注销监听
      */
     private void unregisterOnSharedPreferenceChangeListener(@NonNull SharedPreferences.OnSharedPreferenceChangeListener pOnSharedPreferenceChangeListener) {
-        mSp.unregisterOnSharedPreferenceChangeListener(pOnSharedPreferenceChangeListener);
+        sp().unregisterOnSharedPreferenceChangeListener(pOnSharedPreferenceChangeListener);
+    }
+
+    /**
+     * key加密 - 结果由SpManager缓存,同一个key只加密一次
+     */
+    private String encodeKey(@NonNull String pKey) {
+        String encoded = SpManager.getEncodedKey(pKey);
+        if (encoded == null) {
+            encoded = encode(pKey);
+            SpManager.putKeyCache(pKey, encoded);
+        }
+        return encoded;
+    }
+
+    /**
+     * key解密 - 结果由SpManager缓存,同一个key只解密一次
+     */
+    private String decodeKey(@NonNull String pEncodedKey) {
+        String key = SpManager.getDecodedKey(pEncodedKey);
+        if (key == null) {
+            key = decode(pEncodedKey);
+            SpManager.putKeyCache(key, pEncodedKey);
+        }
+        return key;
     }
 
     /**
@@ -319,9 +1019,13 @@ public final class SpTool {
      * 解密
      */
     private String decode(@NonNull String pStr) {
+        return decode(SpManager.sEncodeDecodeCallback, pStr);
+    }
+
+    private static String decode(SpEncodeDecodeCallback callback, @NonNull String pStr) {
         String str = null;
-        if (SpManager.sEncodeDecodeCallback != null) {
-            String result = SpManager.sEncodeDecodeCallback.decode(pStr);
+        if (callback != null) {
+            String result = callback.decode(pStr);
             if (result != null) {
                 // 去掉结尾无用字符
                 str = result.trim();
@@ -330,73 +1034,145 @@ public final class SpTool {
         return str;
     }
 
+    /**
+     * 值编码并加密 - 加解密回调为SpCipherCallback时直接加密字节,不经过字符串转换
+     */
+    private String encodeValue(int type, @NonNull Object pValue) {
+        SpEncodeDecodeCallback callback = SpManager.sEncodeDecodeCallback;
+        if (callback instanceof SpCipherCallback) {
+            return ((SpCipherCallback) callback).encodeBytes(SpValueCodec.encodeBytes(type, pValue));
+        }
+        return encode(SpValueCodec.encode(type, pValue));
+    }
+
+    private SpValueCodec.Value decodeValue(@NonNull String pStr) {
+        return decodeValue(SpManager.sEncodeDecodeCallback, pStr);
+    }
+
+    /**
+     * 解密并解码值
+     *
+     * @return 无法解析返回null
+     */
+    private SpValueCodec.Value decodeValue(SpEncodeDecodeCallback callback, @NonNull String pStr) {
+        if (callback instanceof SpCipherCallback) {
+            return SpValueCodec.decodeBytes(((SpCipherCallback) callback).decodeBytes(pStr));
+        }
+        return SpValueCodec.decode(decode(callback, pStr));
+    }
+
     /**
      * * 加密处理
      * 存储到SharedPreferences
      */
     private boolean putObject(@NonNull String pKey, @NonNull Object pValue, int type) {
-        boolean result = false;
-        switch (type) {
-            case TYPE_INT:
-                result = edit().putString(encode(pKey), encode(INT_STR + String.valueOf(pValue))).commit();
-                break;
-            case TYPE_LONG:
-                result = edit().putString(encode(pKey), encode(LONG_STR + String.valueOf(pValue))).commit();
-                break;
-            case TYPE_FLOAT:
-                result = edit().putString(encode(pKey), encode(FLOAT_STR + String.valueOf(pValue))).commit();
-                break;
-            case TYPE_BOOLEAN:
-                result = edit().putString(encode(pKey), encode(BOOLEAN_STR + String.valueOf(pValue))).commit();
-                break;
-            case TYPE_STRING:
-                result = edit().putString(encode(pKey), encode(STRING_STR + String.valueOf(pValue))).commit();
-                break;
-            case TYPE_SETSTRING:
-                Set<String> values = new HashSet<>();
-                Iterator it = ((Set<String>) pValue).iterator();
-                while (it.hasNext()) {
-                    values.add(encode(SETSTRING_STR + it.next()));
-                }
-                result = edit().putStringSet(encode(pKey), values).commit();
-                break;
-        }
+        Editor editor = edit();
+        putObject(editor, pKey, pValue, type);
+        boolean result = editor.commit();
+        invalidate(pKey);
         return result;
     }
 
+    /**
+     * 对象编码为字节
+     *
+     * @return 编码失败返回null
+     */
+    private static <T> byte[] encodeObject(@NonNull T pValue) {
+        SpObjectCodec<T> codec = SpManager.getObjectCodec((Class<T>) pValue.getClass());
+        try {
+            return codec.encode(pValue);
+        } catch (IOException | RuntimeException pE) {
+            return null;
+        }
+    }
+
+    /**
+     * * 加密处理
+     * 写入Editor,由调用方提交
+     */
+    private void putObject(@NonNull Editor editor, @NonNull String pKey, @NonNull Object pValue, int type) {
+        if (type == TYPE_SETSTRING) {
+            Set<String> values = new HashSet<>();
+            Iterator<String> it = ((Set<String>) pValue).iterator();
+            while (it.hasNext()) {
+                values.add(encodeValue(TYPE_SETSTRING, it.next()));
+            }
+            editor.putStringSet(encodeKey(pKey), values);
+        } else {
+            editor.putString(encodeKey(pKey), encodeValue(type, pValue));
+        }
+    }
+
+    /**
+     * 读取解密后的类型值 - 优先读缓存,未命中时解密并写入缓存
+     *
+     * @return 不存在或存储的类型与读取类型不一致时返回null
+     */
+    private SpValueCodec.Value getValue(@NonNull String pKey, int type) {
+        SpValueCodec.Value entry = mCache.get(pKey);
+        if (entry == null) {
+            int version = mCacheVersion.get();
+            entry = readObject(pKey, type);
+            if (entry == null) {
+                return null;
+            }
+            mCache.put(pKey, entry);
+            if (version != mCacheVersion.get()) {
+                // 读取期间数据有变化,放弃本次缓存
+                mCache.remove(pKey);
+            }
+        }
+        return entry.type == type && entry.exists ? entry : null;
+    }
+
+    /**
+     * 清除缓存
+     *
+     * @param pKey 原始key, null表示清除全部
+     */
+    private void invalidate(String pKey) {
+        mCacheVersion.incrementAndGet();
+        mAllCache = null;
+        if (pKey == null) {
+            mCache.clear();
+        } else {
+            mCache.remove(pKey);
+        }
+    }
+
     /**
      * * 解密处理
-     * 存储到SharedPreferences
+     * 从SharedPreferences读取,旧版格式的数据重写为新格式
+     *
+     * @return key不存在或无法解析时value为null;存储类型不同(String/Set<String>)时返回null
      */
-    private Object getObject(@NonNull String pKey, int type) {
-        Object result = null;
-        if (type != TYPE_SETSTRING) {
-            String value = mSp.getString(encode(pKey), null);
-            if (!TextUtils.isEmpty(value)) {
-                String v = decode(value);
-                switch (type) {
-                    case TYPE_INT:
-                        result = v.replace(INT_STR, "");
-                        break;
-                    case TYPE_LONG:
-                        result = v.replace(LONG_STR, "");
-                        break;
-                    case TYPE_FLOAT:
-                        result = v.replace(FLOAT_STR, "");
-                        break;
-                    case TYPE_BOOLEAN:
-                        result = v.replace(BOOLEAN_STR, "");
-                        break;
-                    case TYPE_STRING:
-                        result = v.replace(STRING_STR, "");
-                        break;
+    private SpValueCodec.Value readObject(@NonNull String pKey, int type) {
+        String encodedKey = encodeKey(pKey);
+        SpValueCodec.Value result = null;
+        try {
+            if (type == TYPE_SETSTRING) {
+                Set<String> v = sp().getStringSet(encodedKey, null);
+                if (v != null) {
+                    result = decodeSet(SpManager.sEncodeDecodeCallback, v);
+                }
+            } else {
+                String value = sp().getString(encodedKey, null);
+                if (!TextUtils.isEmpty(value)) {
+                    result = decodeValue(value);
                 }
             }
-        } else if (type == TYPE_SETSTRING) {
-            Set<String> v = mSp.getStringSet(encode(pKey), null);
-            if (v != null) {
-                result = typeParseSet(v);
-            }
+        } catch (ClassCastException pE) {
+            // 存储的是另一种类型(String/Set<String>),不缓存
+            return null;
+        }
+        if (result == null) {
+            return new SpValueCodec.Value(type, null, false);
+        }
+        if (result.legacy) {
+            Editor editor = edit();
+            putObject(editor, pKey, result.boxed(), result.type);
+            editor.apply();
         }
         return result;
     }
@@ -404,39 +1180,18 @@ public final class SpTool {
     /**
      * 解析Set<String>类型
      */
-    private Set<String> typeParseSet(@NonNull Set<String> v) {
+    private SpValueCodec.Value decodeSet(SpEncodeDecodeCallback callback, @NonNull Set<String> v) {
         Set<String> result = new HashSet<>();
+        boolean legacy = false;
         Iterator<String> it = v.iterator();
         while (it.hasNext()) {
-            result.add(decode(it.next()).replace(SETSTRING_STR, ""));
+            SpValueCodec.Value item = decodeValue(callback, it.next());
+            if (item != null && item.type == TYPE_SETSTRING) {
+                result.add((String) item.value);
+                legacy |= item.legacy;
+            }
         }
-        return result;
-    }
-
-    /**
-     * 解析非Set<String>类型
-     */
-    private String[] typeParse(@NonNull Object value) {
-        String result = null; // 解析结果
-        String type = null; // 解析类型
-        String v = decode(String.valueOf(value));
-        if (v.indexOf(INT_STR) != -1) {
-            result = v.replace(INT_STR, "");
-            type = INT_STR;
-        } else if (v.indexOf(LONG_STR) != -1) {
-            result = v.replace(LONG_STR, "");
-            type = LONG_STR;
-        } else if (v.indexOf(FLOAT_STR) != -1) {
-            result = v.replace(FLOAT_STR, "");
-            type = FLOAT_STR;
-        } else if (v.indexOf(BOOLEAN_STR) != -1) {
-            result = v.replace(BOOLEAN_STR, "");
-            type = BOOLEAN_STR;
-        } else if (v.indexOf(STRING_STR) != -1) {
-            result = v.replace(STRING_STR, "");
-            type = STRING_STR;
-        }
-        return new String[]{result, type};
+        return new SpValueCodec.Value(TYPE_SETSTRING, Collections.unmodifiableSet(result), legacy);
     }
 
 }
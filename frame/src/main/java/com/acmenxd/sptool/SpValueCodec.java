@@ -0,0 +1,241 @@
+package com.acmenxd.sptool;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/7/20 11:05
+ * @detail SP值的二进制类型编码
+ * * 格式: 类型(1字节) + 数据(int/float 4字节, long 8字节, boolean 1字节, String为UTF-8字节, 对象为SpObjectCodec编码的字节),整体Base64一次
+ * * 加解密回调为SpCipherCallback时直接加密字节,不做这次Base64
+ * * 兼容旧版的文本类型标记格式("|#@int_int@#|123"),读取时按标记解析
+ */
+final class SpValueCodec {
+    /**
+     * 类型
+     */
+    static final int TYPE_INT = 0x1;
+    static final int TYPE_LONG = 0x2;
+    static final int TYPE_FLOAT = 0x3;
+    static final int TYPE_BOOLEAN = 0x4;
+    static final int TYPE_STRING = 0x5;
+    static final int TYPE_SETSTRING = 0x6;
+    static final int TYPE_OBJECT = 0x7;
+    /**
+     * 旧版类型标记
+     */
+    private static final String LEGACY_PREFIX = "|#@";
+    private static final String INT_STR = "|#@int_int@#|";
+    private static final String LONG_STR = "|#@long_long@#|";
+    private static final String FLOAT_STR = "|#@float_float@#|";
+    private static final String BOOLEAN_STR = "|#@boolean_boolean@#|";
+    private static final String STRING_STR = "|#@string_string@#|";
+    private static final String SETSTRING_STR = "|#@setString_setString@#|";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private SpValueCodec() {
+    }
+
+    /**
+     * 解码后的类型值
+     * * int/long/float/boolean存放在bits中,缓存和读取都不经过装箱对象
+     */
+    static final class Value {
+        final int type;
+        // String/Set<String>/对象的编码字节,基本类型为null
+        final Object value;
+        // 基本类型的值: int/long/boolean按long存放,float存放Float.floatToRawIntBits
+        final long bits;
+        // key是否存在(不存在时作为未命中结果缓存)
+        final boolean exists;
+        // 是否为旧版格式,需要重写为新格式
+        final boolean legacy;
+        // TYPE_OBJECT解码后的对象,首次按类型读取时写入
+        volatile Object decoded;
+
+        Value(int type, Object value, boolean legacy) {
+            this(type, value, 0, value != null, legacy);
+        }
+
+        private Value(int type, Object value, long bits, boolean exists, boolean legacy) {
+            this.type = type;
+            this.value = value;
+            this.bits = bits;
+            this.exists = exists;
+            this.legacy = legacy;
+        }
+
+        static Value ofInt(int value, boolean legacy) {
+            return new Value(TYPE_INT, null, value, true, legacy);
+        }
+
+        static Value ofLong(long value, boolean legacy) {
+            return new Value(TYPE_LONG, null, value, true, legacy);
+        }
+
+        static Value ofFloat(float value, boolean legacy) {
+            return new Value(TYPE_FLOAT, null, Float.floatToRawIntBits(value), true, legacy);
+        }
+
+        static Value ofBoolean(boolean value, boolean legacy) {
+            return new Value(TYPE_BOOLEAN, null, value ? 1 : 0, true, legacy);
+        }
+
+        int intValue() {
+            return (int) bits;
+        }
+
+        long longValue() {
+            return bits;
+        }
+
+        float floatValue() {
+            return Float.intBitsToFloat((int) bits);
+        }
+
+        boolean booleanValue() {
+            return bits != 0;
+        }
+
+        /**
+         * 装箱后的值 - 用于getAll/重写等非热点路径,key不存在时为null
+         */
+        Object boxed() {
+            if (!exists) {
+                return null;
+            }
+            switch (type) {
+                case TYPE_INT:
+                    return intValue();
+                case TYPE_LONG:
+                    return longValue();
+                case TYPE_FLOAT:
+                    return floatValue();
+                case TYPE_BOOLEAN:
+                    return booleanValue();
+            }
+            return value;
+        }
+    }
+
+    /**
+     * 编码值(Set<String>中的每一项单独编码)
+     */
+    static String encode(int type, @NonNull Object value) {
+        return SpBase64.encode(encodeBytes(type, value));
+    }
+
+    /**
+     * 编码为字节,不做Base64 - 加解密回调支持字节数据时使用
+     */
+    static byte[] encodeBytes(int type, @NonNull Object value) {
+        ByteBuffer buffer;
+        switch (type) {
+            case TYPE_INT:
+                buffer = ByteBuffer.allocate(1 + 4).put((byte) type).putInt((Integer) value);
+                break;
+            case TYPE_LONG:
+                buffer = ByteBuffer.allocate(1 + 8).put((byte) type).putLong((Long) value);
+                break;
+            case TYPE_FLOAT:
+                buffer = ByteBuffer.allocate(1 + 4).put((byte) type).putFloat((Float) value);
+                break;
+            case TYPE_BOOLEAN:
+                buffer = ByteBuffer.allocate(1 + 1).put((byte) type).put((byte) ((Boolean) value ? 1 : 0));
+                break;
+            case TYPE_OBJECT:
+                byte[] data = (byte[]) value;
+                buffer = ByteBuffer.allocate(1 + data.length).put((byte) type).put(data);
+                break;
+            default:
+                byte[] bytes = String.valueOf(value).getBytes(UTF_8);
+                buffer = ByteBuffer.allocate(1 + bytes.length).put((byte) type).put(bytes);
+                break;
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 解码值(Set<String>中的每一项单独解码)
+     *
+     * @return 无法解析返回null
+     */
+    static Value decode(String str) {
+        if (str == null || str.length() == 0) {
+            return null;
+        }
+        if (str.startsWith(LEGACY_PREFIX)) {
+            return decodeLegacy(str);
+        }
+        byte[] bytes;
+        try {
+            bytes = SpBase64.decode(str);
+        } catch (IllegalArgumentException pE) {
+            return null;
+        }
+        return decodeBytes(bytes);
+    }
+
+    /**
+     * 解码encodeBytes的结果
+     *
+     * @return 无法解析返回null
+     */
+    static Value decodeBytes(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (!buffer.hasRemaining()) {
+            return null;
+        }
+        int type = buffer.get();
+        switch (type) {
+            case TYPE_INT:
+                return buffer.remaining() == 4 ? Value.ofInt(buffer.getInt(), false) : null;
+            case TYPE_LONG:
+                return buffer.remaining() == 8 ? Value.ofLong(buffer.getLong(), false) : null;
+            case TYPE_FLOAT:
+                return buffer.remaining() == 4 ? Value.ofFloat(buffer.getFloat(), false) : null;
+            case TYPE_BOOLEAN:
+                return buffer.remaining() == 1 ? Value.ofBoolean(buffer.get() != 0, false) : null;
+            case TYPE_STRING:
+            case TYPE_SETSTRING:
+                return new Value(type, new String(buffer.array(), buffer.position(), buffer.remaining(), UTF_8), false);
+            case TYPE_OBJECT:
+                return new Value(type, Arrays.copyOfRange(bytes, 1, bytes.length), false);
+        }
+        return null;
+    }
+
+    /**
+     * 解析旧版格式: 类型标记 + 文本值
+     */
+    private static Value decodeLegacy(@NonNull String str) {
+        try {
+            if (str.startsWith(INT_STR)) {
+                return Value.ofInt(Integer.parseInt(str.substring(INT_STR.length())), true);
+            } else if (str.startsWith(LONG_STR)) {
+                return Value.ofLong(Long.parseLong(str.substring(LONG_STR.length())), true);
+            } else if (str.startsWith(FLOAT_STR)) {
+                return Value.ofFloat(Float.parseFloat(str.substring(FLOAT_STR.length())), true);
+            } else if (str.startsWith(BOOLEAN_STR)) {
+                return Value.ofBoolean(Boolean.parseBoolean(str.substring(BOOLEAN_STR.length())), true);
+            } else if (str.startsWith(STRING_STR)) {
+                return new Value(TYPE_STRING, str.substring(STRING_STR.length()), true);
+            } else if (str.startsWith(SETSTRING_STR)) {
+                return new Value(TYPE_SETSTRING, str.substring(SETSTRING_STR.length()), true);
+            }
+        } catch (NumberFormatException pE) {
+            return null;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.acmenxd.frame;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/10 15:20
+ * @detail 测试用的内存分配统计
+ */
+public final class Allocations {
+    private Allocations() {
+    }
+
+    /**
+     * 当前线程已分配的字节数,JVM不支持时返回-1
+     */
+    public static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,253 @@
+package com.acmenxd.logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/2 11:00
+ * @detail 二进制日志: LogBinarySink写入后由LogBinaryDecoder还原,包括跨分段(字典重置)的情况
+ */
+public class LogBinaryDecoderTest {
+    private File mDir;
+    private long mSegmentSize;
+    private int mMaxCount;
+    private long mMaxTotalSize;
+    private boolean mCompress;
+
+    @Before
+    public void setUp() throws IOException {
+        mSegmentSize = Logger.LOGFILE_BINARY_SEGMENT_SIZE;
+        mMaxCount = Logger.LOGFILE_MAX_COUNT;
+        mMaxTotalSize = Logger.LOGFILE_MAX_TOTAL_SIZE;
+        mCompress = Logger.LOGFILE_COMPRESS;
+        mDir = File.createTempFile("alog", "");
+        mDir.delete();
+        mDir.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        Logger.LOGFILE_BINARY_SEGMENT_SIZE = mSegmentSize;
+        Logger.LOGFILE_MAX_COUNT = mMaxCount;
+        Logger.LOGFILE_MAX_TOTAL_SIZE = mMaxTotalSize;
+        Logger.LOGFILE_COMPRESS = mCompress;
+        File[] files = mDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDir.delete();
+    }
+
+    @Test
+    public void roundTripSingleSegment() throws IOException {
+        long time = 1500000000000L;
+        LogBinarySink sink = new LogBinarySink(mDir);
+        sink.write(time, 3, "Net", "com.acmenxd.Foo", "bar", 42, "hello");
+        sink.write(time + 5, 6, "Net", "com.acmenxd.Foo", "baz", 43, "中文消息");
+        sink.write(time + 5, 4, "Db", null, null, -1, "");
+        sink.close();
+
+        List<LogBinaryDecoder.Entry> entries = decodeAll();
+        assertEquals(3, entries.size());
+        assertEntry(entries.get(0), time, 3, "Net", "com.acmenxd.Foo", "bar", 42, "hello");
+        assertEntry(entries.get(1), time + 5, 6, "Net", "com.acmenxd.Foo", "baz", 43, "中文消息");
+        assertEntry(entries.get(2), time + 5, 4, "Db", "", "", 0, "");
+
+        StringWriter text = new StringWriter();
+        LogBinaryDecoder.decode(segments()[0], text, true);
+        assertTrue(text.toString(), text.toString().contains("中文消息"));
+    }
+
+    @Test
+    public void roundTripAcrossSegments() throws IOException {
+        Logger.LOGFILE_BINARY_SEGMENT_SIZE = 4 * 1024;
+        Logger.LOGFILE_MAX_COUNT = 0;
+        long time = 1500000000000L;
+        int count = 300;
+        LogBinarySink sink = new LogBinarySink(mDir);
+        for (int i = 0; i < count; i++) {
+            sink.write(time + i, 3, "Tag" + (i % 3), "com.acmenxd.Foo", "m" + (i % 5), i, "message number " + i);
+        }
+        sink.close();
+
+        assertTrue("分段数 " + segments().length, segments().length > 1);
+        List<LogBinaryDecoder.Entry> entries = decodeAll();
+        assertEquals(count, entries.size());
+        for (int i = 0; i < count; i++) {
+            assertEntry(entries.get(i), time + i, 3, "Tag" + (i % 3), "com.acmenxd.Foo", "m" + (i % 5), i, "message number " + i);
+        }
+    }
+
+    @Test
+    public void oversizedRecordIsTruncatedIntoOneSegment() throws IOException {
+        Logger.LOGFILE_BINARY_SEGMENT_SIZE = 4 * 1024;
+        Logger.LOGFILE_MAX_COUNT = 0;
+        char[] chars = new char[10 * 1024];
+        Arrays.fill(chars, 'x');
+        LogBinarySink sink = new LogBinarySink(mDir);
+        sink.write(1500000000000L, 3, "Big", "C", "m", 1, new String(chars));
+        sink.close();
+
+        List<LogBinaryDecoder.Entry> entries = decodeAll();
+        assertEquals(1, entries.size());
+        assertTrue(entries.get(0).msg.length() > 0);
+        assertTrue(entries.get(0).msg.length() < 4 * 1024);
+    }
+
+    @Test
+    public void restartResumesPartialSegment() throws IOException {
+        long time = 1500000000000L;
+        LogBinarySink sink = new LogBinarySink(mDir);
+        sink.write(time, 3, "Net", "com.acmenxd.Foo", "bar", 1, "first");
+        sink.write(time + 10, 3, "Net", "com.acmenxd.Foo", "bar", 2, "second");
+        sink.close();
+        // 模拟进程重启: 新的写入器续写同一个分段并沿用其中的字典
+        sink = new LogBinarySink(mDir);
+        sink.write(time + 20, 4, "Net", "com.acmenxd.Foo", "baz", 3, "third");
+        sink.close();
+
+        assertEquals(1, segments().length);
+        assertEquals(Arrays.asList(segments()), LogFileRoller.listSegments(mDir));
+        List<LogBinaryDecoder.Entry> entries = decodeAll();
+        assertEquals(3, entries.size());
+        assertEntry(entries.get(1), time + 10, 3, "Net", "com.acmenxd.Foo", "bar", 2, "second");
+        assertEntry(entries.get(2), time + 20, 4, "Net", "com.acmenxd.Foo", "baz", 3, "third");
+    }
+
+    @Test
+    public void segmentsFollowRollerRetention() throws IOException {
+        Logger.LOGFILE_BINARY_SEGMENT_SIZE = 4 * 1024;
+        Logger.LOGFILE_MAX_COUNT = 0;
+        Logger.LOGFILE_MAX_TOTAL_SIZE = 12 * 1024;
+        long time = 1500000000000L;
+        LogBinarySink sink = new LogBinarySink(mDir);
+        for (int i = 0; i < 1000; i++) {
+            sink.write(time + i, 3, "Tag", "C", "m", i, "message number " + i);
+        }
+        sink.close();
+
+        File[] files = segments();
+        assertEquals(3, files.length);
+        for (File file : files) {
+            // 预分配写入了真实字节,文件长度即分段大小
+            assertEquals(4 * 1024, file.length());
+        }
+        List<File> indexed = LogFileRoller.listSegments(mDir);
+        assertEquals(3, indexed.size());
+        assertEquals(files[files.length - 1], indexed.get(0));
+        List<LogBinaryDecoder.Entry> entries = decodeAll();
+        assertEquals("message number 999", entries.get(entries.size() - 1).msg);
+    }
+
+    @Test
+    public void sharedRollerKeepsCurrentTextSegment() throws IOException {
+        Logger.LOGFILE_MAX_COUNT = 1;
+        Logger.LOGFILE_MAX_TOTAL_SIZE = 0;
+        Logger.LOGFILE_COMPRESS = false;
+        long time = 1500000000000L;
+        LogFileRoller roller = new LogFileRoller(mDir);
+        FileChannel channel = roller.channel(time, 5);
+        channel.write(ByteBuffer.wrap("text\n".getBytes("UTF-8")));
+        roller.written(5);
+        // 二进制分段登记为最新分段后,超出文件数也不能删除正在写入的文本分段
+        LogBinarySink sink = new LogBinarySink(mDir, roller);
+        sink.write(time, 3, "Net", "com.acmenxd.Foo", "bar", 1, "binary");
+        channel = roller.channel(time, 5);
+        channel.write(ByteBuffer.wrap("more\n".getBytes("UTF-8")));
+        roller.written(5);
+        sink.close();
+        roller.close();
+
+        File[] texts = mDir.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".txt");
+            }
+        });
+        assertEquals(1, texts.length);
+        assertEquals(10, texts[0].length());
+        assertEquals(1, segments().length);
+        List<File> indexed = LogFileRoller.listSegments(mDir);
+        assertEquals(Arrays.asList(segments()[0], texts[0]), indexed);
+        // 文本分段的写入字节数记在文本分段上,二进制分段大小不变
+        String index = new String(LogBinaryDecoder.readFully(new File(mDir, LogFileRoller.INDEX_FILE)), "UTF-8");
+        assertTrue(index, index.contains(texts[0].getName() + "\t10\n"));
+        assertFalse(index, index.contains(segments()[0].getName() + "\t10\n"));
+    }
+
+    private static void assertEntry(LogBinaryDecoder.Entry entry, long time, int level, String tag,
+                                    String className, String methodName, int lineNumber, String msg) {
+        assertEquals(time, entry.time);
+        assertEquals(level, entry.level);
+        assertEquals(tag, entry.tag);
+        assertEquals(className, entry.className);
+        assertEquals(methodName, entry.methodName);
+        assertEquals(lineNumber, entry.lineNumber);
+        assertEquals(msg, entry.msg);
+    }
+
+    private File[] segments() {
+        File[] files = mDir.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(LogBinaryDecoder.SUFFIX);
+            }
+        });
+        // 同一秒内的分段按序号排列
+        Arrays.sort(files, new java.util.Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(sequence(a), sequence(b));
+            }
+        });
+        return files;
+    }
+
+    private static long sequence(File file) {
+        String name = file.getName();
+        name = name.substring(0, name.length() - LogBinaryDecoder.SUFFIX.length());
+        return Long.parseLong(name.substring(name.lastIndexOf('_') + 1));
+    }
+
+    private List<LogBinaryDecoder.Entry> decodeAll() throws IOException {
+        final List<LogBinaryDecoder.Entry> entries = new ArrayList<>();
+        for (File file : segments()) {
+            LogBinaryDecoder.decode(file, new LogBinaryDecoder.Callback() {
+                @Override
+                public void onEntry(LogBinaryDecoder.Entry entry) {
+                    // 解码时复用Entry,这里复制一份
+                    LogBinaryDecoder.Entry copy = new LogBinaryDecoder.Entry();
+                    copy.time = entry.time;
+                    copy.level = entry.level;
+                    copy.tag = entry.tag;
+                    copy.className = entry.className;
+                    copy.methodName = entry.methodName;
+                    copy.lineNumber = entry.lineNumber;
+                    copy.msg = entry.msg;
+                    entries.add(copy);
+                }
+            });
+        }
+        return entries;
+    }
+}
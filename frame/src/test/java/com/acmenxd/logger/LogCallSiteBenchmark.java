@@ -0,0 +1,93 @@
+package com.acmenxd.logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import static com.acmenxd.frame.Allocations.allocatedBytes;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/2 10:10
+ * @detail 调用位置解析的耗时对比(本地JVM计时,非JMH)
+ * * 开启LOG_SHOW_LOCATION(每条日志遍历调用栈)与关闭(不解析调用栈)时,每次日志调用的ns/op与分配字节数
+ * * 结果依赖机器负载,不参与默认测试,需要时手动去掉@Ignore运行,数据见断言信息
+ */
+@Ignore("本地计时对比,手动运行")
+public class LogCallSiteBenchmark {
+    private static final int WARMUP = 20000;
+    private static final int ITERATIONS = 100000;
+    private static final LogTag TAG = LogTag.mk("LogCallSiteBenchmark");
+
+    private boolean mShowLocation;
+
+    @Before
+    public void setUp() {
+        mShowLocation = Logger.LOG_SHOW_LOCATION;
+        Logger.LOG_OPEN = true;
+        Logger.LOG_LEVEL = LogType.V;
+    }
+
+    @After
+    public void tearDown() {
+        Logger.LOG_SHOW_LOCATION = mShowLocation;
+    }
+
+    @Test
+    public void locationOffSkipsStackWalk() {
+        Result resolve = measure(new Runnable() {
+            @Override
+            public void run() {
+                LogCallSite.resolve();
+            }
+        });
+        Logger.LOG_SHOW_LOCATION = true;
+        Result on = measure(new Runnable() {
+            @Override
+            public void run() {
+                Logger.d(TAG, "value {}", 1);
+            }
+        });
+        Logger.LOG_SHOW_LOCATION = false;
+        Result off = measure(new Runnable() {
+            @Override
+            public void run() {
+                Logger.d(TAG, "value {}", 1);
+            }
+        });
+        assertTrue("关闭调用位置后应当更快: resolve=" + resolve + " on=" + on + " off=" + off, off.nanosPerOp < on.nanosPerOp);
+    }
+
+    private static Result measure(Runnable op) {
+        for (int i = 0; i < WARMUP; i++) {
+            op.run();
+        }
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            op.run();
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = allocatedBytes() - bytes;
+        return new Result(nanos / (double) ITERATIONS, bytes < 0 ? -1 : allocated / (double) ITERATIONS);
+    }
+
+    private static final class Result {
+        final double nanosPerOp;
+        final double bytesPerOp;
+
+        Result(double pNanosPerOp, double pBytesPerOp) {
+            nanosPerOp = pNanosPerOp;
+            bytesPerOp = pBytesPerOp;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.1f ns/op, %.1f B/op", nanosPerOp, bytesPerOp);
+        }
+    }
+}
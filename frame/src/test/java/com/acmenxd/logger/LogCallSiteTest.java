@@ -0,0 +1,57 @@
+package com.acmenxd.logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/10 15:30
+ * @detail 调用位置: 关闭LOG_SHOW_LOCATION时不解析调用栈
+ */
+public class LogCallSiteTest {
+    private static final LogTag TAG = LogTag.mk("LogCallSiteTest");
+
+    private boolean mShowLocation;
+    private boolean mOpen;
+    private LogType mLevel;
+
+    @Before
+    public void setUp() {
+        mShowLocation = Logger.LOG_SHOW_LOCATION;
+        mOpen = Logger.LOG_OPEN;
+        mLevel = Logger.LOG_LEVEL;
+        Logger.LOG_OPEN = true;
+        Logger.LOG_LEVEL = LogType.V;
+    }
+
+    @After
+    public void tearDown() {
+        Logger.LOG_SHOW_LOCATION = mShowLocation;
+        Logger.LOG_OPEN = mOpen;
+        Logger.LOG_LEVEL = mLevel;
+    }
+
+    @Test
+    public void locationOffSkipsResolve() {
+        Logger.LOG_SHOW_LOCATION = false;
+        long before = LogCallSite.getResolveCount();
+        Logger.d(TAG, "value {}", 1);
+        Logger.i(TAG, "value");
+        Logger.e(TAG, new IllegalStateException("test"), "value");
+        assertEquals(before, LogCallSite.getResolveCount());
+    }
+
+    @Test
+    public void locationOnResolvesOncePerLog() {
+        Logger.LOG_SHOW_LOCATION = true;
+        long before = LogCallSite.getResolveCount();
+        Logger.d(TAG, "value {}", 1);
+        Logger.i(TAG, "value");
+        assertEquals(before + 2, LogCallSite.getResolveCount());
+    }
+}
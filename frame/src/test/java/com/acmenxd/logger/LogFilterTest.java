@@ -0,0 +1,119 @@
+package com.acmenxd.logger;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/2 10:50
+ * @detail Tag过滤规则: 等级阈值、抽样、限流(GCRA)
+ */
+public class LogFilterTest {
+
+    @Test
+    public void levelThreshold() {
+        LogFilter filter = LogFilter.level(LogType.W);
+        assertFalse(filter.accept(LogType.D));
+        assertFalse(filter.accept(LogType.I));
+        assertTrue(filter.accept(LogType.W));
+        assertTrue(filter.accept(LogType.E));
+        // 低于等级不计入丢弃数(不是被抽样/限流丢弃的)
+        assertEquals(0, filter.getDroppedCount());
+    }
+
+    @Test
+    public void sampleAcceptsOneOfN() {
+        LogFilter filter = LogFilter.sample(LogType.V, 4);
+        int accepted = 0;
+        for (int i = 0; i < 100; i++) {
+            if (filter.accept(LogType.D)) {
+                accepted++;
+            }
+        }
+        assertEquals(25, accepted);
+        assertEquals(75, filter.getDroppedCount());
+    }
+
+    @Test
+    public void rateAllowsBurstThenRefills() {
+        // 每秒10条(间隔100ms),允许5条突发
+        ManualClock clock = new ManualClock();
+        LogFilter filter = LogFilter.rate(LogType.V, 10, 5, clock);
+        int accepted = 0;
+        for (int i = 0; i < 20; i++) {
+            if (filter.accept(LogType.I)) {
+                accepted++;
+            }
+        }
+        assertEquals(5, accepted);
+        assertEquals(15, filter.getDroppedCount());
+        clock.advance(250);
+        int refilled = 0;
+        for (int i = 0; i < 20; i++) {
+            if (filter.accept(LogType.I)) {
+                refilled++;
+            }
+        }
+        // 250ms内补充2条
+        assertEquals(2, refilled);
+        assertEquals(33, filter.getDroppedCount());
+        // 空闲再久也只能补满突发容量
+        clock.advance(10000);
+        int burst = 0;
+        for (int i = 0; i < 20; i++) {
+            if (filter.accept(LogType.I)) {
+                burst++;
+            }
+        }
+        assertEquals(5, burst);
+    }
+
+    @Test
+    public void rateIsSharedAcrossThreads() throws InterruptedException {
+        // 计时不前进,只能输出突发容量内的日志
+        final LogFilter filter = LogFilter.rate(LogType.V, 1, 50, new ManualClock());
+        final int[] accepted = new int[4];
+        Thread[] threads = new Thread[accepted.length];
+        for (int t = 0; t < threads.length; t++) {
+            final int index = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        if (filter.accept(LogType.I)) {
+                            accepted[index]++;
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        int total = 0;
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+            total += accepted[t];
+        }
+        assertEquals(50, total);
+        assertEquals(4000 - total, filter.getDroppedCount());
+    }
+
+    private static final class ManualClock implements LogFilter.Clock {
+        private volatile long mNanos = 1000;
+
+        void advance(long millis) {
+            mNanos += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        @Override
+        public long nanoTime() {
+            return mNanos;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.acmenxd.logger;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/2 10:40
+ * @detail 环形缓冲区: 容量/顺序/回绕,以及多生产者多消费者下每条数据恰好取出一次
+ */
+public class LogRingBufferTest {
+
+    @Test
+    public void capacityRoundsUpToPowerOfTwo() {
+        assertEquals(8, new LogRingBuffer<Integer>(5).capacity());
+        assertEquals(2, new LogRingBuffer<Integer>(0).capacity());
+        assertEquals(1024, new LogRingBuffer<Integer>(1024).capacity());
+    }
+
+    @Test
+    public void offerFailsWhenFullAndPollKeepsOrder() {
+        LogRingBuffer<Integer> buffer = new LogRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        for (int i = 0; i < 4; i++) {
+            assertEquals(Integer.valueOf(i), buffer.poll());
+        }
+        assertNull(buffer.poll());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void wrapsAroundManyTimes() {
+        LogRingBuffer<Integer> buffer = new LogRingBuffer<>(4);
+        int next = 0;
+        for (int round = 0; round < 1000; round++) {
+            // 每轮写入1~3条再全部取出,使读写位置在各个槽位上回绕
+            int count = round % 3 + 1;
+            for (int i = 0; i < count; i++) {
+                assertTrue(buffer.offer(next + i));
+            }
+            for (int i = 0; i < count; i++) {
+                assertEquals(Integer.valueOf(next + i), buffer.poll());
+            }
+            next += count;
+        }
+        assertEquals(next, buffer.published());
+        assertEquals(next, buffer.consumed());
+    }
+
+    @Test
+    public void concurrentProducersAndConsumers() throws InterruptedException {
+        final int producers = 4;
+        final int consumers = 2;
+        final int perProducer = 50000;
+        final LogRingBuffer<Integer> buffer = new LogRingBuffer<>(64);
+        final AtomicIntegerArray seen = new AtomicIntegerArray(producers * perProducer);
+        final AtomicLong taken = new AtomicLong();
+        final AtomicBoolean producing = new AtomicBoolean(true);
+        final CountDownLatch producersDone = new CountDownLatch(producers);
+        final CountDownLatch consumersDone = new CountDownLatch(consumers);
+        for (int p = 0; p < producers; p++) {
+            final int base = p * perProducer;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!buffer.offer(base + i)) {
+                            Thread.yield();
+                        }
+                    }
+                    producersDone.countDown();
+                }
+            }).start();
+        }
+        for (int c = 0; c < consumers; c++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (producing.get() || !buffer.isEmpty()) {
+                        Integer item = buffer.poll();
+                        if (item == null) {
+                            Thread.yield();
+                            continue;
+                        }
+                        seen.incrementAndGet(item);
+                        taken.incrementAndGet();
+                    }
+                    consumersDone.countDown();
+                }
+            }).start();
+        }
+        assertTrue(producersDone.await(30, java.util.concurrent.TimeUnit.SECONDS));
+        producing.set(false);
+        assertTrue(consumersDone.await(30, java.util.concurrent.TimeUnit.SECONDS));
+        assertEquals(producers * perProducer, taken.get());
+        for (int i = 0; i < seen.length(); i++) {
+            assertEquals("item " + i, 1, seen.get(i));
+        }
+    }
+}
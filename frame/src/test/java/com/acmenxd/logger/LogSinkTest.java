@@ -0,0 +1,100 @@
+package com.acmenxd.logger;
+
+import android.support.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/2 14:30
+ * @detail 输出端: 控制台/文件与自定义输出端走同一个LogSink接口,同步输出端在调用线程中执行
+ */
+public class LogSinkTest {
+    private static final LogTag TAG = LogTag.mk("LogSinkTest");
+
+    private final CaptureSink mSink = new CaptureSink();
+
+    @Before
+    public void setUp() {
+        Logger.LOG_OPEN = true;
+        Logger.LOG_LEVEL = LogType.V;
+        // 替换默认的控制台和文件输出端
+        Logger.removeLogSink(Logger.CONSOLE_SINK);
+        Logger.removeLogSink(Logger.FILE_SINK);
+        Logger.addDirectLogSink(mSink);
+    }
+
+    @After
+    public void tearDown() {
+        Logger.removeLogSink(mSink);
+        Logger.addDirectLogSink(Logger.CONSOLE_SINK);
+        Logger.addDirectLogSink(Logger.FILE_SINK);
+    }
+
+    @Test
+    public void directSinkRunsOnCallerThread() {
+        Logger.i(TAG, "value {}", 1);
+        assertEquals(1, mSink.records.size());
+        assertSame(Thread.currentThread(), mSink.threads.get(0));
+        LogRecord record = mSink.records.get(0);
+        assertEquals(LogType.I, record.type);
+        assertSame(TAG, record.tag);
+        assertTrue(record.msg, record.msg.contains("value 1"));
+        assertNull(record.dir);
+    }
+
+    @Test
+    public void fileRecordCarriesTarget() {
+        File dir = new File("/tmp/LogSinkTest");
+        Logger.file(TAG, "sink.txt", dir, "saved");
+        assertEquals(1, mSink.records.size());
+        LogRecord record = mSink.records.get(0);
+        assertEquals(LogType.FILE, record.type);
+        assertEquals(dir, record.dir);
+        assertEquals("sink.txt", record.fileName);
+        assertTrue(record.msg, record.msg.contains("saved"));
+    }
+
+    @Test
+    public void throwingSinkDoesNotReachCaller() {
+        LogSink failing = new LogSink() {
+            @Override
+            public void onLog(@NonNull LogRecord record) {
+                throw new IllegalStateException("sink failure");
+            }
+        };
+        Logger.addDirectLogSink(failing);
+        try {
+            long dropped = Logger.getLogSinkDroppedCount();
+            Logger.w(TAG, "still logged");
+            assertEquals(1, mSink.records.size());
+            assertEquals(dropped + 1, Logger.getLogSinkDroppedCount());
+        } finally {
+            Logger.removeLogSink(failing);
+        }
+    }
+
+    private static final class CaptureSink implements LogSink {
+        final List<LogRecord> records = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+
+        @Override
+        public void onLog(@NonNull LogRecord record) {
+            records.add(record);
+            threads.add(Thread.currentThread());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.acmenxd.logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.acmenxd.frame.Allocations.allocatedBytes;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/2 10:30
+ * @detail 参数化日志: 低于显示等级时不格式化、不分配内存,高于等级时按占位符格式化
+ */
+public class LoggerFormatTest {
+    private static final int WARMUP = 20000;
+    private static final int ITERATIONS = 100000;
+    private static final LogTag TAG = LogTag.mk("LoggerFormatTest");
+
+    private LogType mLevel;
+    private boolean mOpen;
+
+    @Before
+    public void setUp() {
+        mLevel = Logger.LOG_LEVEL;
+        mOpen = Logger.LOG_OPEN;
+        Logger.LOG_OPEN = true;
+    }
+
+    @After
+    public void tearDown() {
+        Logger.LOG_LEVEL = mLevel;
+        Logger.LOG_OPEN = mOpen;
+    }
+
+    @Test
+    public void disabledLevelDoesNotFormat() {
+        Logger.LOG_LEVEL = LogType.E;
+        CountingArg arg = new CountingArg();
+        Logger.d(TAG, "a {} b {}", arg, arg);
+        Logger.i(TAG, "a {} b {} c {} d {}", arg, arg, arg, arg);
+        Logger.w(TAG, "a {}", arg);
+        assertEquals(0, arg.count);
+    }
+
+    @Test
+    public void disabledLevelAllocatesNothing() {
+        Logger.LOG_LEVEL = LogType.E;
+        Object arg1 = new CountingArg();
+        Object arg2 = new CountingArg();
+        for (int i = 0; i < WARMUP; i++) {
+            Logger.d(TAG, "a {} b {}", arg1, arg2);
+            Logger.v(TAG, "a {} b {} c {} d {}", arg1, arg2, arg1, arg2);
+        }
+        long before = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            Logger.d(TAG, "a {} b {}", arg1, arg2);
+            Logger.v(TAG, "a {} b {} c {} d {}", arg1, arg2, arg1, arg2);
+        }
+        long allocated = allocatedBytes() - before;
+        if (before >= 0) {
+            // 每次调用哪怕只分配一个对象也至少16字节,平均不足1字节说明调用本身没有分配(余量为JIT等的一次性开销)
+            assertTrue("关闭的等级分配了" + allocated + "字节", allocated < ITERATIONS);
+        }
+    }
+
+    @Test
+    public void enabledLevelFormatsPlaceholders() {
+        Logger.LOG_LEVEL = LogType.V;
+        LogMemorySink sink = new LogMemorySink(8);
+        Logger.addLogSink(sink);
+        try {
+            CountingArg arg = new CountingArg();
+            Logger.i(TAG, "user {} took {} ms", arg, 12);
+            Logger.i(TAG, "only {}", "one", "extra");
+            Logger.i(TAG, "failed {}", "x", new IllegalStateException("boom"));
+            assertTrue(Logger.flushLogSinks(1000));
+            List<LogRecord> records = sink.getRecords();
+            assertEquals(3, records.size());
+            assertTrue(records.get(0).msg, records.get(0).msg.contains("user arg took 12 ms"));
+            assertEquals(1, arg.count);
+            // 参数多于占位符且最后一个不是Throwable时,多余参数忽略
+            assertTrue(records.get(1).msg, records.get(1).msg.contains("only one"));
+            // 多余的最后一个参数为Throwable时作为异常输出
+            assertTrue(records.get(2).msg, records.get(2).msg.contains("failed x"));
+            assertTrue(records.get(2).msg, records.get(2).msg.contains("boom"));
+        } finally {
+            Logger.removeLogSink(sink);
+        }
+    }
+
+    private static final class CountingArg {
+        int count;
+
+        @Override
+        public String toString() {
+            count++;
+            return "arg";
+        }
+    }
+}
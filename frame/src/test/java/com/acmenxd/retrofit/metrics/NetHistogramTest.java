@@ -0,0 +1,105 @@
+package com.acmenxd.retrofit.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/3 14:00
+ * @detail 耗时分布统计: 桶的划分与相对误差、百分位/平均/最大值,以及并发记录不丢失
+ */
+public class NetHistogramTest {
+
+    @Test
+    public void smallValuesAreExact() {
+        for (long value = 0; value < 32; value++) {
+            assertEquals(value, NetHistogram.index(value));
+            assertEquals(value, NetHistogram.highestEquivalent(NetHistogram.index(value)));
+        }
+    }
+
+    @Test
+    public void bucketsAreOrderedWithinRelativeError() {
+        int last = -1;
+        for (long value = 0; value < 1L << 20; value++) {
+            int index = NetHistogram.index(value);
+            assertTrue("index " + value, index >= last);
+            last = index;
+            long high = NetHistogram.highestEquivalent(index);
+            assertTrue("high " + value + " -> " + high, high >= value && high - value <= value / 16);
+        }
+        for (long value = 1L << 20; value <= NetHistogram.MAX_VALUE && value > 0; value = value * 3 / 2) {
+            long high = NetHistogram.highestEquivalent(NetHistogram.index(value));
+            assertTrue("high " + value + " -> " + high, high >= value && high - value <= value / 16);
+        }
+    }
+
+    @Test
+    public void percentiles() {
+        NetHistogram histogram = new NetHistogram();
+        assertEquals(0, histogram.snapshot().getPercentile(99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        NetHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(500, snapshot.getMean());
+        assertEquals(1000, snapshot.getMax());
+        assertBetween(500, snapshot.getPercentile(50));
+        assertBetween(900, snapshot.getPercentile(90));
+        assertBetween(990, snapshot.getPercentile(99));
+        // 不超过实际最大值
+        assertEquals(1000, snapshot.getPercentile(100));
+        assertEquals(1, snapshot.getPercentile(0));
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getCount());
+    }
+
+    @Test
+    public void outOfRangeValuesAreClamped() {
+        NetHistogram histogram = new NetHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        NetHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(NetHistogram.MAX_VALUE, snapshot.getMax());
+        assertEquals(0, snapshot.getPercentile(50));
+        assertEquals(NetHistogram.MAX_VALUE, snapshot.getPercentile(100));
+    }
+
+    @Test
+    public void concurrentRecords() throws InterruptedException {
+        final NetHistogram histogram = new NetHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int base = t * 10000;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        histogram.record(base + i);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        NetHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(40000, snapshot.getCount());
+        assertEquals(39999, snapshot.getMax());
+    }
+
+    /**
+     * 百分位值在[expected, expected * (1 + 1/16)]之内
+     */
+    private static void assertBetween(long expected, long actual) {
+        assertTrue("expected " + expected + " but was " + actual, actual >= expected && actual <= expected + expected / 16);
+    }
+}
@@ -0,0 +1,204 @@
+package com.acmenxd.sptool;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.SharedPreferences;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/3 10:30
+ * @detail 本地单元测试用的内存SharedPreferences
+ * * commit/apply都同步写入内存并回调监听,commits记录提交次数,failCommits为true时提交失败且不修改数据
+ */
+final class MemorySharedPreferences implements SharedPreferences {
+    private static final Map<String, MemorySharedPreferences> sInstances = new HashMap<>();
+
+    private final Map<String, Object> mMap = new HashMap<>();
+    private final List<OnSharedPreferenceChangeListener> mListeners = new CopyOnWriteArrayList<>();
+    final AtomicInteger commits = new AtomicInteger();
+    volatile boolean failCommits;
+
+    /**
+     * 按名称返回MemorySharedPreferences的Context
+     */
+    static Context context() {
+        return new ContextWrapper(null) {
+            @Override
+            public SharedPreferences getSharedPreferences(String name, int mode) {
+                return get(name);
+            }
+        };
+    }
+
+    static synchronized MemorySharedPreferences get(String name) {
+        MemorySharedPreferences sp = sInstances.get(name);
+        if (sp == null) {
+            sp = new MemorySharedPreferences();
+            sInstances.put(name, sp);
+        }
+        return sp;
+    }
+
+    @Override
+    public synchronized Map<String, ?> getAll() {
+        return new HashMap<>(mMap);
+    }
+
+    @Override
+    public synchronized String getString(String key, String defValue) {
+        Object value = mMap.get(key);
+        return value == null ? defValue : (String) value;
+    }
+
+    @Override
+    public synchronized Set<String> getStringSet(String key, Set<String> defValues) {
+        Object value = mMap.get(key);
+        return value == null ? defValues : (Set<String>) value;
+    }
+
+    @Override
+    public synchronized int getInt(String key, int defValue) {
+        Object value = mMap.get(key);
+        return value == null ? defValue : (Integer) value;
+    }
+
+    @Override
+    public synchronized long getLong(String key, long defValue) {
+        Object value = mMap.get(key);
+        return value == null ? defValue : (Long) value;
+    }
+
+    @Override
+    public synchronized float getFloat(String key, float defValue) {
+        Object value = mMap.get(key);
+        return value == null ? defValue : (Float) value;
+    }
+
+    @Override
+    public synchronized boolean getBoolean(String key, boolean defValue) {
+        Object value = mMap.get(key);
+        return value == null ? defValue : (Boolean) value;
+    }
+
+    @Override
+    public synchronized boolean contains(String key) {
+        return mMap.containsKey(key);
+    }
+
+    @Override
+    public Editor edit() {
+        return new MemoryEditor();
+    }
+
+    @Override
+    public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        mListeners.add(listener);
+    }
+
+    @Override
+    public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        mListeners.remove(listener);
+    }
+
+    private final class MemoryEditor implements Editor {
+        private final Object mRemoved = new Object();
+        private final Map<String, Object> mChanges = new LinkedHashMap<>();
+        private boolean mClear;
+
+        @Override
+        public Editor putString(String key, String value) {
+            mChanges.put(key, value == null ? mRemoved : value);
+            return this;
+        }
+
+        @Override
+        public Editor putStringSet(String key, Set<String> values) {
+            mChanges.put(key, values == null ? mRemoved : new HashSet<>(values));
+            return this;
+        }
+
+        @Override
+        public Editor putInt(String key, int value) {
+            mChanges.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putLong(String key, long value) {
+            mChanges.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putFloat(String key, float value) {
+            mChanges.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putBoolean(String key, boolean value) {
+            mChanges.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor remove(String key) {
+            mChanges.put(key, mRemoved);
+            return this;
+        }
+
+        @Override
+        public Editor clear() {
+            mClear = true;
+            return this;
+        }
+
+        @Override
+        public boolean commit() {
+            commits.incrementAndGet();
+            if (failCommits) {
+                return false;
+            }
+            List<String> keys = new ArrayList<>();
+            synchronized (MemorySharedPreferences.this) {
+                if (mClear) {
+                    mMap.clear();
+                }
+                for (Map.Entry<String, Object> entry : mChanges.entrySet()) {
+                    if (entry.getValue() == mRemoved) {
+                        mMap.remove(entry.getKey());
+                    } else {
+                        mMap.put(entry.getKey(), entry.getValue());
+                    }
+                    keys.add(entry.getKey());
+                }
+            }
+            for (OnSharedPreferenceChangeListener listener : mListeners) {
+                if (mClear) {
+                    listener.onSharedPreferenceChanged(MemorySharedPreferences.this, null);
+                }
+                for (String key : keys) {
+                    listener.onSharedPreferenceChanged(MemorySharedPreferences.this, key);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void apply() {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.acmenxd.sptool;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/3 10:35
+ * @detail SpBase64: 与URL_SAFE | NO_WRAP | NO_PADDING的输出一致,可还原
+ */
+public class SpBase64Test {
+
+    @Test
+    public void knownVectors() {
+        assertEquals("", SpBase64.encode(new byte[0]));
+        assertEquals("Zg", SpBase64.encode("f".getBytes()));
+        assertEquals("Zm8", SpBase64.encode("fo".getBytes()));
+        assertEquals("Zm9v", SpBase64.encode("foo".getBytes()));
+        assertEquals("-_8", SpBase64.encode(new byte[]{(byte) 0xfb, (byte) 0xff}));
+        // 兼容带填充和换行的输入
+        assertArrayEquals("fo".getBytes(), SpBase64.decode("Zm8=\n"));
+    }
+
+    @Test
+    public void roundTrip() {
+        Random random = new Random(1);
+        for (int length = 0; length < 100; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            assertArrayEquals(data, SpBase64.decode(SpBase64.encode(data)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void danglingCharIsRejected() {
+        SpBase64.decode("Zm9vY");
+    }
+}
@@ -0,0 +1,100 @@
+package com.acmenxd.sptool;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/3 11:50
+ * @detail SpCipherCallback与默认EncodeDecode的加解密耗时对比(本地JVM计时,非JMH)
+ * * 结果依赖机器负载,不参与默认测试,需要时手动去掉@Ignore在调试器中查看
+ */
+@Ignore("本地计时对比,手动运行")
+public class SpCipherBenchmark {
+    private static final int WARMUP = 20000;
+    private static final int ITERATIONS = 100000;
+    private static final String VALUE = "{\"id\":10086,\"name\":\"AcmenXD\",\"token\":\"8b1a9953c4611296\"}";
+
+    /**
+     * 与默认的EncodeDecode相同的处理: MD5前缀(11位) + Base64(URL编码)
+     */
+    private static final SpEncodeDecodeCallback ENCODE_DECODE = new SpEncodeDecodeCallback() {
+        @Override
+        public String encode(@NonNull String pStr) {
+            try {
+                String base = SpBase64.encode(URLEncoder.encode(pStr, "UTF-8").getBytes("UTF-8"));
+                MessageDigest md5 = MessageDigest.getInstance("MD5");
+                String hex = String.format("%032x", new BigInteger(1, md5.digest(base.getBytes("UTF-8"))));
+                return hex.substring(0, 11) + base;
+            } catch (UnsupportedEncodingException | NoSuchAlgorithmException pE) {
+                throw new IllegalStateException(pE);
+            }
+        }
+
+        @Override
+        public String decode(@NonNull String pStr) {
+            try {
+                return URLDecoder.decode(new String(SpBase64.decode(pStr.substring(11)), "UTF-8"), "UTF-8");
+            } catch (UnsupportedEncodingException pE) {
+                throw new IllegalStateException(pE);
+            }
+        }
+    };
+
+    @Test
+    public void cipherVersusEncodeDecode() {
+        SpCipherCallback cipher = new SpCipherCallback("secret".toCharArray(), "com.acmenxd".getBytes());
+        Result encodeDecode = measure(ENCODE_DECODE);
+        Result aes = measure(cipher);
+    }
+
+    private static Result measure(SpEncodeDecodeCallback callback) {
+        String encoded = callback.encode(VALUE);
+        assertEquals(VALUE, callback.decode(encoded));
+        int sum = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sum += callback.encode(VALUE).length() + callback.decode(encoded).length();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sum += callback.encode(VALUE).length();
+        }
+        long encodeNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sum += callback.decode(encoded).length();
+        }
+        long decodeNanos = System.nanoTime() - start;
+        assertTrue(sum > 0);
+        return new Result(encodeNanos / (double) ITERATIONS, decodeNanos / (double) ITERATIONS);
+    }
+
+    private static final class Result {
+        final double encodeNanos;
+        final double decodeNanos;
+
+        Result(double pEncodeNanos, double pDecodeNanos) {
+            encodeNanos = pEncodeNanos;
+            decodeNanos = pDecodeNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("encode %.1f ns/op, decode %.1f ns/op", encodeNanos, decodeNanos);
+        }
+    }
+}
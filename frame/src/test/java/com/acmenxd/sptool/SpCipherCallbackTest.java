@@ -0,0 +1,46 @@
+package com.acmenxd.sptool;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/10 16:10
+ * @detail SpCipherCallback: 创建实例不派生密钥,首次加解密时派生;密钥指纹区分不同口令
+ */
+public class SpCipherCallbackTest {
+    private static final String VALUE = "{\"id\":10086,\"name\":\"AcmenXD\",\"token\":\"8b1a9953c4611296\"}";
+
+    @Test
+    public void keyIsDerivedOnFirstUse() {
+        SpCipherCallback cipher = new SpCipherCallback("secret".toCharArray(), "com.acmenxd".getBytes());
+        assertFalse(cipher.isDerived());
+        String encoded = cipher.encode(VALUE);
+        assertTrue(cipher.isDerived());
+        assertEquals(VALUE, cipher.decode(encoded));
+
+        SpCipherCallback decoder = new SpCipherCallback("secret".toCharArray(), "com.acmenxd".getBytes());
+        assertFalse(decoder.isDerived());
+        assertEquals(VALUE, decoder.decode(encoded));
+        assertTrue(decoder.isDerived());
+    }
+
+    @Test
+    public void fingerprintSeparatesSecrets() {
+        SpCipherCallback cipher = new SpCipherCallback("secret".toCharArray(), "com.acmenxd".getBytes());
+        String encoded = cipher.encode(VALUE);
+        SpCipherCallback same = new SpCipherCallback("secret".toCharArray(), "com.acmenxd".getBytes());
+        SpCipherCallback rotated = new SpCipherCallback("secret2".toCharArray(), "com.acmenxd".getBytes());
+        assertEquals(cipher.fingerprint(), same.fingerprint());
+        assertFalse(cipher.fingerprint().equals(rotated.fingerprint()));
+        assertFalse(SpTool.migrationMarker(cipher).equals(SpTool.migrationMarker(rotated)));
+        // 换了口令无法解密
+        assertNull(rotated.decode(encoded));
+    }
+}
@@ -0,0 +1,118 @@
+package com.acmenxd.sptool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/3 11:30
+ * @detail 内存映射存储: 导入成功后才生成文件,重新打开后数据不变,后台压缩后文件变小且数据完整,扩大映射区时文件写入真实字节
+ */
+public class SpMmapStoreTest {
+    private File mFile;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = File.createTempFile("SpMmapStoreTest", ".kv");
+        mFile.delete();
+    }
+
+    @After
+    public void tearDown() {
+        mFile.delete();
+        new File(mFile.getPath() + ".tmp").delete();
+        new File(mFile.getPath() + ".import").delete();
+    }
+
+    @Test
+    public void importCreatesFileOnlyOnSuccess() throws IOException {
+        MemorySharedPreferences sp = MemorySharedPreferences.get("SpMmapStoreTestImport");
+        sp.edit().clear().putString("string", "中文").putInt("int", 7).commit();
+        SpMmapStore.importTo(mFile, sp);
+        assertFalse(new File(mFile.getPath() + ".import").exists());
+        assertEquals(sp.getAll(), SpMmapStore.open(mFile).getAll());
+    }
+
+    @Test
+    public void failedImportLeavesNoFile() throws IOException {
+        MemorySharedPreferences sp = MemorySharedPreferences.get("SpMmapStoreTestImport");
+        sp.edit().clear().putInt("int", 7).commit();
+        // 目标位置是非空目录,重命名失败
+        assertTrue(mFile.mkdir());
+        File child = new File(mFile, "child");
+        assertTrue(child.createNewFile());
+        try {
+            SpMmapStore.importTo(mFile, sp);
+            fail();
+        } catch (IOException pE) {
+            assertFalse(new File(mFile.getPath() + ".import").exists());
+            assertTrue(mFile.isDirectory());
+        } finally {
+            child.delete();
+        }
+    }
+
+    @Test
+    public void reopenKeepsData() throws IOException {
+        SpMmapStore store = SpMmapStore.open(mFile);
+        assertTrue(store.edit().putString("string", "中文").putInt("int", 7).putLong("long", -1L)
+                .putStringSet("set", new java.util.HashSet<>(Arrays.asList("a", "b"))).commit());
+        assertTrue(store.edit().remove("long").putBoolean("boolean", true).commit());
+
+        SpMmapStore reopened = SpMmapStore.open(mFile);
+        assertEquals(store.getAll(), reopened.getAll());
+        assertEquals("中文", reopened.getString("string", null));
+        assertEquals(7, reopened.getInt("int", 0));
+        assertFalse(reopened.contains("long"));
+    }
+
+    @Test
+    public void growthWritesRealBytes() throws IOException {
+        SpMmapStore store = SpMmapStore.open(mFile);
+        assertEquals(16 * 1024, mFile.length());
+        char[] chars = new char[40 * 1024];
+        Arrays.fill(chars, 'x');
+        assertTrue(store.edit().putString("big", new String(chars)).commit());
+        // 16K -> 32K -> 64K,新增部分已写入0
+        assertEquals(64 * 1024, mFile.length());
+        assertEquals(new String(chars), SpMmapStore.open(mFile).getString("big", null));
+    }
+
+    @Test
+    public void compactionKeepsLatestValues() throws Exception {
+        SpMmapStore store = SpMmapStore.open(mFile);
+        char[] chars = new char[100];
+        Arrays.fill(chars, 'v');
+        String value = new String(chars);
+        // 反复覆盖10个key,无效记录远多于有效数据,触发后台压缩
+        for (int i = 0; i < 2000; i++) {
+            store.edit().putString("key" + (i % 10), value + i).apply();
+        }
+        long deadline = System.currentTimeMillis() + 10000;
+        while (mFile.length() > 64 * 1024 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("压缩后文件长度 " + mFile.length(), mFile.length() <= 64 * 1024);
+        // 压缩后继续追加
+        assertTrue(store.edit().putInt("after", 1).commit());
+
+        SpMmapStore reopened = SpMmapStore.open(mFile);
+        assertEquals(11, reopened.getAll().size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(value + (1990 + i), reopened.getString("key" + i, null));
+        }
+        assertEquals(1, reopened.getInt("after", 0));
+    }
+}
@@ -0,0 +1,300 @@
+package com.acmenxd.sptool;
+
+import android.content.ContextWrapper;
+import android.content.SharedPreferences;
+import android.support.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.acmenxd.frame.Allocations.allocatedBytes;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/3 10:40
+ * @detail SpTool读写: 基本类型缓存在类型槽中,重复读取不装箱、不分配内存
+ */
+public class SpToolTest {
+    private static final int WARMUP = 50000;
+    private static final int ITERATIONS = 1000000;
+
+    /**
+     * 可逆的简单加解密,只用于测试
+     */
+    static final SpEncodeDecodeCallback PREFIX_CALLBACK = new SpEncodeDecodeCallback() {
+        @Override
+        public String encode(@NonNull String pStr) {
+            return "e:" + pStr;
+        }
+
+        @Override
+        public String decode(@NonNull String pStr) {
+            return pStr.startsWith("e:") ? pStr.substring(2) : null;
+        }
+    };
+
+    /**
+     * 与默认的EncodeDecode相同的处理(URL编码 + Base64),去掉了MD5前缀
+     */
+    static final SpEncodeDecodeCallback URL_CALLBACK = new SpEncodeDecodeCallback() {
+        @Override
+        public String encode(@NonNull String pStr) {
+            try {
+                return SpBase64.encode(URLEncoder.encode(pStr, "UTF-8").getBytes("UTF-8"));
+            } catch (UnsupportedEncodingException pE) {
+                throw new IllegalStateException(pE);
+            }
+        }
+
+        @Override
+        public String decode(@NonNull String pStr) {
+            try {
+                return URLDecoder.decode(new String(SpBase64.decode(pStr), "UTF-8"), "UTF-8");
+            } catch (UnsupportedEncodingException | IllegalArgumentException pE) {
+                return null;
+            }
+        }
+    };
+
+    private SpTool mSp;
+
+    @Before
+    public void setUp() {
+        SpManager.setEncodeDecodeCallback(PREFIX_CALLBACK);
+        SpManager.setContext(MemorySharedPreferences.context());
+        mSp = SpManager.getSp("SpToolTest");
+        MemorySharedPreferences.get("SpToolTest").failCommits = false;
+        mSp.clear();
+    }
+
+    @Test
+    public void primitivesRoundTrip() {
+        assertTrue(mSp.putInt("int", -123456789));
+        assertTrue(mSp.putLong("long", Long.MIN_VALUE));
+        assertTrue(mSp.putFloat("float", -0.5f));
+        assertTrue(mSp.putBoolean("boolean", true));
+        assertEquals(-123456789, mSp.getInt("int", 0));
+        assertEquals(Long.MIN_VALUE, mSp.getLong("long", 0));
+        assertEquals(-0.5f, mSp.getFloat("float", 0), 0);
+        assertTrue(mSp.getBoolean("boolean", false));
+        // 缓存命中后结果不变
+        assertEquals(-123456789, mSp.getInt("int", 0));
+        assertTrue(Float.isNaN(putAndGetFloat(Float.NaN)));
+        // 不存在或类型不同时返回默认值
+        assertEquals(7, mSp.getInt("missing", 7));
+        assertEquals(7, mSp.getInt("long", 7));
+        assertFalse(mSp.contains("missing"));
+        assertTrue(mSp.contains("int"));
+        // 修改后缓存失效
+        mSp.putInt("int", 1);
+        assertEquals(1, mSp.getInt("int", 0));
+        mSp.remove("int");
+        assertEquals(-1, mSp.getInt("int", -1));
+    }
+
+    @Test
+    public void getAllBoxesPrimitives() {
+        mSp.putInt("int", 5);
+        mSp.putBoolean("boolean", false);
+        mSp.putString("string", "text");
+        assertEquals(5, mSp.getAll().get("int"));
+        assertEquals(false, mSp.getAll().get("boolean"));
+        assertEquals("text", mSp.getAll().get("string"));
+        // 快照在写入后失效,返回的副本互不影响
+        mSp.putStringSet("set", new HashSet<>(Arrays.asList("a", "b")));
+        Map<String, ?> all = mSp.getAll();
+        ((Set<String>) all.get("set")).clear();
+        ((Map<String, Object>) all).remove("int");
+        assertEquals(2, ((Set<?>) mSp.getAll().get("set")).size());
+        assertEquals(5, mSp.getAll().get("int"));
+        mSp.putInt("int", 6);
+        assertEquals(6, mSp.getAll().get("int"));
+    }
+
+    @Test
+    public void applyAsyncReportsItsOwnCommit() throws Exception {
+        MemorySharedPreferences store = MemorySharedPreferences.get("SpToolTest");
+        mSp.putInt("count", 1);
+        int commits = store.commits.get();
+        final AtomicBoolean callbackResult = new AtomicBoolean();
+        final CountDownLatch called = new CountDownLatch(1);
+        Future<Boolean> result = mSp.batch().putInt("count", 2).putString("name", "batch").applyAsync(new SpCommitCallback() {
+            @Override
+            public void onCommitted(boolean pSuccess) {
+                callbackResult.set(pSuccess);
+                called.countDown();
+            }
+        });
+        assertTrue(result.get(5, TimeUnit.SECONDS));
+        assertTrue(called.await(5, TimeUnit.SECONDS));
+        assertTrue(callbackResult.get());
+        // 只提交本批次一次,没有额外的空提交
+        assertEquals(commits + 1, store.commits.get());
+        assertEquals(2, mSp.getInt("count", 0));
+        assertEquals("batch", mSp.getString("name", ""));
+
+        // 本批次写入失败时返回失败,数据不变
+        store.failCommits = true;
+        assertFalse(mSp.batch().putInt("count", 3).applyAsync().get(5, TimeUnit.SECONDS));
+        store.failCommits = false;
+        assertEquals(2, mSp.getInt("count", 0));
+    }
+
+    /**
+     * 加载失败(包括Error)不会永久失败,之后访问时重新加载
+     */
+    @Test
+    public void failedLoadIsRetriedOnAccess() {
+        final AtomicInteger failures = new AtomicInteger(2);
+        SpManager.setContext(new ContextWrapper(null) {
+            @Override
+            public SharedPreferences getSharedPreferences(String name, int mode) {
+                if (failures.getAndDecrement() > 0) {
+                    throw new AssertionError("disk not ready");
+                }
+                return MemorySharedPreferences.get(name);
+            }
+        });
+        try {
+            SpTool sp = SpManager.getSp("SpToolTestRetry");
+            try {
+                sp.getInt("count", 0);
+                fail();
+            } catch (IllegalStateException pE) {
+                assertTrue(pE.getCause() instanceof AssertionError);
+            }
+            assertTrue(sp.putInt("count", 3));
+            assertEquals(3, sp.getInt("count", 0));
+        } finally {
+            SpManager.setContext(MemorySharedPreferences.context());
+        }
+    }
+
+    /**
+     * 缓存命中时getInt不装箱、不分配内存
+     */
+    @Test
+    public void getIntCacheHitAllocatesNothing() {
+        // 超出Integer缓存范围,读取时如果装箱会分配对象
+        mSp.putInt("counter", 1 << 20);
+        long sum = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sum += mSp.getInt("counter", 0);
+        }
+        long bytes = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sum += mSp.getInt("counter", 0);
+        }
+        long allocated = allocatedBytes() - bytes;
+        assertEquals((long) (WARMUP + ITERATIONS) << 20, sum);
+        if (bytes >= 0) {
+            assertTrue("getInt分配了" + allocated + "字节", allocated < ITERATIONS);
+        }
+    }
+
+    /**
+     * 1000个key的getAll: 旧版每次都解密并解析类型标记,现在只有首次读取时解密,之后命中缓存不再解密
+     */
+    @Test
+    public void getAllCacheHitSkipsDecoding() {
+        int keys = 1000;
+        CountingCallback callback = new CountingCallback(URL_CALLBACK);
+        SpManager.setEncodeDecodeCallback(callback);
+        try {
+            SpTool sp = SpManager.getSp("SpToolTestGetAll");
+            sp.clear();
+            // 直接写入旧版格式的数据: 加密后的"类型标记 + 文本值"
+            MemorySharedPreferences store = MemorySharedPreferences.get("SpToolTestGetAll");
+            SharedPreferences.Editor editor = store.edit();
+            for (int i = 0; i < keys; i++) {
+                String value = i % 2 == 0 ? "|#@int_int@#|" + i : "|#@string_string@#|value " + i;
+                editor.putString(URL_CALLBACK.encode("key" + i), URL_CALLBACK.encode(value));
+            }
+            editor.commit();
+            Map<String, Object> legacy = legacyGetAll(store);
+
+            // 首次读取时解密并重写为新格式,重写后再读取一次才缓存结果
+            Map<String, ?> all = sp.getAll();
+            assertEquals(keys, all.size());
+            assertEquals(legacy, all);
+            assertTrue(callback.decodes > 0);
+            assertEquals(legacy, sp.getAll());
+
+            // 之后命中缓存,不再解密
+            callback.decodes = 0;
+            for (int i = 0; i < 10; i++) {
+                all = sp.getAll();
+            }
+            assertEquals(0, callback.decodes);
+            assertEquals(legacy, all);
+            assertEquals(2, all.get("key2"));
+            assertEquals("value 3", all.get("key3"));
+
+            // 写入后读取到新值
+            sp.putInt("key2", 7);
+            assertEquals(7, sp.getAll().get("key2"));
+        } finally {
+            SpManager.setEncodeDecodeCallback(PREFIX_CALLBACK);
+        }
+    }
+
+    private static Map<String, Object> legacyGetAll(SharedPreferences store) {
+        Map<String, Object> result = new HashMap<>();
+        for (Map.Entry<String, ?> entry : store.getAll().entrySet()) {
+            String key = URL_CALLBACK.decode(entry.getKey());
+            SpValueCodec.Value value = SpValueCodec.decode(URL_CALLBACK.decode((String) entry.getValue()));
+            if (key != null && value != null) {
+                result.put(key, value.boxed());
+            }
+        }
+        return result;
+    }
+
+    private float putAndGetFloat(float value) {
+        mSp.putFloat("nan", value);
+        return mSp.getFloat("nan", 0);
+    }
+
+    /**
+     * 统计解密次数
+     */
+    private static final class CountingCallback implements SpEncodeDecodeCallback {
+        private final SpEncodeDecodeCallback mDelegate;
+        volatile int decodes;
+
+        CountingCallback(SpEncodeDecodeCallback pDelegate) {
+            mDelegate = pDelegate;
+        }
+
+        @Override
+        public String encode(@NonNull String pStr) {
+            return mDelegate.encode(pStr);
+        }
+
+        @Override
+        public String decode(@NonNull String pStr) {
+            decodes++;
+            return mDelegate.decode(pStr);
+        }
+    }
+}
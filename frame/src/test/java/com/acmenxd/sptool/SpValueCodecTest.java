@@ -0,0 +1,100 @@
+package com.acmenxd.sptool;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author AcmenXD
+ * @version v1.0
+ * @github https://github.com/AcmenXD
+ * @date 2017/8/3 11:10
+ * @detail 值编码: 每种类型标记的编码/解码,旧版文本标记格式的兼容解析,以及非法数据返回null
+ */
+public class SpValueCodecTest {
+
+    @Test
+    public void primitivesRoundTrip() {
+        SpValueCodec.Value value = SpValueCodec.decode(SpValueCodec.encode(SpValueCodec.TYPE_INT, -7));
+        assertEquals(SpValueCodec.TYPE_INT, value.type);
+        assertEquals(-7, value.intValue());
+        assertFalse(value.legacy);
+
+        value = SpValueCodec.decode(SpValueCodec.encode(SpValueCodec.TYPE_LONG, Long.MAX_VALUE));
+        assertEquals(SpValueCodec.TYPE_LONG, value.type);
+        assertEquals(Long.MAX_VALUE, value.longValue());
+
+        value = SpValueCodec.decode(SpValueCodec.encode(SpValueCodec.TYPE_FLOAT, 1.25f));
+        assertEquals(SpValueCodec.TYPE_FLOAT, value.type);
+        assertEquals(1.25f, value.floatValue(), 0);
+
+        value = SpValueCodec.decode(SpValueCodec.encode(SpValueCodec.TYPE_BOOLEAN, true));
+        assertEquals(SpValueCodec.TYPE_BOOLEAN, value.type);
+        assertTrue(value.booleanValue());
+        assertEquals(Boolean.TRUE, value.boxed());
+    }
+
+    @Test
+    public void bytesStartWithTypeTag() {
+        assertArrayEquals(new byte[]{SpValueCodec.TYPE_INT, 0, 0, 1, 0}, SpValueCodec.encodeBytes(SpValueCodec.TYPE_INT, 256));
+        assertArrayEquals(new byte[]{SpValueCodec.TYPE_BOOLEAN, 0}, SpValueCodec.encodeBytes(SpValueCodec.TYPE_BOOLEAN, false));
+        byte[] bytes = SpValueCodec.encodeBytes(SpValueCodec.TYPE_STRING, "中文");
+        assertEquals(SpValueCodec.TYPE_STRING, bytes[0]);
+        assertEquals(1 + 6, bytes.length);
+
+        SpValueCodec.Value value = SpValueCodec.decodeBytes(bytes);
+        assertEquals(SpValueCodec.TYPE_STRING, value.type);
+        assertEquals("中文", value.value);
+        value = SpValueCodec.decodeBytes(SpValueCodec.encodeBytes(SpValueCodec.TYPE_SETSTRING, "item"));
+        assertEquals(SpValueCodec.TYPE_SETSTRING, value.type);
+        assertEquals("item", value.value);
+        value = SpValueCodec.decodeBytes(SpValueCodec.encodeBytes(SpValueCodec.TYPE_OBJECT, new byte[]{1, 2, 3}));
+        assertEquals(SpValueCodec.TYPE_OBJECT, value.type);
+        assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) value.value);
+        // 空字符串只有类型标记
+        value = SpValueCodec.decode(SpValueCodec.encode(SpValueCodec.TYPE_STRING, ""));
+        assertEquals("", value.value);
+        assertTrue(value.exists);
+    }
+
+    @Test
+    public void legacyMarkers() {
+        SpValueCodec.Value value = SpValueCodec.decode("|#@int_int@#|123");
+        assertEquals(SpValueCodec.TYPE_INT, value.type);
+        assertEquals(123, value.intValue());
+        assertTrue(value.legacy);
+        assertEquals(-5L, SpValueCodec.decode("|#@long_long@#|-5").longValue());
+        assertEquals(0.5f, SpValueCodec.decode("|#@float_float@#|0.5").floatValue(), 0);
+        assertTrue(SpValueCodec.decode("|#@boolean_boolean@#|true").booleanValue());
+        value = SpValueCodec.decode("|#@string_string@#|text");
+        assertEquals(SpValueCodec.TYPE_STRING, value.type);
+        assertEquals("text", value.value);
+        assertTrue(value.legacy);
+        value = SpValueCodec.decode("|#@setString_setString@#|item");
+        assertEquals(SpValueCodec.TYPE_SETSTRING, value.type);
+        assertEquals("item", value.value);
+    }
+
+    @Test
+    public void invalidInputReturnsNull() {
+        assertNull(SpValueCodec.decode(null));
+        assertNull(SpValueCodec.decode(""));
+        assertNull(SpValueCodec.decode("|#@int_int@#|abc"));
+        assertNull(SpValueCodec.decode("|#@unknown@#|1"));
+        assertNull(SpValueCodec.decodeBytes(null));
+        assertNull(SpValueCodec.decodeBytes(new byte[0]));
+        // 未知类型
+        assertNull(SpValueCodec.decodeBytes(new byte[]{0x7f, 1}));
+        // 长度与类型不符
+        byte[] bytes = SpValueCodec.encodeBytes(SpValueCodec.TYPE_LONG, 1L);
+        assertNull(SpValueCodec.decodeBytes(Arrays.copyOf(bytes, bytes.length - 1)));
+        assertNull(SpValueCodec.decodeBytes(new byte[]{SpValueCodec.TYPE_INT, 0, 0, 0, 0, 0}));
+        assertNull(SpValueCodec.decodeBytes(new byte[]{SpValueCodec.TYPE_BOOLEAN}));
+    }
+}
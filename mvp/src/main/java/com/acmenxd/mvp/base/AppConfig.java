@@ -131,5 +131,7 @@ public final class AppConfig {
     public static void permissionsAfterInit() {
         BaseApplication app = BaseApplication.instance();
         IMEI = ((TelephonyManager) app.getSystemService(Context.TELEPHONY_SERVICE)).getDeviceId();
+        // 公共参数中的IMEI已变化
+        NetManager.INSTANCE.clearMutualCache();
     }
 }